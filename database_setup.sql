@@ -71,7 +71,7 @@ CREATE TABLE borrowings (
     student_id INT,
     book_id INT,
     admin_id INT,
-    borrow_date DATETIME DEFAULT CURRENT_TIMESTAMP,
+    borrow_date DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
     due_date DATETIME NOT NULL,
     return_date DATETIME,
     status ENUM('Borrowed', 'Returned', 'Overdue') DEFAULT 'Borrowed',
@@ -43,7 +43,7 @@ CREATE TABLE IF NOT EXISTS `admins` (
 DROP TABLE IF EXISTS `audit_log`;
 CREATE TABLE IF NOT EXISTS `audit_log` (
   `log_id` int(11) NOT NULL AUTO_INCREMENT,
-  `timestamp` datetime DEFAULT current_timestamp(),
+  `timestamp` datetime NOT NULL DEFAULT current_timestamp(),
   `action` varchar(50) NOT NULL,
   `book_id` int(11) DEFAULT NULL,
   `student_id` int(11) DEFAULT NULL,
@@ -53,6 +53,9 @@ CREATE TABLE IF NOT EXISTS `audit_log` (
   KEY `book_id` (`book_id`),
   KEY `student_id` (`student_id`),
   KEY `admin_id` (`admin_id`),
+  KEY `idx_audit_log_timestamp` (`timestamp`),
+  KEY `idx_audit_log_action_timestamp` (`action`,`timestamp`),
+  FULLTEXT KEY `ft_audit_log_details` (`details`),
   CONSTRAINT `audit_log_ibfk_1` FOREIGN KEY (`book_id`) REFERENCES `books` (`book_id`),
   CONSTRAINT `audit_log_ibfk_2` FOREIGN KEY (`student_id`) REFERENCES `students` (`student_id`),
   CONSTRAINT `audit_log_ibfk_3` FOREIGN KEY (`admin_id`) REFERENCES `admins` (`admin_id`)
@@ -78,7 +81,9 @@ CREATE TABLE IF NOT EXISTS `books` (
   `active` tinyint(1) DEFAULT 1,
   `price` double NOT NULL,
   PRIMARY KEY (`book_id`),
-  UNIQUE KEY `isbn` (`isbn`)
+  UNIQUE KEY `isbn` (`isbn`),
+  KEY `idx_books_title` (`title`),
+  FULLTEXT KEY `ft_books_search` (`title`,`author`,`isbn`)
 ) ENGINE=InnoDB AUTO_INCREMENT=17 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
 
 -- Data exporting was unselected.
@@ -90,15 +95,19 @@ CREATE TABLE IF NOT EXISTS `borrowings` (
   `student_id` int(11) DEFAULT NULL,
   `book_id` int(11) DEFAULT NULL,
   `admin_id` int(11) DEFAULT NULL,
-  `borrow_date` datetime DEFAULT current_timestamp(),
+  `borrow_date` datetime NOT NULL DEFAULT current_timestamp(),
   `due_date` datetime NOT NULL,
   `return_date` datetime DEFAULT NULL,
   `status` varchar(20) DEFAULT NULL,
   `fine_amount` decimal(10,2) DEFAULT 0.00,
   PRIMARY KEY (`borrowing_id`),
-  KEY `student_id` (`student_id`),
-  KEY `book_id` (`book_id`),
   KEY `admin_id` (`admin_id`),
+  KEY `idx_borrowings_status_due` (`status`,`due_date`),
+  KEY `idx_borrowings_book_status` (`book_id`,`status`),
+  KEY `idx_borrowings_student_status` (`student_id`,`status`),
+  KEY `idx_borrowings_borrow_date` (`borrow_date`,`borrowing_id`),
+  KEY `idx_borrowings_due_date` (`due_date`),
+  KEY `idx_borrowings_return_date` (`return_date`),
   CONSTRAINT `borrowings_ibfk_1` FOREIGN KEY (`student_id`) REFERENCES `students` (`student_id`),
   CONSTRAINT `borrowings_ibfk_2` FOREIGN KEY (`book_id`) REFERENCES `books` (`book_id`),
   CONSTRAINT `borrowings_ibfk_3` FOREIGN KEY (`admin_id`) REFERENCES `admins` (`admin_id`)
@@ -106,6 +115,41 @@ CREATE TABLE IF NOT EXISTS `borrowings` (
 
 -- Data exporting was unselected.
 
+-- Dumping structure for table library_system.circulation_daily
+DROP TABLE IF EXISTS `circulation_daily`;
+CREATE TABLE IF NOT EXISTS `circulation_daily` (
+  `day` date NOT NULL,
+  `book_id` int(11) NOT NULL,
+  `council_id` int(11) NOT NULL DEFAULT 0,
+  `borrow_count` int(11) NOT NULL DEFAULT 0,
+  `return_count` int(11) NOT NULL DEFAULT 0,
+  PRIMARY KEY (`day`,`book_id`,`council_id`),
+  KEY `idx_circulation_book_day` (`book_id`,`day`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- Data exporting was unselected.
+
+-- Dumping structure for trigger library_system.borrowings_return_rollup
+DROP TRIGGER IF EXISTS `borrowings_return_rollup`;
+DELIMITER //
+CREATE TRIGGER borrowings_return_rollup AFTER UPDATE ON borrowings FOR EACH ROW
+BEGIN
+    IF NOT (OLD.return_date <=> NEW.return_date AND OLD.book_id <=> NEW.book_id) THEN
+        IF OLD.return_date IS NOT NULL AND OLD.book_id IS NOT NULL THEN
+            UPDATE circulation_daily SET return_count = return_count - 1
+            WHERE day = DATE(OLD.return_date) AND book_id = OLD.book_id AND return_count > 0
+              AND council_id = COALESCE((SELECT council_id FROM students WHERE student_id = OLD.student_id), 0);
+        END IF;
+        IF NEW.return_date IS NOT NULL AND NEW.book_id IS NOT NULL THEN
+            INSERT INTO circulation_daily (day, book_id, council_id, borrow_count, return_count)
+            VALUES (DATE(NEW.return_date), NEW.book_id,
+                    COALESCE((SELECT council_id FROM students WHERE student_id = NEW.student_id), 0), 0, 1)
+            ON DUPLICATE KEY UPDATE return_count = return_count + 1;
+        END IF;
+    END IF;
+END //
+DELIMITER ;
+
 -- Dumping structure for table library_system.councils
 DROP TABLE IF EXISTS `councils`;
 CREATE TABLE IF NOT EXISTS `councils` (
@@ -187,6 +231,8 @@ CREATE TABLE IF NOT EXISTS `students` (
   UNIQUE KEY `id_number` (`id_number`),
   KEY `course_id` (`course_id`),
   KEY `council_id` (`council_id`),
+  KEY `idx_students_active_name` (`active`,`last_name`,`first_name`,`student_id`),
+  KEY `idx_students_status` (`status`),
   CONSTRAINT `students_ibfk_1` FOREIGN KEY (`course_id`) REFERENCES `courses` (`course_id`),
   CONSTRAINT `students_ibfk_2` FOREIGN KEY (`council_id`) REFERENCES `councils` (`council_id`)
 ) ENGINE=InnoDB AUTO_INCREMENT=11 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
@@ -222,7 +268,7 @@ CREATE TABLE `vw_student_borrowings` (
 	`student_name` VARCHAR(1) NOT NULL COLLATE 'utf8mb4_general_ci',
 	`id_number` VARCHAR(1) NOT NULL COLLATE 'utf8mb4_general_ci',
 	`book_title` VARCHAR(1) NOT NULL COLLATE 'utf8mb4_general_ci',
-	`borrow_date` DATETIME NULL,
+	`borrow_date` DATETIME NOT NULL,
 	`due_date` DATETIME NOT NULL,
 	`return_date` DATETIME NULL,
 	`status` VARCHAR(1) NULL COLLATE 'utf8mb4_general_ci',
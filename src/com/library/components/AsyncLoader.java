@@ -0,0 +1,167 @@
+package com.library.components;
+
+import java.awt.Cursor;
+import java.awt.Dimension;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.swing.JComponent;
+import javax.swing.JOptionPane;
+import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Runs database queries for a panel on a background thread and hands the
+ * result back on the Event Dispatch Thread.
+ *
+ * Each loader is one request channel: starting a new load supersedes the
+ * one still in flight, whose result is then dropped. While anything is
+ * pending the owner shows a wait cursor and the optional indicator
+ * component is made visible. All methods must be called on the EDT.
+ */
+public class AsyncLoader {
+    private static final Logger logger = LogManager.getLogger(AsyncLoader.class);
+
+    // Counts overlapping loads that share one owner or indicator
+    private static final String BUSY_KEY = "AsyncLoader.busy";
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(4, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "library-loader-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    public interface Query<T> {
+        T run() throws Exception;
+    }
+
+    private final JComponent owner;
+    private JComponent indicator;
+    private Future<?> pending;
+    private int generation;
+
+    /**
+     * @param owner component that gets the wait cursor and error dialogs; may be null
+     */
+    public AsyncLoader(JComponent owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * A small indeterminate progress bar, hidden until something loads.
+     */
+    public static JProgressBar createIndicator() {
+        JProgressBar bar = new JProgressBar();
+        bar.setIndeterminate(true);
+        bar.setPreferredSize(new Dimension(80, 6));
+        bar.setBorderPainted(false);
+        bar.setVisible(false);
+        return bar;
+    }
+
+    public void setIndicator(JComponent indicator) {
+        if (pending != null && this.indicator != null) {
+            this.indicator.setVisible(adjustBusy(this.indicator, -1) > 0);
+        }
+        this.indicator = indicator;
+        if (indicator != null) {
+            indicator.setVisible(adjustBusy(indicator, pending != null ? 1 : 0) > 0);
+        }
+    }
+
+    /**
+     * Loads with the default error handling: log it and tell the user.
+     */
+    public <T> void load(Query<T> query, Consumer<T> onSuccess, String errorMessage) {
+        load(query, onSuccess, e -> {
+            logger.error(errorMessage, e);
+            JOptionPane.showMessageDialog(owner,
+                errorMessage + ": " + e.getMessage(),
+                "Database Error",
+                JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    public <T> void load(Query<T> query, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        cancel();
+        int ticket = ++generation;
+        setBusy(true);
+        pending = EXECUTOR.submit(() -> {
+            T result = null;
+            Exception failure = null;
+            try {
+                result = query.run();
+            } catch (Exception e) {
+                failure = e;
+            }
+            T value = result;
+            Exception error = failure;
+            SwingUtilities.invokeLater(() -> finish(ticket, value, error, onSuccess, onError));
+        });
+    }
+
+    /**
+     * Drops the load in flight, if any. A query that has already reached
+     * the database runs to completion but its result is discarded.
+     */
+    public void cancel() {
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+            generation++;
+            setBusy(false);
+        }
+    }
+
+    public boolean isLoading() {
+        return pending != null;
+    }
+
+    private <T> void finish(int ticket, T value, Exception error,
+                            Consumer<T> onSuccess, Consumer<Exception> onError) {
+        if (ticket != generation) {
+            return; // superseded or cancelled
+        }
+        pending = null;
+        setBusy(false);
+        if (error != null) {
+            onError.accept(error);
+        } else {
+            onSuccess.accept(value);
+        }
+    }
+
+    private void setBusy(boolean busy) {
+        int delta = busy ? 1 : -1;
+        if (owner != null) {
+            int count = adjustBusy(owner, delta);
+            owner.setCursor(count > 0 ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
+        }
+        if (indicator != null) {
+            indicator.setVisible(adjustBusy(indicator, delta) > 0);
+        }
+    }
+
+    private static int adjustBusy(JComponent component, int delta) {
+        int count = Math.max(0, busyCount(component) + delta);
+        component.putClientProperty(BUSY_KEY, count);
+        return count;
+    }
+
+    private static int busyCount(JComponent component) {
+        Object value = component.getClientProperty(BUSY_KEY);
+        return value instanceof Integer ? (Integer) value : 0;
+    }
+}
@@ -320,8 +320,7 @@ public class DatePicker extends JPanel {
                 
                 // Only update if the date is valid
                 if (minimumDate == null || !newDate.before(minimumDate)) {
-                    selectedDate = newDate;
-                    dateField.setText(dateFormat.format(selectedDate));
+                    setDate(newDate);
                     Window window = SwingUtilities.getWindowAncestor(dayButton);
                     if (window != null) {
                         window.dispose();
@@ -341,8 +340,10 @@ public class DatePicker extends JPanel {
     }
     
     public void setDate(Date date) {
+        Date oldDate = selectedDate;
         selectedDate = date;
         dateField.setText(dateFormat.format(date));
+        firePropertyChange("date", oldDate, date);
     }
     
     public String getFormattedDate() {
@@ -0,0 +1,271 @@
+package com.library.components;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.swing.JComponent;
+import javax.swing.JScrollBar;
+import javax.swing.JScrollPane;
+import javax.swing.table.AbstractTableModel;
+
+import com.library.dao.Page;
+
+/**
+ * Read-only table model that pulls its rows from a paged source one block
+ * at a time instead of holding every row up front.
+ *
+ * The next block is fetched when the attached scroll pane nears the bottom,
+ * and each appended block fires a single rowsInserted event. Only the most
+ * recently used blocks are kept; an evicted block is fetched again from its
+ * start cursor the next time one of its rows is painted. Fetches run on an
+ * AsyncLoader, so the EDT never waits on the database; rows of a block that
+ * is still loading read as null. A block whose fetch failed stays empty
+ * until the source is set again, e.g. by a Refresh button, so repainting
+ * its rows does not retry, and report, the same error over and over.
+ */
+public class LazyTableModel<T> extends AbstractTableModel {
+    public static final int DEFAULT_BLOCK_SIZE = 100;
+    public static final int DEFAULT_MAX_BLOCKS = 10;
+
+    public interface BlockSource<T> {
+        Page<T> fetch(String cursor, int blockSize) throws SQLException;
+    }
+
+    public interface ListQuery<T> {
+        List<T> load() throws SQLException;
+    }
+
+    public interface ColumnAccessor<T> {
+        Object valueAt(T item, int column);
+    }
+
+    private final String[] columns;
+    private final ColumnAccessor<T> accessor;
+    private final int blockSize;
+    private final int maxBlocks;
+
+    // Start cursor of every block seen so far, so evicted ones can be refetched
+    private final List<String> blockCursors = new ArrayList<>();
+    private final Map<Integer, List<T>> blocks;
+    private final Set<Integer> refetching = new HashSet<>();
+    private final Set<Integer> failed = new HashSet<>();
+    private final AsyncLoader appendLoader = new AsyncLoader(null);
+
+    private BlockSource<T> source;
+    private int sourceVersion;
+    private String nextCursor;
+    private boolean exhausted = true;
+    private int rowCount;
+    private JComponent indicator;
+    private Consumer<Exception> errorHandler = Throwable::printStackTrace;
+
+    public LazyTableModel(String[] columns, ColumnAccessor<T> accessor) {
+        this(columns, accessor, DEFAULT_BLOCK_SIZE, DEFAULT_MAX_BLOCKS);
+    }
+
+    public LazyTableModel(String[] columns, ColumnAccessor<T> accessor, int blockSize, int maxBlocks) {
+        if (blockSize <= 0 || maxBlocks <= 0) {
+            throw new IllegalArgumentException("Block size and block count must be positive");
+        }
+        this.columns = columns.clone();
+        this.accessor = accessor;
+        this.blockSize = blockSize;
+        this.maxBlocks = maxBlocks;
+        this.blocks = new LinkedHashMap<Integer, List<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > LazyTableModel.this.maxBlocks;
+            }
+        };
+    }
+
+    /**
+     * Called on the EDT when a block cannot be fetched. Defaults to printing the trace.
+     */
+    public void setErrorHandler(Consumer<Exception> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Component shown while a block is being fetched.
+     */
+    public void setIndicator(JComponent indicator) {
+        this.indicator = indicator;
+        appendLoader.setIndicator(indicator);
+    }
+
+    /**
+     * Fetches the next block when the scroll pane gets within half a
+     * screen of the last loaded row.
+     */
+    public void attachTo(JScrollPane pane) {
+        JScrollBar bar = pane.getVerticalScrollBar();
+        bar.addAdjustmentListener(e -> {
+            if (!e.getValueIsAdjusting()
+                    && bar.getValue() + bar.getVisibleAmount() >= bar.getMaximum() - bar.getVisibleAmount() / 2) {
+                loadNextBlock();
+            }
+        });
+    }
+
+    /**
+     * Drops the current rows and starts over from the first block of source.
+     * A fetch still running for the previous source is discarded.
+     */
+    public void setSource(BlockSource<T> source) {
+        appendLoader.cancel();
+        this.source = source;
+        sourceVersion++;
+        blockCursors.clear();
+        blocks.clear();
+        refetching.clear();
+        failed.clear();
+        nextCursor = null;
+        exhausted = source == null;
+        rowCount = 0;
+        fireTableDataChanged();
+        loadNextBlock();
+    }
+
+    /**
+     * Shows the result of a query that returns the whole list at once,
+     * e.g. a search. The query runs off the EDT like any other block.
+     */
+    public void setList(ListQuery<T> query) {
+        setSource(listSource(query));
+    }
+
+    public void clear() {
+        setSource(null);
+    }
+
+    public boolean hasMore() {
+        return !exhausted;
+    }
+
+    public boolean isLoading() {
+        return appendLoader.isLoading();
+    }
+
+    public void loadNextBlock() {
+        if (exhausted || appendLoader.isLoading()) {
+            return;
+        }
+        BlockSource<T> src = source;
+        String cursor = nextCursor;
+        appendLoader.load(() -> src.fetch(cursor, blockSize), page -> appendBlock(cursor, page), e -> {
+            exhausted = true;
+            errorHandler.accept(e);
+        });
+    }
+
+    private void appendBlock(String cursor, Page<T> page) {
+        List<T> items = page.getItems();
+        int blockIndex = blockCursors.size();
+        blockCursors.add(cursor);
+        blocks.put(blockIndex, items);
+        nextCursor = page.getNextCursor();
+        exhausted = !page.hasMore();
+        if (!items.isEmpty()) {
+            int firstRow = rowCount;
+            rowCount += items.size();
+            fireTableRowsInserted(firstRow, rowCount - 1);
+        }
+    }
+
+    /**
+     * The item behind a row, or null if its block is not in memory right now.
+     */
+    public T getItem(int row) {
+        if (row < 0 || row >= rowCount) {
+            return null;
+        }
+        List<T> block = getBlock(row / blockSize);
+        int offset = row % blockSize;
+        return block != null && offset < block.size() ? block.get(offset) : null;
+    }
+
+    private List<T> getBlock(int blockIndex) {
+        List<T> block = blocks.get(blockIndex);
+        if (block == null && source != null && !failed.contains(blockIndex) && refetching.add(blockIndex)) {
+            refetch(blockIndex);
+        }
+        return block;
+    }
+
+    private void refetch(int blockIndex) {
+        BlockSource<T> src = source;
+        int version = sourceVersion;
+        String cursor = blockCursors.get(blockIndex);
+        // One loader per block so scrolling across several evicted blocks
+        // does not cancel the earlier fetches
+        AsyncLoader loader = new AsyncLoader(null);
+        loader.setIndicator(indicator);
+        loader.load(() -> src.fetch(cursor, blockSize).getItems(), items -> {
+            if (version != sourceVersion) {
+                return;
+            }
+            refetching.remove(blockIndex);
+            blocks.put(blockIndex, items);
+            int firstRow = blockIndex * blockSize;
+            int lastRow = Math.min(firstRow + blockSize, rowCount) - 1;
+            if (lastRow >= firstRow) {
+                fireTableRowsUpdated(firstRow, lastRow);
+            }
+        }, e -> {
+            if (version == sourceVersion) {
+                refetching.remove(blockIndex);
+                failed.add(blockIndex);
+                errorHandler.accept(e);
+            }
+        });
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        T item = getItem(row);
+        return item != null ? accessor.valueAt(item, column) : null;
+    }
+
+    /**
+     * Runs the query on the first fetch and then pages over its result
+     * using the row offset as the cursor.
+     */
+    public static <T> BlockSource<T> listSource(ListQuery<T> query) {
+        return new BlockSource<T>() {
+            private List<T> rows;
+
+            @Override
+            public synchronized Page<T> fetch(String cursor, int size) throws SQLException {
+                if (rows == null) {
+                    rows = Collections.unmodifiableList(new ArrayList<>(query.load()));
+                }
+                int from = cursor != null ? Integer.parseInt(cursor) : 0;
+                int to = Math.min(from + size, rows.size());
+                return new Page<>(rows.subList(from, to), to < rows.size() ? String.valueOf(to) : null);
+            }
+        };
+    }
+}
@@ -0,0 +1,248 @@
+package com.library.components;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.swing.JComponent;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.JTextComponent;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.library.dao.QueryCanceller;
+
+/**
+ * Search-as-you-type for a text field.
+ *
+ * Edits restart a short timer and the search runs once typing pauses. A
+ * newer term cancels the query still running for the previous one, both
+ * on the server (Statement.cancel through a QueryCanceller) and on the
+ * AsyncLoader. Recent results are cached by term for a short while. When
+ * a narrower is set and an earlier term is a prefix of the new one, the
+ * earlier result is filtered locally instead of asking the database
+ * again; only set one whose match agrees with the query, e.g. a plain
+ * substring match for a LIKE '%term%' search. All methods must be called
+ * on the EDT.
+ */
+public class TypeAheadSearch<T> {
+    private static final Logger logger = LogManager.getLogger(TypeAheadSearch.class);
+
+    public static final int DEFAULT_DELAY = 300;
+    private static final int CACHE_SIZE = 20;
+    private static final long CACHE_TTL_MILLIS = 30_000;
+
+    public interface Search<T> {
+        List<T> run(String term, QueryCanceller canceller) throws Exception;
+    }
+
+    public interface Narrower<T> {
+        /**
+         * Whether {@code item} matches {@code term}; the term is lower case.
+         */
+        boolean matches(T item, String term);
+    }
+
+    private final Search<T> search;
+    private final Consumer<List<T>> onResults;
+    private final Timer timer;
+    private final AsyncLoader loader = new AsyncLoader(null);
+    private final JTextComponent field;
+    private final Map<String, CachedResult<T>> cache = new LinkedHashMap<String, CachedResult<T>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResult<T>> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private Narrower<T> narrower;
+    private Runnable onCleared;
+    private AsyncLoader.Query<List<T>> clearedList;
+    private Consumer<Exception> errorHandler = e -> logger.error("Search failed", e);
+    private QueryCanceller inFlight;
+    private String lastTerm;
+
+    /**
+     * @param field     the field to watch
+     * @param search    runs off the EDT; pass the canceller on to the DAO
+     * @param onResults called on the EDT with the results for the current term
+     */
+    public TypeAheadSearch(JTextComponent field, Search<T> search, Consumer<List<T>> onResults) {
+        this.field = field;
+        this.search = search;
+        this.onResults = onResults;
+        this.timer = new Timer(DEFAULT_DELAY, e -> run(false));
+        this.timer.setRepeats(false);
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // attribute changes only
+            }
+        });
+    }
+
+    public void setDelay(int millis) {
+        timer.setInitialDelay(millis);
+    }
+
+    public void setNarrower(Narrower<T> narrower) {
+        this.narrower = narrower;
+    }
+
+    /**
+     * Called instead of a search when the field is emptied. Without one an
+     * empty term yields an empty result.
+     */
+    public void setOnCleared(Runnable onCleared) {
+        this.onCleared = onCleared;
+    }
+
+    /**
+     * Loads the list shown when the field is emptied, off the EDT like a
+     * search. The list is not cached, as it is usually served from memory.
+     */
+    public void setClearedList(AsyncLoader.Query<List<T>> clearedList) {
+        this.clearedList = clearedList;
+    }
+
+    public void setErrorHandler(Consumer<Exception> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    public void setIndicator(JComponent indicator) {
+        loader.setIndicator(indicator);
+    }
+
+    /**
+     * Searches for the current text right away, e.g. on Enter or a Search
+     * button, even if it is the term shown already.
+     */
+    public void searchNow() {
+        timer.stop();
+        run(true);
+    }
+
+    /**
+     * Forgets cached results, e.g. after the underlying data changed.
+     */
+    public void invalidate() {
+        cache.clear();
+        lastTerm = null;
+    }
+
+    public void cancel() {
+        timer.stop();
+        if (inFlight != null) {
+            inFlight.cancel();
+            inFlight = null;
+        }
+        loader.cancel();
+    }
+
+    private void run(boolean force) {
+        String term = field.getText().trim();
+        String key = term.toLowerCase(Locale.ROOT);
+        if (!force && key.equals(lastTerm)) {
+            return;
+        }
+        cancel();
+        lastTerm = key;
+
+        if (key.isEmpty()) {
+            if (clearedList != null) {
+                loader.load(clearedList, onResults, errorHandler);
+            } else if (onCleared != null) {
+                onCleared.run();
+            } else {
+                onResults.accept(Collections.emptyList());
+            }
+            return;
+        }
+
+        List<T> cached = force ? null : lookup(key);
+        if (cached != null) {
+            onResults.accept(cached);
+            return;
+        }
+
+        QueryCanceller canceller = new QueryCanceller();
+        inFlight = canceller;
+        loader.load(() -> search.run(term, canceller), results -> {
+            inFlight = null;
+            List<T> stored = Collections.unmodifiableList(new ArrayList<>(results));
+            cache.put(key, new CachedResult<>(stored));
+            onResults.accept(stored);
+        }, e -> {
+            inFlight = null;
+            if (!canceller.isCancelled()) {
+                errorHandler.accept(e);
+            }
+        });
+    }
+
+    // An exact hit, or a narrowed copy of the longest cached prefix
+    private List<T> lookup(String key) {
+        CachedResult<T> hit = fresh(key);
+        if (hit != null) {
+            return hit.items;
+        }
+        if (narrower == null) {
+            return null;
+        }
+        for (int length = key.length() - 1; length > 0; length--) {
+            CachedResult<T> prefix = fresh(key.substring(0, length));
+            if (prefix != null) {
+                List<T> narrowed = new ArrayList<>();
+                for (T item : prefix.items) {
+                    if (narrower.matches(item, key)) {
+                        narrowed.add(item);
+                    }
+                }
+                List<T> stored = Collections.unmodifiableList(narrowed);
+                cache.put(key, new CachedResult<>(stored, prefix.loadedAt));
+                return stored;
+            }
+        }
+        return null;
+    }
+
+    private CachedResult<T> fresh(String key) {
+        CachedResult<T> result = cache.get(key);
+        if (result != null && System.currentTimeMillis() - result.loadedAt > CACHE_TTL_MILLIS) {
+            cache.remove(key);
+            return null;
+        }
+        return result;
+    }
+
+    private static class CachedResult<T> {
+        final List<T> items;
+        final long loadedAt;
+
+        CachedResult(List<T> items) {
+            this(items, System.currentTimeMillis());
+        }
+
+        CachedResult(List<T> items, long loadedAt) {
+            this.items = items;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
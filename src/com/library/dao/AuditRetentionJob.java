@@ -0,0 +1,301 @@
+package com.library.dao;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.library.util.AuditArchive;
+import com.library.util.ConfigurationManager;
+import com.library.util.DatabaseConnection;
+
+/**
+ * Moves audit_log rows older than audit.retention.days into the monthly
+ * files of AuditArchive, so the live table only holds recent activity.
+ *
+ * The old rows are read oldest first in chunks of audit.retention.batchSize,
+ * each chunk is appended to its month's archive and forced to disk, and only
+ * then deleted by log_id, in its own short transaction. If the job stops
+ * between the two, the chunk is archived again on the next run and
+ * AuditArchive.read returns it once.
+ *
+ * When audit_log is partitioned by month (sql/alter_audit_log_partitioning.sql),
+ * a month that is old as a whole is archived and then dropped with its
+ * partition instead of deleted row by row, and partitions are added ahead
+ * of time for the coming months.
+ */
+public class AuditRetentionJob {
+    private static final Logger logger = LogManager.getLogger(AuditRetentionJob.class);
+
+    private static final int PARTITIONS_AHEAD = 2;
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private static final String OLDEST_SQL = "SELECT MIN(`timestamp`) FROM audit_log WHERE `timestamp` < ?";
+
+    private static final String CHUNK_SQL = "SELECT log_id, `timestamp`, action, book_id, student_id, admin_id, details "
+            + "FROM audit_log WHERE `timestamp` >= ? AND `timestamp` < ? "
+            + "AND (`timestamp` > ? OR (`timestamp` = ? AND log_id > ?)) "
+            + "ORDER BY `timestamp`, log_id LIMIT ?";
+
+    private static final String PARTITIONS_SQL = "SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'audit_log' AND PARTITION_NAME IS NOT NULL";
+
+    private final AuditArchive archive;
+    private final int retentionDays;
+    private final int batchSize;
+
+    public AuditRetentionJob(AuditArchive archive, int retentionDays, int batchSize) {
+        this.archive = archive;
+        this.retentionDays = retentionDays;
+        this.batchSize = Math.max(1, Math.min(batchSize, AuditArchive.MAX_CHUNK));
+    }
+
+    /**
+     * A job with the settings from config.properties: audit.retention.days
+     * (default 365, 0 keeps everything), audit.retention.batchSize (default
+     * 1000) and the archive in audit.archive.dir.
+     */
+    public static AuditRetentionJob fromConfig() {
+        return new AuditRetentionJob(AuditArchive.fromConfig(),
+                parseInt("audit.retention.days", 365), parseInt("audit.retention.batchSize", 1000));
+    }
+
+    /**
+     * Archives and removes every row older than the retention period, as of
+     * the start of today. Returns the number of rows archived.
+     */
+    public int run() throws SQLException, IOException {
+        if (retentionDays <= 0) {
+            return 0;
+        }
+        Timestamp cutoff = Timestamp.valueOf(LocalDate.now().minusDays(retentionDays).atStartOfDay());
+        int archived = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            TreeSet<YearMonth> partitions = monthlyPartitions(conn);
+            YearMonth previous = null;
+            Timestamp oldest;
+            while ((oldest = oldestBefore(conn, cutoff)) != null) {
+                YearMonth month = YearMonth.from(oldest.toLocalDateTime());
+                if (previous != null && !month.isAfter(previous)) {
+                    // Rows of this month were written after it was archived;
+                    // leave them to the next run rather than loop here
+                    break;
+                }
+                previous = month;
+
+                Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+                Timestamp monthEnd = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+                boolean wholeMonth = !monthEnd.after(cutoff);
+                if (wholeMonth && partitions.contains(month)) {
+                    archived += archiveMonth(conn, month, from, monthEnd, false);
+                    // No rows are older than this month, so the partitions
+                    // before it are empty and go with it
+                    dropPartitions(conn, partitions.headSet(month, true));
+                } else {
+                    archived += archiveMonth(conn, month, from, wholeMonth ? monthEnd : cutoff, true);
+                }
+            }
+            if (oldest == null) {
+                dropPartitions(conn, partitions.headSet(YearMonth.from(cutoff.toLocalDateTime()), false));
+            }
+            if (!partitions.isEmpty()) {
+                addPartitions(conn, partitions);
+            }
+        }
+        return archived;
+    }
+
+    // Archives the month's rows in [from, before), deleting each chunk once
+    // it is on disk unless the partition is dropped afterwards
+    private int archiveMonth(Connection conn, YearMonth month, Timestamp from, Timestamp before, boolean delete)
+            throws SQLException, IOException {
+        int archived = 0;
+        Timestamp lastTimestamp = from;
+        int lastId = -1;
+        if (!delete) {
+            // Rows stay until the partition is dropped, so after an earlier
+            // run stopped short of that, carry on behind what it archived
+            AuditArchive.Entry last = archive.lastEntry(month);
+            if (last != null && last.getTimestamp() != null && !last.getTimestamp().before(from)) {
+                lastTimestamp = last.getTimestamp();
+                lastId = last.getLogId();
+            }
+        }
+        while (true) {
+            List<AuditArchive.Entry> chunk = new ArrayList<>(batchSize);
+            BaseDAO.forEach(conn, AuditRetentionJob::mapEntry, chunk::add, CHUNK_SQL,
+                    from, before, lastTimestamp, lastTimestamp, lastId, batchSize);
+            if (chunk.isEmpty()) {
+                return archived;
+            }
+
+            archive.append(month, chunk);
+            if (delete) {
+                deleteChunk(conn, chunk);
+            }
+            archived += chunk.size();
+            AuditArchive.Entry last = chunk.get(chunk.size() - 1);
+            lastTimestamp = last.getTimestamp();
+            lastId = last.getLogId();
+            if (chunk.size() < batchSize) {
+                return archived;
+            }
+        }
+    }
+
+    private static AuditArchive.Entry mapEntry(ResultSet rs) throws SQLException {
+        return new AuditArchive.Entry(
+            rs.getInt("log_id"),
+            rs.getTimestamp("timestamp"),
+            rs.getString("action"),
+            (Integer) rs.getObject("book_id"),
+            (Integer) rs.getObject("student_id"),
+            (Integer) rs.getObject("admin_id"),
+            rs.getString("details")
+        );
+    }
+
+    private void deleteChunk(Connection conn, List<AuditArchive.Entry> chunk) throws SQLException {
+        StringBuilder sql = new StringBuilder("DELETE FROM audit_log WHERE log_id IN (");
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(')');
+        // Only two sizes occur per run, a full chunk and the last one
+        try (PreparedStatement pstmt = StatementCache.prepare(conn, sql.toString())) {
+            for (int i = 0; i < chunk.size(); i++) {
+                pstmt.setInt(i + 1, chunk.get(i).getLogId());
+            }
+            pstmt.executeUpdate();
+        }
+    }
+
+    // Removes the partitions and everything in them; the set is a view of
+    // the job's partition list, so they are removed from that as well
+    private static void dropPartitions(Connection conn, SortedSet<YearMonth> months) throws SQLException {
+        if (months.isEmpty()) {
+            return;
+        }
+        List<String> names = new ArrayList<>();
+        for (YearMonth month : months) {
+            names.add(month.format(PARTITION_NAME));
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE audit_log DROP PARTITION " + String.join(", ", names));
+        }
+        logger.info("Dropped audit_log partitions {}", names);
+        months.clear();
+    }
+
+    private static Timestamp oldestBefore(Connection conn, Timestamp cutoff) throws SQLException {
+        try (PreparedStatement pstmt = StatementCache.prepare(conn, OLDEST_SQL)) {
+            pstmt.setTimestamp(1, cutoff);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getTimestamp(1) : null;
+            }
+        }
+    }
+
+    // The months that have a partition of their own, empty if the table is
+    // not partitioned by month. pmax and other names are left out.
+    private static TreeSet<YearMonth> monthlyPartitions(Connection conn) throws SQLException {
+        TreeSet<YearMonth> months = new TreeSet<>();
+        try (PreparedStatement pstmt = StatementCache.prepare(conn, PARTITIONS_SQL);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                try {
+                    months.add(YearMonth.parse(rs.getString(1), PARTITION_NAME));
+                } catch (DateTimeParseException e) {
+                    // pmax
+                }
+            }
+        }
+        return months;
+    }
+
+    // Splits the coming months out of pmax, which is cheap while pmax is
+    // still empty, so new rows never pile up in it
+    private static void addPartitions(Connection conn, TreeSet<YearMonth> partitions) throws SQLException {
+        YearMonth last = YearMonth.now().plusMonths(PARTITIONS_AHEAD);
+        List<String> added = new ArrayList<>();
+        for (YearMonth month = partitions.last().plusMonths(1); !month.isAfter(last); month = month.plusMonths(1)) {
+            added.add("PARTITION " + month.format(PARTITION_NAME) + " VALUES LESS THAN (TO_DAYS('"
+                    + month.plusMonths(1).atDay(1) + "'))");
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+        added.add("PARTITION pmax VALUES LESS THAN MAXVALUE");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE audit_log REORGANIZE PARTITION pmax INTO (" + String.join(", ", added) + ")");
+        }
+        logger.info("Added {} audit_log partitions up to {}", added.size() - 1, last);
+    }
+
+    /**
+     * Runs the job every night at audit.retention.time (HH:mm, default 02:00)
+     * on a daemon thread.
+     */
+    public static void scheduleNightly() {
+        LocalTime at = parseTime(ConfigurationManager.getProperty("audit.retention.time", "02:00"));
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(at);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "audit-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                int archived = fromConfig().run();
+                logger.info("Audit retention archived {} rows in {} ms", archived, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                logger.error("Audit retention failed", e);
+            }
+        }, Duration.between(now, next).toMillis(), TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    private static LocalTime parseTime(String value) {
+        try {
+            return LocalTime.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            logger.error("Invalid audit.retention.time {}, using 02:00", value);
+            return LocalTime.of(2, 0);
+        }
+    }
+
+    private static int parseInt(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(ConfigurationManager.getProperty(key, String.valueOf(defaultValue)).trim());
+        } catch (NumberFormatException e) {
+            logger.error("Invalid {}, using {}", key, defaultValue);
+            return defaultValue;
+        }
+    }
+}
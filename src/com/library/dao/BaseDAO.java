@@ -6,10 +6,16 @@ import com.library.util.DatabaseConnection;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public abstract class BaseDAO<T> {
     private static final Logger logger = LogManager.getLogger(BaseDAO.class);
+    private static final int STREAM_FETCH_SIZE = 1000;
     protected final String tableName;
     
     protected BaseDAO(String tableName) {
@@ -21,7 +27,7 @@ public abstract class BaseDAO<T> {
     protected List<T> executeQuery(String sql, Object... params) {
         List<T> results = new ArrayList<>();
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = StatementCache.prepare(conn, sql)) {
             
             for (int i = 0; i < params.length; i++) {
                 stmt.setObject(i + 1, params[i]);
@@ -39,6 +45,137 @@ public abstract class BaseDAO<T> {
         return results;
     }
     
+    /**
+     * Maps the current row of a result set.
+     */
+    @FunctionalInterface
+    public interface RowMapper<R> {
+        R map(ResultSet rs) throws SQLException;
+    }
+    
+    /**
+     * Receives the rows of forEach one at a time.
+     */
+    @FunctionalInterface
+    public interface RowCallback<T> {
+        void accept(T row) throws SQLException;
+    }
+    
+    /**
+     * Maps the rows of a query lazily, one at a time, for results too large
+     * to collect in a list (exports, backups, rollups). The rows are
+     * streamed from the server, so only the current row is held in memory.
+     *
+     * The stream holds a connection until it is closed; use it in a
+     * try-with-resources block. While it is open that connection can run
+     * nothing else, and closing it early still reads the remaining rows off
+     * the wire.
+     */
+    protected Stream<T> stream(String sql, Object... params) {
+        return stream(this::mapResultSetToEntity, sql, params);
+    }
+    
+    /**
+     * stream for code outside a DAO subclass, with its own row mapper.
+     */
+    public static <R> Stream<R> stream(RowMapper<R> mapper, String sql, Object... params) {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            stmt = prepareStreaming(conn, sql, params);
+            rs = stmt.executeQuery();
+        } catch (SQLException e) {
+            closeQuietly(rs, stmt, conn);
+            logger.error("Error executing query: {} - {}", sql, e.getMessage());
+            throw new RuntimeException("Database query failed", e);
+        }
+        
+        ResultSet results = rs;
+        Spliterator<R> rows = new Spliterators.AbstractSpliterator<R>(Long.MAX_VALUE, Spliterator.ORDERED) {
+            @Override
+            public boolean tryAdvance(Consumer<? super R> action) {
+                try {
+                    if (!results.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(results));
+                    return true;
+                } catch (SQLException e) {
+                    logger.error("Error reading row: {} - {}", sql, e.getMessage());
+                    throw new RuntimeException("Database query failed", e);
+                }
+            }
+        };
+        PreparedStatement statement = stmt;
+        Connection connection = conn;
+        return StreamSupport.stream(rows, false).onClose(() -> closeQuietly(results, statement, connection));
+    }
+    
+    /**
+     * Same as stream, but hands each row to {@code callback} and closes
+     * everything itself. Returns the number of rows.
+     */
+    protected int forEach(RowCallback<T> callback, String sql, Object... params) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return forEach(conn, this::mapResultSetToEntity, callback, sql, params);
+        } catch (SQLException e) {
+            logger.error("Error executing query: {} - {}", sql, e.getMessage());
+            throw new RuntimeException("Database query failed", e);
+        }
+    }
+    
+    /**
+     * forEach on the caller's connection, which stays open, for jobs that
+     * write through another connection while they read. The callback must
+     * not use {@code conn}: it is busy with the rows until they are read.
+     */
+    public static <R> int forEach(Connection conn, RowMapper<R> mapper, RowCallback<R> callback,
+                                  String sql, Object... params) throws SQLException {
+        int count = 0;
+        try (PreparedStatement stmt = prepareStreaming(conn, sql, params);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                callback.accept(mapper.map(rs));
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    // Prepared statements are forward-only and read-only by default; with
+    // Integer.MIN_VALUE as the fetch size the MySQL driver then streams the
+    // rows instead of buffering the whole result. Other drivers reject that
+    // value and get a plain fetch size hint.
+    private static PreparedStatement prepareStreaming(Connection conn, String sql, Object... params)
+            throws SQLException {
+        PreparedStatement stmt = StatementCache.prepare(conn, sql);
+        try {
+            boolean mysql = "MySQL".equals(conn.getMetaData().getDatabaseProductName());
+            stmt.setFetchSize(mysql ? Integer.MIN_VALUE : STREAM_FETCH_SIZE);
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            return stmt;
+        } catch (SQLException e) {
+            stmt.close();
+            throw e;
+        }
+    }
+    
+    private static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource != null) {
+                try {
+                    resource.close();
+                } catch (Exception e) {
+                    logger.error("Error closing {}: {}", resource.getClass().getSimpleName(), e.getMessage());
+                }
+            }
+        }
+    }
+    
     protected T executeSingleResultQuery(String sql, Object... params) {
         List<T> results = executeQuery(sql, params);
         return results.isEmpty() ? null : results.get(0);
@@ -46,7 +183,7 @@ public abstract class BaseDAO<T> {
     
     protected int executeUpdate(String sql, Object... params) {
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement stmt = StatementCache.prepare(conn, sql, Statement.RETURN_GENERATED_KEYS)) {
             
             for (int i = 0; i < params.length; i++) {
                 stmt.setObject(i + 1, params[i]);
@@ -68,7 +205,7 @@ public abstract class BaseDAO<T> {
     
     protected int executeInsert(String sql, Object... params) {
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement stmt = StatementCache.prepare(conn, sql, Statement.RETURN_GENERATED_KEYS)) {
             
             for (int i = 0; i < params.length; i++) {
                 stmt.setObject(i + 1, params[i]);
@@ -130,7 +267,7 @@ public abstract class BaseDAO<T> {
     
     protected void executeBatch(String sql, List<Object[]> paramsList) {
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = StatementCache.prepare(conn, sql)) {
             
             conn.setAutoCommit(false);
             
@@ -155,7 +292,7 @@ public abstract class BaseDAO<T> {
     protected boolean exists(String column, Object value) {
         String sql = "SELECT COUNT(*) FROM " + tableName + " WHERE " + column + " = ?";
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = StatementCache.prepare(conn, sql)) {
             
             stmt.setObject(1, value);
             ResultSet rs = stmt.executeQuery();
@@ -175,7 +312,7 @@ public abstract class BaseDAO<T> {
         }
         
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = StatementCache.prepare(conn, sql)) {
             
             for (int i = 0; i < params.length; i++) {
                 stmt.setObject(i + 1, params[i]);
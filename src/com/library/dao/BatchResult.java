@@ -0,0 +1,54 @@
+package com.library.dao;
+
+/**
+ * What happened to each item of a BorrowingDAO batch call, by position in
+ * the list that was passed in. Items that did not go through leave the
+ * rest of the batch unaffected.
+ */
+public class BatchResult {
+    public enum Outcome {
+        DONE("Done"),
+        UNAVAILABLE("No copy available"),
+        ALREADY_RETURNED("Already returned"),
+        NOT_FOUND("Not found");
+
+        private final String label;
+
+        Outcome(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private final Outcome[] outcomes;
+
+    BatchResult(int size) {
+        this.outcomes = new Outcome[size];
+    }
+
+    void set(int index, Outcome outcome) {
+        outcomes[index] = outcome;
+    }
+
+    public Outcome getOutcome(int index) {
+        return outcomes[index];
+    }
+
+    public int size() {
+        return outcomes.length;
+    }
+
+    public int getDoneCount() {
+        int done = 0;
+        for (Outcome outcome : outcomes) {
+            if (outcome == Outcome.DONE) {
+                done++;
+            }
+        }
+        return done;
+    }
+}
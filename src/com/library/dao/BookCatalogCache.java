@@ -0,0 +1,291 @@
+package com.library.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.library.models.Book;
+
+/**
+ * Shared in-memory copy of the active book catalog.
+ *
+ * The catalog is loaded from the database once and then kept current by
+ * BookDAO and BorrowingDAO, which push a delta for every book they change.
+ * Panels read from here and register a Listener instead of re-running
+ * SELECT * FROM books. Listeners are called on the thread that made the
+ * change, so Swing code should hop to the EDT itself.
+ */
+public class BookCatalogCache {
+
+    public enum ChangeType { ADDED, UPDATED, REMOVED, RELOADED }
+
+    public interface Listener {
+        void catalogChanged(ChangeType type, Book book);
+    }
+
+    private static final BookCatalogCache INSTANCE = new BookCatalogCache();
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private final Map<Integer, Book> booksById = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idsByIsbn = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean loaded = false;
+    // Bumped by every change, loaded or not, so a load can tell whether a
+    // change committed while it was reading may be missing from its rows
+    private final AtomicLong version = new AtomicLong();
+    private final Object loadLock = new Object();
+
+    private BookCatalogCache() {
+    }
+
+    public static BookCatalogCache getInstance() {
+        return INSTANCE;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Active books ordered by title, same as BookDAO.getAllBooks().
+     */
+    public List<Book> getAllBooks() throws SQLException {
+        ensureLoaded();
+        List<Book> books = new ArrayList<>(booksById.size());
+        for (Book book : booksById.values()) {
+            books.add(new Book(book));
+        }
+        books.sort(Comparator.comparing(Book::getTitle, String.CASE_INSENSITIVE_ORDER));
+        return books;
+    }
+
+    /**
+     * Active books that can be lent out right now.
+     */
+    public List<Book> getAvailableBooks() throws SQLException {
+        List<Book> books = getAllBooks();
+        books.removeIf(book -> !book.isAvailable());
+        return books;
+    }
+
+    public Book getBookById(int bookId) throws SQLException {
+        ensureLoaded();
+        Book book = booksById.get(bookId);
+        return book != null ? new Book(book) : null;
+    }
+
+    public Book getBookByIsbn(String isbn) throws SQLException {
+        if (isbn == null) {
+            return null;
+        }
+        ensureLoaded();
+        Integer bookId = idsByIsbn.get(isbn.trim());
+        return bookId != null ? getBookById(bookId) : null;
+    }
+
+    /**
+     * Drops the cached catalog and reloads it on next access.
+     */
+    public void invalidate() {
+        synchronized (this) {
+            version.incrementAndGet();
+            loaded = false;
+            booksById.clear();
+            idsByIsbn.clear();
+        }
+        fire(ChangeType.RELOADED, null);
+    }
+
+    // Deltas pushed by the DAOs. Until the catalog is loaded they only bump
+    // the version, so a load running at the same time starts over.
+
+    void bookSaved(Book book) {
+        if (book == null || book.getBookId() <= 0) {
+            return;
+        }
+        Book copy = new Book(book);
+        Book previous;
+        synchronized (this) {
+            version.incrementAndGet();
+            if (!loaded) {
+                return;
+            }
+            previous = booksById.put(copy.getBookId(), copy);
+            if (previous != null && previous.getIsbn() != null) {
+                idsByIsbn.remove(previous.getIsbn());
+            }
+            if (copy.getIsbn() != null) {
+                idsByIsbn.put(copy.getIsbn(), copy.getBookId());
+            }
+        }
+        fire(previous == null ? ChangeType.ADDED : ChangeType.UPDATED, new Book(copy));
+    }
+
+    void bookRemoved(int bookId) {
+        Book previous;
+        synchronized (this) {
+            version.incrementAndGet();
+            if (!loaded) {
+                return;
+            }
+            previous = booksById.remove(bookId);
+            if (previous != null && previous.getIsbn() != null) {
+                idsByIsbn.remove(previous.getIsbn());
+            }
+        }
+        if (previous != null) {
+            fire(ChangeType.REMOVED, previous);
+        }
+    }
+
+    /**
+     * Adds a book just inserted by the caller, read through its connection.
+     * Does nothing if the book is already cached, so it never replaces a
+     * state that a later change has put there.
+     */
+    void bookInserted(Connection conn, int bookId) {
+        // Bump before checking, so either a running load sees it or this
+        // sees the load finished and fetches the row
+        version.incrementAndGet();
+        if (!loaded) {
+            return;
+        }
+        try {
+            Book book = new BookDAO().getBookById(conn, bookId);
+            if (book == null || !book.isActive()) {
+                return;
+            }
+            synchronized (this) {
+                version.incrementAndGet();
+                if (!loaded || booksById.putIfAbsent(bookId, book) != null) {
+                    return;
+                }
+                if (book.getIsbn() != null) {
+                    idsByIsbn.put(book.getIsbn(), bookId);
+                }
+            }
+            fire(ChangeType.ADDED, new Book(book));
+        } catch (SQLException e) {
+            // Can't confirm the new state, so force a full reload next time
+            e.printStackTrace();
+            invalidate();
+        }
+    }
+
+    // The deltas below mirror what an UPDATE did to the row instead of
+    // reading it again. Re-reads finishing out of order could put an older
+    // row over a newer one; these add up the same in any order.
+
+    /**
+     * Puts {@code count} copies of a cached book back on the shelf after a
+     * committed return.
+     */
+    void copiesReturned(int bookId, int count) {
+        update(bookId, book -> {
+            book.setAvailableQuantity(book.getAvailableQuantity() + count);
+            book.setStatus("Available");
+        });
+    }
+
+    /**
+     * Takes {@code count} copies off the shelf after committed borrows.
+     */
+    void copiesClaimed(int bookId, int count) {
+        update(bookId, book -> book.setAvailableQuantity(book.getAvailableQuantity() - count));
+    }
+
+    /**
+     * Moves the available count by {@code change}, as
+     * BookDAO.updateBookQuantity does.
+     */
+    void availableChanged(int bookId, int change) {
+        update(bookId, book -> {
+            book.setAvailableQuantity(book.getAvailableQuantity() + change);
+            book.setStatus(book.getAvailableQuantity() <= 0 ? "Borrowed" : "Available");
+        });
+    }
+
+    void statusChanged(int bookId, String status) {
+        update(bookId, book -> book.setStatus(status));
+    }
+
+    /**
+     * Writes one copy off after a committed lost report.
+     */
+    public void copyLost(int bookId) {
+        update(bookId, book -> {
+            book.setQuantity(book.getQuantity() - 1);
+            book.setAvailableQuantity(Math.max(book.getAvailableQuantity() - 1, 0));
+        });
+    }
+
+    private void update(int bookId, Consumer<Book> change) {
+        Book book;
+        synchronized (this) {
+            version.incrementAndGet();
+            if (!loaded) {
+                return;
+            }
+            Book cached = booksById.get(bookId);
+            if (cached == null) {
+                return;
+            }
+            book = new Book(cached);
+            change.accept(book);
+            booksById.put(bookId, book);
+        }
+        fire(ChangeType.UPDATED, new Book(book));
+    }
+
+    // Reads the catalog without holding the cache lock, so DAOs pushing
+    // deltas meanwhile are not held up; a load that saw the version move
+    // may have missed one of them and is read again
+    private void ensureLoaded() throws SQLException {
+        if (loaded) {
+            return;
+        }
+        synchronized (loadLock) {
+            for (int attempt = 1; !loaded; attempt++) {
+                long start = version.get();
+                List<Book> books = new BookDAO().getAllBooks();
+                synchronized (this) {
+                    boolean current = version.get() == start;
+                    if (!current && attempt < MAX_LOAD_ATTEMPTS) {
+                        continue;
+                    }
+                    booksById.clear();
+                    idsByIsbn.clear();
+                    for (Book book : books) {
+                        booksById.put(book.getBookId(), book);
+                        if (book.getIsbn() != null) {
+                            idsByIsbn.put(book.getIsbn(), book.getBookId());
+                        }
+                    }
+                    loaded = current;
+                    if (!current) {
+                        // Still changing: serve these rows this once and
+                        // load again on the next access
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private void fire(ChangeType type, Book book) {
+        for (Listener listener : listeners) {
+            listener.catalogChanged(type, book);
+        }
+    }
+}
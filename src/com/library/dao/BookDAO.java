@@ -10,8 +10,15 @@ import java.util.List;
 
 import com.library.models.Book;
 import com.library.util.DatabaseConnection;
+import com.library.util.FullText;
 
 public class BookDAO {
+
+    private static final String ACTIVE_BORROW_CHECK_SQL =
+            "SELECT COUNT(*) FROM borrowings WHERE book_id = ? AND status = 'Borrowed'";
+    // Prefix searches can match much of the catalog for one letter
+    private static final int PREFIX_SEARCH_LIMIT = 200;
+    private static volatile boolean fullTextAvailable = true;
     
     public boolean addBook(Book book) throws SQLException {
         // Add validation before inserting
@@ -30,7 +37,7 @@ public class BookDAO {
                     "location, status, price) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = StatementCache.prepare(conn, sql, Statement.RETURN_GENERATED_KEYS)) {
             
             pstmt.setString(1, book.getIsbn().trim());
             pstmt.setString(2, book.getTitle().trim());
@@ -44,7 +51,15 @@ public class BookDAO {
             pstmt.setString(10, "Available");
             pstmt.setDouble(11, book.getPrice());
             
-            return pstmt.executeUpdate() > 0;
+            if (pstmt.executeUpdate() == 0) {
+                return false;
+            }
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    BookCatalogCache.getInstance().bookInserted(conn, keys.getInt(1));
+                }
+            }
+            return true;
         }
     }
     
@@ -54,7 +69,7 @@ public class BookDAO {
                     "location=?, status=?, price=? WHERE book_id=?";
         
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = StatementCache.prepare(conn, sql)) {
             
             pstmt.setString(1, book.getIsbn());
             pstmt.setString(2, book.getTitle());
@@ -69,7 +84,11 @@ public class BookDAO {
             pstmt.setDouble(11, book.getPrice());
             pstmt.setInt(12, book.getBookId());
             
-            return pstmt.executeUpdate() > 0;
+            if (pstmt.executeUpdate() == 0) {
+                return false;
+            }
+            BookCatalogCache.getInstance().bookSaved(book);
+            return true;
         }
     }
     
@@ -80,8 +99,7 @@ public class BookDAO {
             conn.setAutoCommit(false); // Start transaction
 
             // First check if book has any active borrowings
-            try (PreparedStatement checkStmt = conn.prepareStatement(
-                "SELECT COUNT(*) FROM borrowings WHERE book_id = ? AND status = 'Borrowed'")) {
+            try (PreparedStatement checkStmt = StatementCache.prepare(conn, ACTIVE_BORROW_CHECK_SQL)) {
                 checkStmt.setInt(1, bookId);
                 ResultSet rs = checkStmt.executeQuery();
                 if (rs.next() && rs.getInt(1) > 0) {
@@ -90,7 +108,7 @@ public class BookDAO {
             }
 
             // Mark book as inactive instead of deleting
-            try (PreparedStatement updateStmt = conn.prepareStatement(
+            try (PreparedStatement updateStmt = StatementCache.prepare(conn,
                 "UPDATE books SET active = FALSE WHERE book_id = ?")) {
                 updateStmt.setInt(1, bookId);
                 int updated = updateStmt.executeUpdate();
@@ -100,13 +118,14 @@ public class BookDAO {
             }
 
             // Update related borrowing records
-            try (PreparedStatement updateBorrowingsStmt = conn.prepareStatement(
+            try (PreparedStatement updateBorrowingsStmt = StatementCache.prepare(conn,
                 "UPDATE borrowings SET status = 'Archived' WHERE book_id = ? AND status != 'Borrowed'")) {
                 updateBorrowingsStmt.setInt(1, bookId);
                 updateBorrowingsStmt.executeUpdate();
             }
 
             conn.commit();
+            BookCatalogCache.getInstance().bookRemoved(bookId);
         } catch (SQLException e) {
             if (conn != null) {
                 try {
@@ -120,6 +139,7 @@ public class BookDAO {
             if (conn != null) {
                 try {
                     conn.setAutoCommit(true);
+                    conn.close();
                 } catch (SQLException e) {
                     e.printStackTrace();
                 }
@@ -128,10 +148,15 @@ public class BookDAO {
     }
     
     public Book getBookById(int bookId) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return getBookById(conn, bookId);
+        }
+    }
+
+    Book getBookById(Connection conn, int bookId) throws SQLException {
         String sql = "SELECT * FROM books WHERE book_id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = StatementCache.prepare(conn, sql)) {
             
             pstmt.setInt(1, bookId);
             ResultSet rs = pstmt.executeQuery();
@@ -148,8 +173,8 @@ public class BookDAO {
         String sql = "SELECT * FROM books WHERE active = TRUE ORDER BY title";
         
         try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             PreparedStatement pstmt = StatementCache.prepare(conn, sql);
+             ResultSet rs = pstmt.executeQuery()) {
             
             while (rs.next()) {
                 books.add(mapResultSetToBook(rs));
@@ -159,26 +184,88 @@ public class BookDAO {
     }
     
     public List<Book> searchBooks(String searchTerm) throws SQLException {
+        return searchBooks(searchTerm, null);
+    }
+
+    /**
+     * searchBooks that can be aborted through {@code canceller}; null for none.
+     */
+    public List<Book> searchBooks(String searchTerm, QueryCanceller canceller) throws SQLException {
+        String term = searchTerm == null ? "" : searchTerm.trim();
+        if (term.isEmpty()) {
+            return queryBooks(canceller, "SELECT * FROM books WHERE available_quantity > 0 ORDER BY title ASC");
+        }
+
+        // Exact ISBN, with or without dashes, or numeric book ID goes straight
+        // to the primary/unique key; the start of an ISBN to the unique key
+        if (term.matches("[\\d-]*\\d[\\d-]*[xX]?")) {
+            String digits = term.replace("-", "");
+            List<Book> exact = queryBooks(canceller, "SELECT * FROM books WHERE (isbn IN (?, ?) OR book_id = ?) "
+                    + "AND available_quantity > 0 ORDER BY title ASC", term, digits, parseBookId(digits));
+            if (!exact.isEmpty()) {
+                return exact;
+            }
+            return queryBooks(canceller, "SELECT * FROM books WHERE (isbn LIKE ? OR isbn LIKE ?) "
+                    + "AND available_quantity > 0 ORDER BY title ASC LIMIT " + PREFIX_SEARCH_LIMIT,
+                    likePrefix(term), likePrefix(digits));
+        }
+
+        String booleanQuery = FullText.prefixQuery(term);
+        if (fullTextAvailable && booleanQuery != null) {
+            String sql = "SELECT * FROM books WHERE MATCH(title, author, isbn) AGAINST (? IN BOOLEAN MODE) "
+                    + "AND available_quantity > 0 "
+                    + "ORDER BY MATCH(title, author, isbn) AGAINST (? IN BOOLEAN MODE) DESC, title ASC";
+            try {
+                return queryBooks(canceller, sql, booleanQuery, booleanQuery);
+            } catch (SQLException e) {
+                if (e.getErrorCode() != FullText.ER_FT_MATCHING_KEY_NOT_FOUND) {
+                    throw e;
+                }
+                // Index not installed yet (see sql/alter_books_fulltext.sql)
+                fullTextAvailable = false;
+            }
+        }
+
+        // A word shorter than the FULLTEXT minimum token size, or no index:
+        // match the start of the title through idx_books_title rather than
+        // a %term% scan of the whole table on every keystroke
+        return queryBooks(canceller, "SELECT * FROM books WHERE title LIKE ? "
+                + "AND available_quantity > 0 ORDER BY title ASC LIMIT " + PREFIX_SEARCH_LIMIT, likePrefix(term));
+    }
+
+    // The term as a LIKE pattern for values that start with it
+    private static String likePrefix(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    private int parseBookId(String term) {
+        try {
+            return Integer.parseInt(term);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private List<Book> queryBooks(QueryCanceller canceller, String sql, Object... params) throws SQLException {
         List<Book> books = new ArrayList<>();
-        String sql = "SELECT * FROM books WHERE " +
-                    "(book_id LIKE ? OR " +
-                    "title LIKE ? OR " +
-                    "isbn LIKE ? OR " +
-                    "author LIKE ?) " +
-                    "AND available_quantity > 0 " +
-                    "ORDER BY title ASC";
-        
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            String pattern = "%" + searchTerm + "%";
-            for (int i = 1; i <= 4; i++) {
-                pstmt.setString(i, pattern);
+             PreparedStatement pstmt = StatementCache.prepare(conn, sql)) {
+
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
             }
-            
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                books.add(mapResultSetToBook(rs));
+
+            if (canceller != null) {
+                canceller.attach(pstmt);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    books.add(mapResultSetToBook(rs));
+                }
+            } finally {
+                if (canceller != null) {
+                    canceller.detach(pstmt);
+                }
             }
         }
         return books;
@@ -189,8 +276,8 @@ public class BookDAO {
         String sql = "SELECT * FROM books WHERE status = 'Available' AND available_quantity > 0";
         
         try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             PreparedStatement pstmt = StatementCache.prepare(conn, sql);
+             ResultSet rs = pstmt.executeQuery()) {
             
             while (rs.next()) {
                 books.add(mapResultSetToBook(rs));
@@ -200,19 +287,25 @@ public class BookDAO {
     }
     
     public boolean updateBookQuantity(int bookId, int change) throws SQLException {
-        String sql = "UPDATE books SET available_quantity = available_quantity + ?, " +
-                    "status = CASE WHEN available_quantity + ? <= 0 THEN 'Borrowed' ELSE 'Available' END " +
+        // status goes first: MySQL evaluates SET left to right, so after
+        // available_quantity it would see the new count and add twice
+        String sql = "UPDATE books SET status = CASE WHEN available_quantity + ? <= 0 THEN 'Borrowed' ELSE 'Available' END, " +
+                    "available_quantity = available_quantity + ? " +
                     "WHERE book_id = ? AND (available_quantity + ?) >= 0";
         
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = StatementCache.prepare(conn, sql)) {
             
             pstmt.setInt(1, change);
             pstmt.setInt(2, change);
             pstmt.setInt(3, bookId);
             pstmt.setInt(4, change);
             
-            return pstmt.executeUpdate() > 0;
+            if (pstmt.executeUpdate() == 0) {
+                return false;
+            }
+            BookCatalogCache.getInstance().availableChanged(bookId, change);
+            return true;
         }
     }
     
@@ -220,12 +313,16 @@ public class BookDAO {
         String sql = "UPDATE books SET status = ? WHERE book_id = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = StatementCache.prepare(conn, sql)) {
             
             pstmt.setString(1, status);
             pstmt.setInt(2, bookId);
             
-            return pstmt.executeUpdate() > 0;
+            if (pstmt.executeUpdate() == 0) {
+                return false;
+            }
+            BookCatalogCache.getInstance().statusChanged(bookId, status);
+            return true;
         }
     }
     
@@ -233,7 +330,7 @@ public class BookDAO {
         String sql = "SELECT * FROM books WHERE isbn = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = StatementCache.prepare(conn, sql)) {
             
             pstmt.setString(1, isbn);
             ResultSet rs = pstmt.executeQuery();
@@ -245,6 +342,10 @@ public class BookDAO {
         return null;
     }
     
+    void registerQueryPlans(QueryPlanAdvisor advisor) {
+        advisor.register("BookDAO.deleteBook active borrow check", ACTIVE_BORROW_CHECK_SQL, 1);
+    }
+
     private Book mapResultSetToBook(ResultSet rs) throws SQLException {
         Book book = new Book();
         book.setBookId(rs.getInt("book_id"));
@@ -259,6 +360,11 @@ public class BookDAO {
         book.setLocation(rs.getString("location"));
         book.setAddedDate(rs.getTimestamp("added_date"));
         book.setStatus(rs.getString("status"));
+        try {
+            book.setActive(rs.getBoolean("active"));
+        } catch (SQLException e) {
+            book.setActive(true); // fallback if column doesn't exist
+        }
         try {
             book.setPrice(rs.getDouble("price"));
         } catch (SQLException e) {
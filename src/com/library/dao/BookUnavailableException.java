@@ -0,0 +1,21 @@
+package com.library.dao;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown by a checkout when the title has no copy left to lend, typically
+ * because another desk took the last one in the meantime. Nothing has been
+ * written when it is thrown, so the caller can refresh and try another copy.
+ */
+public class BookUnavailableException extends SQLException {
+    private final int bookId;
+
+    public BookUnavailableException(int bookId) {
+        super("Book is not available for borrowing");
+        this.bookId = bookId;
+    }
+
+    public int getBookId() {
+        return bookId;
+    }
+}
@@ -1,242 +1,383 @@
 package com.library.dao;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.library.models.Borrowing;
 import com.library.models.BorrowingRecord;
+import com.library.models.BorrowingStatus;
 import com.library.util.DatabaseConnection;
+import com.library.util.FinePolicy;
 
 public class BorrowingDAO {
+    private static final String ACTIVE_FILTER = "b.status = 'Borrowed'";
+    static final String OVERDUE_FILTER = "b.status = 'Borrowed' AND b.due_date < NOW()";
+    private static final int LIST_PAGE_SAMPLE = 100;
+
+    // Overdue state and whole days past due (as used for fines), read by the mappers
+    private static final String OVERDUE_COLUMNS = "(" + OVERDUE_FILTER + ") AS is_overdue, "
+            + "CASE WHEN " + OVERDUE_FILTER + " THEN DATEDIFF(NOW(), b.due_date) ELSE 0 END AS days_overdue";
+
+    private static final String CLAIM_COPY_SQL = "UPDATE books SET available_quantity = available_quantity - 1 "
+            + "WHERE book_id = ? AND available_quantity > 0";
+
+    private static final String INSERT_BORROWING_SQL = "INSERT INTO borrowings "
+            + "(student_id, book_id, admin_id, borrow_date, due_date, status) VALUES (?, ?, ?, ?, ?, 'Borrowed')";
 
     private BookDAO bookDAO;
+    private CirculationDAO circulationDAO;
 
     public BorrowingDAO() {
         this.bookDAO = new BookDAO();
+        this.circulationDAO = new CirculationDAO();
     }
 
     public boolean addBorrowing(Borrowing borrowing) throws SQLException {
         Connection conn = null;
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
-        boolean success = false;
 
         try {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false); // Start transaction
 
-            // First check if book is available
-            String checkAvailabilityQuery = "SELECT available_quantity FROM books WHERE book_id = ? AND available_quantity > 0";
-            pstmt = conn.prepareStatement(checkAvailabilityQuery);
-            pstmt.setInt(1, borrowing.getBookId());
-            rs = pstmt.executeQuery();
-
-            if (!rs.next() || rs.getInt("available_quantity") <= 0) {
-                throw new SQLException("Book is not available for borrowing");
-            }
-
-            // Close the first prepared statement and result set before creating a new one
-            if (rs != null) {
-                rs.close();
-            }
-            if (pstmt != null) {
-                pstmt.close();
+            // Claim a copy before anything else. The conditional decrement locks
+            // the book row, so of two desks racing for the last copy only one
+            // gets a row back; the other finds nothing left and backs out.
+            if (!claimCopy(conn, borrowing.getBookId())) {
+                throw new BookUnavailableException(borrowing.getBookId());
             }
 
             // Insert borrowing record
-            String insertQuery = "INSERT INTO borrowings (student_id, book_id, admin_id, borrow_date, due_date, status) "
-                    + "VALUES (?, ?, ?, ?, ?, 'Borrowed')";
-            pstmt = conn.prepareStatement(insertQuery);
-            pstmt.setInt(1, borrowing.getStudentId());
-            pstmt.setInt(2, borrowing.getBookId());
-            pstmt.setInt(3, borrowing.getAdminId());
-            pstmt.setTimestamp(4, new Timestamp(borrowing.getBorrowDate().getTime()));
-            pstmt.setTimestamp(5, new Timestamp(borrowing.getDueDate().getTime()));
-
-            int borrowingInserted = pstmt.executeUpdate();
-            pstmt.close();
-
-            if (borrowingInserted > 0) {
-                // Update book available quantity using the same connection
-                updateBookQuantity(conn, borrowing.getBookId(), -1);
-                conn.commit(); // Commit transaction
-                success = true;
-            } else {
-                conn.rollback();
+            try (PreparedStatement pstmt = StatementCache.prepare(conn, INSERT_BORROWING_SQL)) {
+                bindBorrowing(pstmt, borrowing);
+                if (pstmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return false;
+                }
             }
 
-            return success;
+            circulationDAO.recordBorrow(conn, new Timestamp(borrowing.getBorrowDate().getTime()),
+                    borrowing.getBookId(), borrowing.getStudentId());
+            conn.commit(); // Commit transaction
+            BookCatalogCache.getInstance().copiesClaimed(borrowing.getBookId(), 1);
+            DashboardStatsService.getInstance().invalidate();
+            return true;
 
         } catch (SQLException e) {
-            if (conn != null && !conn.isClosed()) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
-                }
+            rollbackQuietly(conn);
+            if (e instanceof BookUnavailableException) {
+                throw e;
             }
             throw new SQLException("Error adding borrowing: " + e.getMessage(), e);
         } finally {
-            // Close resources in reverse order
-            if (rs != null) {
-                try {
-                    rs.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
-            }
-            if (pstmt != null) {
-                try {
-                    pstmt.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
+            closeQuietly(conn);
+        }
+    }
+
+    /**
+     * Takes one copy of the book off the shelf if there is one left. Must run
+     * inside the caller's transaction; the row stays locked until it ends.
+     */
+    private boolean claimCopy(Connection conn, int bookId) throws SQLException {
+        try (PreparedStatement pstmt = StatementCache.prepare(conn, CLAIM_COPY_SQL)) {
+            pstmt.setInt(1, bookId);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
+    private static void bindBorrowing(PreparedStatement pstmt, Borrowing borrowing) throws SQLException {
+        pstmt.setInt(1, borrowing.getStudentId());
+        pstmt.setInt(2, borrowing.getBookId());
+        pstmt.setInt(3, borrowing.getAdminId());
+        pstmt.setTimestamp(4, new Timestamp(borrowing.getBorrowDate().getTime()));
+        pstmt.setTimestamp(5, new Timestamp(borrowing.getDueDate().getTime()));
+    }
+
+    /**
+     * Returns a borrowed book. Returns false, and changes nothing, if the
+     * borrowing was already returned.
+     */
+    public boolean returnBook(Borrowing borrowing) throws SQLException {
+        int borrowingId = borrowing.getBorrowingId();
+        int bookId = borrowing.getBookId();
+        List<Object> params = new ArrayList<>();
+        String sql = returnSql(FinePolicy.getInstance(), new Timestamp(System.currentTimeMillis()), params)
+                + " AND b.book_id = ?";
+        params.add(borrowingId);
+        params.add(bookId);
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            // With the rollup trigger in place the UPDATE is the whole
+            // return. The caller's book id is part of the match, so the
+            // catalog cache below is told about the right book without
+            // reading the row first.
+            boolean counted = circulationDAO.countsReturnsByTrigger(conn);
+            if (!counted) {
+                conn.setAutoCommit(false);
+            }
+            try (PreparedStatement pstmt = StatementCache.prepare(conn, sql)) {
+                bindParams(pstmt, params);
+                if (pstmt.executeUpdate() == 0) {
+                    if (!counted) {
+                        conn.rollback();
+                    }
+                    if (!Integer.valueOf(bookId).equals(findBookIds(conn, Collections.singletonList(borrowingId))
+                            .get(borrowingId))) {
+                        throw new SQLException("Borrowing record not found");
+                    }
+                    return false;
                 }
             }
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
+            if (!counted) {
+                circulationDAO.recordReturn(conn, String.valueOf(borrowingId));
+                conn.commit();
             }
+
+            // The UPDATE put one copy back, so no need to re-read the row
+            BookCatalogCache.getInstance().copiesReturned(bookId, 1);
+            DashboardStatsService.getInstance().invalidate();
+            return true;
+        } catch (SQLException e) {
+            rollbackQuietly(conn);
+            throw e;
+        } finally {
+            closeQuietly(conn);
         }
     }
 
-    public boolean returnBook(String borrowId) throws SQLException {
+    /**
+     * One statement that marks an open borrowing returned at
+     * {@code returnedAt}, works out its fine with FinePolicy.fineSql and
+     * puts the copy back on the shelf. Adds the values to bind to
+     * {@code params}; the borrowing id goes last.
+     *
+     * Only an open borrowing matches, so a second return of the same item
+     * changes nothing.
+     */
+    private static String returnSql(FinePolicy policy, Timestamp returnedAt, List<Object> params) {
+        LocalDate returnDay = returnedAt.toLocalDateTime().toLocalDate();
+        String fine = policy.fineSql("b.due_date", "bk.category", returnDay, params);
+        params.add(returnedAt);
+        return "UPDATE borrowings b JOIN books bk ON bk.book_id = b.book_id "
+                + "SET b.fine_amount = " + fine + ", b.return_date = ?, b.status = 'Returned', "
+                + "bk.available_quantity = bk.available_quantity + 1, bk.status = 'Available' "
+                + "WHERE b.borrowing_id = ? AND " + ACTIVE_FILTER;
+    }
+
+    /**
+     * Checks out several books in one transaction, e.g. a class set. Copies
+     * are claimed in list order, so once a title runs out its remaining
+     * borrowings come back UNAVAILABLE while the others still go through.
+     * Each step is sent as one JDBC batch, which the driver rewrites into a
+     * single round trip.
+     */
+    public BatchResult checkoutBatch(List<Borrowing> borrowings) throws SQLException {
+        BatchResult result = new BatchResult(borrowings.size());
+        if (borrowings.isEmpty()) {
+            return result;
+        }
         Connection conn = null;
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
-        boolean success = false;
 
         try {
             conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false); // Start transaction
-
-            // First get the book_id from the borrowing record
-            String getBookIdQuery = "SELECT book_id FROM borrowings WHERE borrowing_id = ?";
-            pstmt = conn.prepareStatement(getBookIdQuery);
-            pstmt.setString(1, borrowId);
-            rs = pstmt.executeQuery();
+            conn.setAutoCommit(false);
 
-            if (!rs.next()) {
-                throw new SQLException("Borrowing record not found");
+            int[] claims;
+            try (PreparedStatement pstmt = StatementCache.prepare(conn, CLAIM_COPY_SQL)) {
+                for (Borrowing borrowing : borrowings) {
+                    pstmt.setInt(1, borrowing.getBookId());
+                    pstmt.addBatch();
+                }
+                claims = pstmt.executeBatch();
             }
 
-            int bookId = rs.getInt("book_id");
-            if (rs != null) {
-                rs.close();
-            }
-            if (pstmt != null) {
-                pstmt.close();
+            List<Borrowing> claimed = new ArrayList<>();
+            for (int i = 0; i < claims.length; i++) {
+                if (rowUpdated(claims[i])) {
+                    claimed.add(borrowings.get(i));
+                    result.set(i, BatchResult.Outcome.DONE);
+                } else {
+                    result.set(i, BatchResult.Outcome.UNAVAILABLE);
+                }
             }
 
-            // Calculate fine if overdue
-            double fine = 0.0;
-            String getFineQuery = "SELECT DATEDIFF(CURRENT_TIMESTAMP, due_date) as days_overdue "
-                    + "FROM borrowings WHERE borrowing_id = ? AND due_date < CURRENT_TIMESTAMP";
-            pstmt = conn.prepareStatement(getFineQuery);
-            pstmt.setString(1, borrowId);
-            rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                int daysOverdue = rs.getInt("days_overdue");
-                if (daysOverdue > 0) {
-                    fine = daysOverdue * 1.0; // ₱1 per day
+            if (!claimed.isEmpty()) {
+                try (PreparedStatement pstmt = StatementCache.prepare(conn, INSERT_BORROWING_SQL)) {
+                    for (Borrowing borrowing : claimed) {
+                        bindBorrowing(pstmt, borrowing);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
                 }
+                circulationDAO.recordBorrows(conn, claimed);
             }
-            if (rs != null) {
-                rs.close();
+            conn.commit();
+
+            Map<Integer, Integer> copies = new HashMap<>();
+            for (Borrowing borrowing : claimed) {
+                copies.merge(borrowing.getBookId(), 1, Integer::sum);
             }
-            if (pstmt != null) {
-                pstmt.close();
+            for (Map.Entry<Integer, Integer> entry : copies.entrySet()) {
+                BookCatalogCache.getInstance().copiesClaimed(entry.getKey(), entry.getValue());
             }
-
-            // Update borrowing status
-            String updateBorrowingQuery = "UPDATE borrowings SET return_date = CURRENT_TIMESTAMP, "
-                    + "status = 'Returned', fine_amount = ? WHERE borrowing_id = ?";
-            pstmt = conn.prepareStatement(updateBorrowingQuery);
-            pstmt.setDouble(1, fine);
-            pstmt.setString(2, borrowId);
-            int borrowingUpdated = pstmt.executeUpdate();
-            if (pstmt != null) {
-                pstmt.close();
+            if (!copies.isEmpty()) {
+                DashboardStatsService.getInstance().invalidate();
             }
+            return result;
+
+        } catch (SQLException e) {
+            rollbackQuietly(conn);
+            throw new SQLException("Error checking out batch: " + e.getMessage(), e);
+        } finally {
+            closeQuietly(conn);
+        }
+    }
 
-            if (borrowingUpdated > 0) {
-                // Update book available quantity and status using the same connection
-                String updateBookQuery = "UPDATE books SET available_quantity = available_quantity + 1, "
-                        + "status = CASE WHEN available_quantity + 1 > 0 THEN 'Available' ELSE 'Borrowed' END "
-                        + "WHERE book_id = ?";
-                pstmt = conn.prepareStatement(updateBookQuery);
-                pstmt.setInt(1, bookId);
-                int bookUpdated = pstmt.executeUpdate();
+    /**
+     * Returns several borrowings in one transaction, e.g. a stack from the
+     * drop box. Unknown IDs and borrowings that were already returned are
+     * reported per item and do not stop the rest. The returns go out as one
+     * JDBC batch, followed by one read of the books they belong to.
+     */
+    public BatchResult returnBatch(List<Integer> borrowingIds) throws SQLException {
+        BatchResult result = new BatchResult(borrowingIds.size());
+        if (borrowingIds.isEmpty()) {
+            return result;
+        }
+        List<Object> params = new ArrayList<>();
+        String sql = returnSql(FinePolicy.getInstance(), new Timestamp(System.currentTimeMillis()), params);
+        Connection conn = null;
 
-                if (bookUpdated > 0) {
-                    conn.commit();
-                    success = true;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            int[] updates;
+            try (PreparedStatement pstmt = StatementCache.prepare(conn, sql)) {
+                for (int borrowingId : borrowingIds) {
+                    bindParams(pstmt, params);
+                    pstmt.setInt(params.size() + 1, borrowingId);
+                    pstmt.addBatch();
+                }
+                updates = pstmt.executeBatch();
+            }
+
+            // Tells a double return from an unknown ID and gives the books
+            // to put back in the catalog cache. A repeated ID is only
+            // returned by its first occurrence.
+            Map<Integer, Integer> bookIds = findBookIds(conn, borrowingIds);
+            List<Integer> returned = new ArrayList<>();
+            Map<Integer, Integer> copies = new HashMap<>();
+            for (int i = 0; i < updates.length; i++) {
+                Integer bookId = bookIds.get(borrowingIds.get(i));
+                if (rowUpdated(updates[i])) {
+                    returned.add(borrowingIds.get(i));
+                    copies.merge(bookId, 1, Integer::sum);
+                    result.set(i, BatchResult.Outcome.DONE);
                 } else {
-                    conn.rollback();
+                    result.set(i, bookId == null ? BatchResult.Outcome.NOT_FOUND : BatchResult.Outcome.ALREADY_RETURNED);
                 }
-            } else {
-                conn.rollback();
             }
 
-            return success;
+            if (!returned.isEmpty() && !circulationDAO.countsReturnsByTrigger(conn)) {
+                circulationDAO.recordReturns(conn, returned);
+            }
+            conn.commit();
 
-        } catch (SQLException e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    // Log the rollback error but throw the original exception
-                    ex.printStackTrace();
-                }
+            for (Map.Entry<Integer, Integer> entry : copies.entrySet()) {
+                BookCatalogCache.getInstance().copiesReturned(entry.getKey(), entry.getValue());
             }
-            throw e;
+            if (!copies.isEmpty()) {
+                DashboardStatsService.getInstance().invalidate();
+            }
+            return result;
+
+        } catch (SQLException e) {
+            rollbackQuietly(conn);
+            throw new SQLException("Error returning batch: " + e.getMessage(), e);
         } finally {
-            // Close resources in reverse order
-            if (rs != null) {
-                try {
-                    rs.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
+            closeQuietly(conn);
+        }
+    }
+
+    // Borrowing id -> book id for the ids that exist
+    private Map<Integer, Integer> findBookIds(Connection conn, List<Integer> borrowingIds) throws SQLException {
+        Set<Integer> distinct = new LinkedHashSet<>(borrowingIds);
+        StringBuilder sql = new StringBuilder("SELECT borrowing_id, book_id FROM borrowings WHERE borrowing_id IN (");
+        for (int i = 0; i < distinct.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+
+        Map<Integer, Integer> bookIds = new HashMap<>();
+        try (PreparedStatement pstmt = StatementCache.prepare(conn, sql.toString())) {
+            int index = 1;
+            for (int borrowingId : distinct) {
+                pstmt.setInt(index++, borrowingId);
             }
-            if (pstmt != null) {
-                try {
-                    pstmt.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    bookIds.put(rs.getInt("borrowing_id"), rs.getInt("book_id"));
                 }
             }
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
+        }
+        return bookIds;
+    }
+
+    // A batched update count. The driver reports real counts for rewritten
+    // UPDATEs; without them a claim can't be told from a miss, so give up
+    // rather than guess.
+    private static boolean rowUpdated(int count) throws SQLException {
+        if (count == Statement.SUCCESS_NO_INFO) {
+            throw new SQLException("Driver did not report update counts for the batch");
+        }
+        return count > 0;
+    }
+
+    private static boolean borrowingExists(Connection conn, int borrowingId) throws SQLException {
+        try (PreparedStatement pstmt = StatementCache.prepare(conn, "SELECT 1 FROM borrowings WHERE borrowing_id = ?")) {
+            pstmt.setInt(1, borrowingId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
             }
         }
     }
 
-    private void updateBookQuantity(Connection conn, int bookId, int change) throws SQLException {
-        String sql = "UPDATE books SET available_quantity = available_quantity + ? WHERE book_id = ?";
+    private static void rollbackQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                if (!conn.getAutoCommit()) {
+                    conn.rollback();
+                }
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
 
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, change);
-            pstmt.setInt(2, bookId);
-            pstmt.executeUpdate();
+    private static void closeQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
     }
 
@@ -247,18 +388,10 @@ public class BorrowingDAO {
 
         try {
             conn = DatabaseConnection.getConnection();
-            String sql = "SELECT b.*, s.first_name, s.last_name, s.id_number, s.year_level, s.school_year, "
-                    + "bk.title, bk.isbn, c.course_name, co.council_name, "
-                    + "CONCAT(a.first_name, ' ', a.last_name) as admin_name "
-                    + "FROM borrowings b "
-                    + "JOIN students s ON b.student_id = s.student_id "
-                    + "JOIN books bk ON b.book_id = bk.book_id "
-                    + "JOIN courses c ON s.course_id = c.course_id "
-                    + "JOIN councils co ON s.council_id = co.council_id "
-                    + "JOIN admins a ON b.admin_id = a.admin_id "
+            String sql = getBaseBorrowingQuery()
                     + "WHERE b.borrowing_id = ?";
 
-            pstmt = conn.prepareStatement(sql);
+            pstmt = StatementCache.prepare(conn, sql);
             pstmt.setInt(1, borrowingId);
             rs = pstmt.executeQuery();
 
@@ -290,9 +423,7 @@ public class BorrowingDAO {
         return "SELECT b.*, s.first_name, s.last_name, s.id_number, s.year_level, s.school_year, "
                 + "bk.title, bk.isbn, c.course_name, co.council_name, "
                 + "CONCAT(a.first_name, ' ', a.last_name) as admin_name, "
-                + "DATE_FORMAT(b.borrow_date, '%m/%d/%Y %l:%i %p') as formatted_borrow_date, "
-                + "DATE_FORMAT(b.due_date, '%m/%d/%Y %l:%i %p') as formatted_due_date, "
-                + "DATE_FORMAT(b.return_date, '%m/%d/%Y %l:%i %p') as formatted_return_date "
+                + OVERDUE_COLUMNS + " "
                 + "FROM borrowings b "
                 + "JOIN students s ON b.student_id = s.student_id "
                 + "JOIN books bk ON b.book_id = bk.book_id "
@@ -303,7 +434,7 @@ public class BorrowingDAO {
 
     public List<Borrowing> getAllBorrowings() throws SQLException {
         Connection conn = null;
-        Statement stmt = null;
+        PreparedStatement stmt = null;
         ResultSet rs = null;
         List<Borrowing> borrowings = new ArrayList<>();
 
@@ -312,8 +443,8 @@ public class BorrowingDAO {
             String sql = getBaseBorrowingQuery()
                     + "ORDER BY b.borrow_date DESC";
 
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(sql);
+            stmt = StatementCache.prepare(conn, sql);
+            rs = stmt.executeQuery();
 
             while (rs.next()) {
                 borrowings.add(mapResultSetToBorrowing(rs));
@@ -341,18 +472,18 @@ public class BorrowingDAO {
 
     public List<Borrowing> getActiveBorrowings() throws SQLException {
         Connection conn = null;
-        Statement stmt = null;
+        PreparedStatement stmt = null;
         ResultSet rs = null;
         List<Borrowing> borrowings = new ArrayList<>();
 
         try {
             conn = DatabaseConnection.getConnection();
             String sql = getBaseBorrowingQuery()
-                    + "WHERE b.status = 'Borrowed' "
+                    + "WHERE " + ACTIVE_FILTER + " "
                     + "ORDER BY b.due_date ASC";
 
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(sql);
+            stmt = StatementCache.prepare(conn, sql);
+            rs = stmt.executeQuery();
 
             while (rs.next()) {
                 borrowings.add(mapResultSetToBorrowing(rs));
@@ -380,25 +511,21 @@ public class BorrowingDAO {
 
     public List<Borrowing> getOverdueBorrowings() throws SQLException {
         Connection conn = null;
-        Statement stmt = null;
+        PreparedStatement stmt = null;
         ResultSet rs = null;
         List<Borrowing> borrowings = new ArrayList<>();
 
         try {
             conn = DatabaseConnection.getConnection();
             String sql = getBaseBorrowingQuery()
-                    + "WHERE b.status = 'Borrowed' AND b.due_date < NOW() "
+                    + "WHERE " + OVERDUE_FILTER + " "
                     + "ORDER BY b.due_date ASC";
 
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(sql);
+            stmt = StatementCache.prepare(conn, sql);
+            rs = stmt.executeQuery();
 
             while (rs.next()) {
-                Borrowing borrowing = mapResultSetToBorrowing(rs);
-                // Calculate days overdue
-                long daysOverdue = (System.currentTimeMillis() - borrowing.getDueDate().getTime()) / (1000 * 60 * 60 * 24);
-                borrowing.setStatus("Overdue (" + daysOverdue + " days)");
-                borrowings.add(borrowing);
+                borrowings.add(mapResultSetToBorrowing(rs));
             }
             return borrowings;
 
@@ -433,7 +560,7 @@ public class BorrowingDAO {
                     + "WHERE b.student_id = ? "
                     + "ORDER BY b.borrow_date DESC";
 
-            pstmt = conn.prepareStatement(sql);
+            pstmt = StatementCache.prepare(conn, sql);
             pstmt.setInt(1, studentId);
             rs = pstmt.executeQuery();
 
@@ -462,92 +589,195 @@ public class BorrowingDAO {
     }
 
     public List<Borrowing> searchBorrowings(String searchTerm) throws SQLException {
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
-        List<Borrowing> borrowings = new ArrayList<>();
+        return findBorrowings(BorrowingQuery.all().text(searchTerm));
+    }
 
-        try {
-            conn = DatabaseConnection.getConnection();
-            String sql = getBaseBorrowingQuery()
-                    + "WHERE s.id_number LIKE ? OR "
-                    + "CONCAT(s.first_name, ' ', s.last_name) LIKE ? OR "
-                    + "bk.title LIKE ? OR bk.isbn LIKE ? "
-                    + "ORDER BY b.borrow_date DESC";
+    // Keyset-paginated listings, newest first on (borrow_date, borrowing_id).
+    // borrow_date is NOT NULL (alter_borrowings_borrow_date.sql); a NULL
+    // would fall out of the seek predicate and break the cursor.
 
-            pstmt = conn.prepareStatement(sql);
-            String searchPattern = "%" + searchTerm + "%";
-            for (int i = 1; i <= 4; i++) {
-                pstmt.setString(i, searchPattern);
-            }
+    public Page<Borrowing> getAllBorrowingsPage(String cursor, int pageSize) throws SQLException {
+        return findBorrowingsPage(BorrowingQuery.all(), cursor, pageSize);
+    }
 
-            rs = pstmt.executeQuery();
-            while (rs.next()) {
-                borrowings.add(mapResultSetToBorrowing(rs));
-            }
-            return borrowings;
+    public Page<Borrowing> getActiveBorrowingsPage(String cursor, int pageSize) throws SQLException {
+        return findBorrowingsPage(BorrowingQuery.withStatus(BorrowingStatus.BORROWED), cursor, pageSize);
+    }
 
-        } finally {
-            if (rs != null) try {
-                rs.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
-            if (pstmt != null) try {
-                pstmt.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
+    public Page<Borrowing> getOverdueBorrowingsPage(String cursor, int pageSize) throws SQLException {
+        return findBorrowingsPage(BorrowingQuery.withStatus(BorrowingStatus.OVERDUE), cursor, pageSize);
+    }
+
+    public Page<Borrowing> getReturnedBorrowingsPage(String cursor, int pageSize) throws SQLException {
+        return findBorrowingsPage(BorrowingQuery.withStatus(BorrowingStatus.RETURNED), cursor, pageSize);
+    }
+
+    public Page<BorrowingRecord> getBorrowingRecordsPage(String cursor, int pageSize) throws SQLException {
+        return fetchPage(getBorrowingRecordsQuery(), BorrowingQuery.all(), cursor, pageSize,
+                this::mapResultSetToBorrowingRecord);
+    }
+
+    /**
+     * One keyset page of the borrowings matching {@code query}.
+     */
+    public Page<Borrowing> findBorrowingsPage(BorrowingQuery query, String cursor, int pageSize) throws SQLException {
+        return fetchPage(getBaseBorrowingQuery(), query, cursor, pageSize, this::mapResultSetToBorrowing);
+    }
+
+    /**
+     * Every borrowing matching {@code query}, newest first.
+     */
+    public List<Borrowing> findBorrowings(BorrowingQuery query) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        query.appendConditions(conditions, params);
+        String sql = getBaseBorrowingQuery()
+                + (conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ")
+                + "ORDER BY b.borrow_date DESC, b.borrowing_id DESC";
+
+        List<Borrowing> borrowings = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = StatementCache.prepare(conn, sql)) {
+            bindParams(pstmt, params);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    borrowings.add(mapResultSetToBorrowing(rs));
+                }
             }
-            if (conn != null) try {
-                conn.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
+        }
+        return borrowings;
+    }
+
+    private interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private <T> Page<T> fetchPage(String baseQuery, BorrowingQuery query, String cursor, int pageSize,
+                                  RowMapper<T> mapper) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String sql = baseQuery + keysetClause(query, cursor, pageSize, params);
+        List<T> items = new ArrayList<>();
+        Timestamp lastBorrowDate = null;
+        int lastId = 0;
+        boolean more = false;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = StatementCache.prepare(conn, sql)) {
+            bindParams(pstmt, params);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (items.size() == pageSize) {
+                        more = true; // the extra look-ahead row
+                        break;
+                    }
+                    items.add(mapper.map(rs));
+                    lastBorrowDate = rs.getTimestamp("borrow_date");
+                    lastId = rs.getInt("borrowing_id");
+                }
             }
         }
+        return new Page<>(items, more ? encodeCursor(lastBorrowDate, lastId) : null);
+    }
+
+    /**
+     * WHERE/ORDER BY/LIMIT tail for a keyset page. Fetches one row more
+     * than the page size so the caller knows whether another page exists.
+     */
+    private String keysetClause(BorrowingQuery query, String cursor, int pageSize, List<Object> params) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        StringBuilder sql = new StringBuilder();
+        List<String> conditions = new ArrayList<>();
+        query.appendConditions(conditions, params);
+        Object[] position = decodeCursor(cursor);
+        if (position != null) {
+            conditions.add("(b.borrow_date < ? OR (b.borrow_date = ? AND b.borrowing_id < ?))");
+            params.add(position[0]);
+            params.add(position[0]);
+            params.add(position[1]);
+        }
+        if (!conditions.isEmpty()) {
+            sql.append("WHERE ").append(String.join(" AND ", conditions)).append(' ');
+        }
+        sql.append("ORDER BY b.borrow_date DESC, b.borrowing_id DESC LIMIT ?");
+        params.add(pageSize + 1);
+        return sql.toString();
+    }
+
+    /**
+     * Hot queries checked by QueryPlanAdvisor at startup: the overdue list,
+     * a student's history, the first and a later keyset page and the
+     * date filters.
+     */
+    void registerQueryPlans(QueryPlanAdvisor advisor) {
+        advisor.register("BorrowingDAO.getOverdueBorrowings",
+                getBaseBorrowingQuery() + "WHERE " + OVERDUE_FILTER + " ORDER BY b.due_date ASC");
+        advisor.register("BorrowingDAO.getBorrowingsByStudent",
+                getBaseBorrowingQuery() + "WHERE b.student_id = ? ORDER BY b.borrow_date DESC", 1);
+
+        List<Object> params = new ArrayList<>();
+        String sql = getBaseBorrowingQuery() + keysetClause(BorrowingQuery.withStatus(BorrowingStatus.BORROWED),
+                null, LIST_PAGE_SAMPLE, params);
+        advisor.register("BorrowingDAO.getActiveBorrowingsPage", sql, params.toArray());
+
+        params = new ArrayList<>();
+        sql = getBaseBorrowingQuery() + keysetClause(BorrowingQuery.all(),
+                encodeCursor(new Timestamp(System.currentTimeMillis()), Integer.MAX_VALUE), LIST_PAGE_SAMPLE, params);
+        advisor.register("BorrowingDAO.getAllBorrowingsPage (next page)", sql, params.toArray());
+
+        for (BorrowingQuery.DateField field : BorrowingQuery.DateField.values()) {
+            params = new ArrayList<>();
+            sql = getBaseBorrowingQuery() + keysetClause(BorrowingQuery.all().onDay(field, LocalDate.now()),
+                    null, LIST_PAGE_SAMPLE, params);
+            advisor.register("BorrowingDAO.findBorrowingsPage (" + field + " on a day)", sql, params.toArray());
+        }
+    }
+
+    private void bindParams(PreparedStatement pstmt, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            pstmt.setObject(i + 1, params.get(i));
+        }
+    }
+
+    private static String encodeCursor(Timestamp borrowDate, int borrowingId) {
+        String raw = borrowDate.toString() + "|" + borrowingId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
     }
 
-    private Borrowing mapResultSetToBorrowing(ResultSet rs) throws SQLException {
+    private static Object[] decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new Object[] {
+                Timestamp.valueOf(raw.substring(0, separator)),
+                Integer.parseInt(raw.substring(separator + 1))
+            };
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor, e);
+        }
+    }
+
+    // Package-private for BorrowingMappingBenchmark
+    Borrowing mapResultSetToBorrowing(ResultSet rs) throws SQLException {
         Borrowing borrowing = new Borrowing();
         borrowing.setBorrowingId(rs.getInt("borrowing_id"));
         borrowing.setStudentId(rs.getInt("student_id"));
         borrowing.setBookId(rs.getInt("book_id"));
         borrowing.setAdminId(rs.getInt("admin_id"));
 
-        // Use formatted dates from the query
-        String borrowDateStr = rs.getString("formatted_borrow_date");
-        String dueDateStr = rs.getString("formatted_due_date");
-        String returnDateStr = rs.getString("formatted_return_date");
-
-        SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy hh:mm a");
-        try {
-            if (borrowDateStr != null) {
-                borrowing.setBorrowDate(sdf.parse(borrowDateStr));
-            }
-            if (dueDateStr != null) {
-                borrowing.setDueDate(sdf.parse(dueDateStr));
-            }
-            if (returnDateStr != null) {
-                borrowing.setReturnDate(sdf.parse(returnDateStr));
-            }
-        } catch (ParseException e) {
-            e.printStackTrace();
-        }
+        // Full-precision timestamps; formatting is left to the display (DateFormats)
+        borrowing.setBorrowDate(rs.getTimestamp("borrow_date"));
+        borrowing.setDueDate(rs.getTimestamp("due_date"));
+        borrowing.setReturnDate(rs.getTimestamp("return_date"));
 
-        String status = rs.getString("status");
-        switch (status) {
-            case "Borrowed":
-                if (borrowing.getDueDate() != null && borrowing.getDueDate().before(new Date())) {
-                    long daysOverdue = (System.currentTimeMillis() - borrowing.getDueDate().getTime()) / (1000 * 60 * 60 * 24);
-                    borrowing.setStatus("Overdue (" + daysOverdue + " days)");
-                } else {
-                    borrowing.setStatus("Borrowed");
-                }
-                break;
-            case "Returned":
-                borrowing.setStatus("Returned");
-                break;
-            default:
-                borrowing.setStatus(status);
+        borrowing.setStatus(rs.getString("status"));
+        if (rs.getBoolean("is_overdue")) {
+            borrowing.setBorrowingStatus(BorrowingStatus.OVERDUE);
+            borrowing.setDaysOverdue(rs.getInt("days_overdue"));
         }
 
         borrowing.setFineAmount(rs.getDouble("fine_amount"));
@@ -566,6 +796,19 @@ public class BorrowingDAO {
         return borrowing;
     }
 
+    private String getBorrowingRecordsQuery() {
+        return "SELECT b.borrowing_id, b.book_id, bk.title, s.student_id, "
+                + "CONCAT(s.first_name, ' ', s.last_name) as student_name, "
+                + "b.borrow_date, b.due_date, b.return_date, "
+                + "b.status, b.fine_amount, " + OVERDUE_COLUMNS + ", "
+                + "c.course_name, s.year_level, co.council_name "
+                + "FROM borrowings b "
+                + "JOIN books bk ON b.book_id = bk.book_id "
+                + "JOIN students s ON b.student_id = s.student_id "
+                + "JOIN courses c ON s.course_id = c.course_id "
+                + "JOIN councils co ON s.council_id = co.council_id ";
+    }
+
     public List<BorrowingRecord> getBorrowingRecords() throws SQLException {
         Connection conn = null;
         PreparedStatement stmt = null;
@@ -574,70 +817,14 @@ public class BorrowingDAO {
 
         try {
             conn = DatabaseConnection.getConnection();
-            String query = "SELECT b.borrowing_id, b.book_id, bk.title, s.student_id, "
-                    + "CONCAT(s.first_name, ' ', s.last_name) as student_name, "
-                    + "DATE_FORMAT(b.borrow_date, '%m/%d/%Y %l:%i %p') as formatted_borrow_date, "
-                    + "DATE_FORMAT(b.due_date, '%m/%d/%Y %l:%i %p') as formatted_due_date, "
-                    + "DATE_FORMAT(b.return_date, '%m/%d/%Y %l:%i %p') as formatted_return_date, "
-                    + "b.status, b.fine_amount, "
-                    + "c.course_name, s.year_level, co.council_name "
-                    + "FROM borrowings b "
-                    + "JOIN books bk ON b.book_id = bk.book_id "
-                    + "JOIN students s ON b.student_id = s.student_id "
-                    + "JOIN courses c ON s.course_id = c.course_id "
-                    + "JOIN councils co ON s.council_id = co.council_id "
+            String query = getBorrowingRecordsQuery()
                     + "ORDER BY b.borrow_date DESC";
 
-            stmt = conn.prepareStatement(query);
+            stmt = StatementCache.prepare(conn, query);
             rs = stmt.executeQuery();
 
-            SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy hh:mm a");
-
             while (rs.next()) {
-                String borrowDateStr = rs.getString("formatted_borrow_date");
-                String dueDateStr = rs.getString("formatted_due_date");
-                String returnDateStr = rs.getString("formatted_return_date");
-
-                Timestamp borrowDate = null;
-                Timestamp dueDate = null;
-                Timestamp returnDate = null;
-
-                try {
-                    if (borrowDateStr != null) {
-                        borrowDate = new Timestamp(sdf.parse(borrowDateStr).getTime());
-                    }
-                    if (dueDateStr != null) {
-                        dueDate = new Timestamp(sdf.parse(dueDateStr).getTime());
-                    }
-                    if (returnDateStr != null) {
-                        returnDate = new Timestamp(sdf.parse(returnDateStr).getTime());
-                    }
-                } catch (ParseException e) {
-                    e.printStackTrace();
-                }
-
-                String status = rs.getString("status");
-                if ("Borrowed".equals(status) && dueDate != null && dueDate.before(new Timestamp(System.currentTimeMillis()))) {
-                    long daysOverdue = (System.currentTimeMillis() - dueDate.getTime()) / (1000 * 60 * 60 * 24);
-                    status = "Overdue (" + daysOverdue + " days)";
-                }
-
-                BorrowingRecord record = new BorrowingRecord(
-                        rs.getString("borrowing_id"),
-                        rs.getString("book_id"),
-                        rs.getString("title"),
-                        rs.getString("student_id"),
-                        rs.getString("student_name"),
-                        borrowDate,
-                        dueDate,
-                        returnDate,
-                        status
-                );
-
-                record.setCourseName(rs.getString("course_name"));
-                record.setYearLevel(rs.getString("year_level"));
-                record.setCouncilName(rs.getString("council_name"));
-                records.add(record);
+                records.add(mapResultSetToBorrowingRecord(rs));
             }
             return records;
 
@@ -660,20 +847,61 @@ public class BorrowingDAO {
         }
     }
 
+    private BorrowingRecord mapResultSetToBorrowingRecord(ResultSet rs) throws SQLException {
+        Timestamp borrowDate = rs.getTimestamp("borrow_date");
+        Timestamp dueDate = rs.getTimestamp("due_date");
+        Timestamp returnDate = rs.getTimestamp("return_date");
+
+        BorrowingRecord record = new BorrowingRecord(
+                rs.getString("borrowing_id"),
+                rs.getString("book_id"),
+                rs.getString("title"),
+                rs.getString("student_id"),
+                rs.getString("student_name"),
+                borrowDate,
+                dueDate,
+                returnDate,
+                rs.getString("status")
+        );
+        if (rs.getBoolean("is_overdue")) {
+            record.setBorrowingStatus(BorrowingStatus.OVERDUE);
+            record.setDaysOverdue(rs.getInt("days_overdue"));
+        }
+
+        record.setCourseName(rs.getString("course_name"));
+        record.setYearLevel(rs.getString("year_level"));
+        record.setCouncilName(rs.getString("council_name"));
+        return record;
+    }
+
+    /**
+     * Changes the due date and moves the status between Borrowed and
+     * Overdue. A borrowing can't be switched to or from Returned here: that
+     * has to go through returnBook, which also puts the copy back and counts
+     * the return in circulation_daily.
+     */
     public boolean updateBorrowing(int borrowingId, String status, Date dueDate) throws SQLException {
         Connection conn = null;
         PreparedStatement pstmt = null;
 
         try {
             conn = DatabaseConnection.getConnection();
-            String sql = "UPDATE borrowings SET status = ?, due_date = ? WHERE borrowing_id = ?";
+            String sql = "UPDATE borrowings SET status = ?, due_date = ? "
+                    + "WHERE borrowing_id = ? AND (status = 'Returned') = ?";
 
-            pstmt = conn.prepareStatement(sql);
+            boolean returned = BorrowingStatus.RETURNED.getLabel().equals(status);
+            pstmt = StatementCache.prepare(conn, sql);
             pstmt.setString(1, status);
             pstmt.setTimestamp(2, new Timestamp(dueDate.getTime()));
             pstmt.setInt(3, borrowingId);
+            pstmt.setBoolean(4, returned);
 
             int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected == 0 && borrowingExists(conn, borrowingId)) {
+                throw new SQLException(returned
+                        ? "Use Return Book to return a borrowing"
+                        : "A returned borrowing cannot be reopened");
+            }
             return rowsAffected > 0;
 
         } finally {
@@ -0,0 +1,179 @@
+package com.library.dao;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import com.library.models.BorrowingStatus;
+
+/**
+ * Criteria for BorrowingDAO.findBorrowings / findBorrowingsPage. Every
+ * criterion left unset matches all rows; the ones that are set are ANDed
+ * and compiled into the WHERE clause of a single parameterized statement.
+ *
+ * Statuses are ORed with each other. BORROWED matches every open loan,
+ * overdue or not; OVERDUE only the open loans past their due date.
+ */
+public class BorrowingQuery {
+    /**
+     * Date column a date range applies to.
+     */
+    public enum DateField {
+        BORROW_DATE("b.borrow_date"),
+        DUE_DATE("b.due_date"),
+        RETURN_DATE("b.return_date");
+
+        private final String column;
+
+        DateField(String column) {
+            this.column = column;
+        }
+    }
+
+    private final Set<BorrowingStatus> statuses = EnumSet.noneOf(BorrowingStatus.class);
+    private DateField dateField;
+    private Date dateFrom;
+    private Date dateBefore;
+    private Integer studentId;
+    private Integer bookId;
+    private Integer councilId;
+    private Integer courseId;
+    private String text;
+
+    public static BorrowingQuery all() {
+        return new BorrowingQuery();
+    }
+
+    public static BorrowingQuery withStatus(BorrowingStatus... statuses) {
+        return new BorrowingQuery().status(statuses);
+    }
+
+    public BorrowingQuery status(BorrowingStatus... statuses) {
+        Collections.addAll(this.statuses, statuses);
+        return this;
+    }
+
+    /**
+     * {@code field} on or after {@code from} and before {@code before};
+     * either end may be null for an open range. The bounds are compared
+     * against the bare column, so the range is an index seek.
+     */
+    public BorrowingQuery dateRange(DateField field, Date from, Date before) {
+        this.dateField = field;
+        this.dateFrom = from;
+        this.dateBefore = before;
+        return this;
+    }
+
+    /**
+     * {@code field} falls on any day from {@code first} through {@code last}.
+     */
+    public BorrowingQuery onDays(DateField field, LocalDate first, LocalDate last) {
+        return dateRange(field, Timestamp.valueOf(first.atStartOfDay()),
+                Timestamp.valueOf(last.plusDays(1).atStartOfDay()));
+    }
+
+    public BorrowingQuery onDay(DateField field, LocalDate day) {
+        return onDays(field, day, day);
+    }
+
+    public BorrowingQuery borrowedBetween(Date from, Date before) {
+        return dateRange(DateField.BORROW_DATE, from, before);
+    }
+
+    public BorrowingQuery student(int studentId) {
+        this.studentId = studentId;
+        return this;
+    }
+
+    public BorrowingQuery book(int bookId) {
+        this.bookId = bookId;
+        return this;
+    }
+
+    public BorrowingQuery council(int councilId) {
+        this.councilId = councilId;
+        return this;
+    }
+
+    public BorrowingQuery course(int courseId) {
+        this.courseId = courseId;
+        return this;
+    }
+
+    /**
+     * Substring match on the student's ID number or name and the book's
+     * title or ISBN. Blank text is ignored.
+     */
+    public BorrowingQuery text(String text) {
+        this.text = text != null && !text.trim().isEmpty() ? text.trim() : null;
+        return this;
+    }
+
+    /**
+     * Adds one condition per criterion that is set, binding its values to
+     * {@code params} in order. Column aliases are those of the borrowing
+     * queries: b (borrowings), s (students) and bk (books).
+     */
+    void appendConditions(List<String> conditions, List<Object> params) {
+        if (!statuses.isEmpty()) {
+            conditions.add(statusCondition(params));
+        }
+        if (dateFrom != null) {
+            conditions.add(dateField.column + " >= ?");
+            params.add(new Timestamp(dateFrom.getTime()));
+        }
+        if (dateBefore != null) {
+            conditions.add(dateField.column + " < ?");
+            params.add(new Timestamp(dateBefore.getTime()));
+        }
+        if (studentId != null) {
+            conditions.add("b.student_id = ?");
+            params.add(studentId);
+        }
+        if (bookId != null) {
+            conditions.add("b.book_id = ?");
+            params.add(bookId);
+        }
+        if (councilId != null) {
+            conditions.add("s.council_id = ?");
+            params.add(councilId);
+        }
+        if (courseId != null) {
+            conditions.add("s.course_id = ?");
+            params.add(courseId);
+        }
+        if (text != null) {
+            conditions.add("(s.id_number LIKE ? OR CONCAT(s.first_name, ' ', s.last_name) LIKE ? "
+                    + "OR bk.title LIKE ? OR bk.isbn LIKE ?)");
+            String pattern = "%" + text + "%";
+            for (int i = 0; i < 4; i++) {
+                params.add(pattern);
+            }
+        }
+    }
+
+    private String statusCondition(List<Object> params) {
+        List<String> alternatives = new ArrayList<>();
+        List<String> stored = new ArrayList<>();
+        for (BorrowingStatus status : statuses) {
+            if (status == BorrowingStatus.OVERDUE) {
+                if (!statuses.contains(BorrowingStatus.BORROWED)) {
+                    alternatives.add("(" + BorrowingDAO.OVERDUE_FILTER + ")");
+                }
+            } else {
+                stored.add("?");
+                params.add(status.getLabel());
+            }
+        }
+        if (!stored.isEmpty()) {
+            alternatives.add(0, "b.status IN (" + String.join(", ", stored) + ")");
+        }
+        return alternatives.size() == 1 ? alternatives.get(0) : "(" + String.join(" OR ", alternatives) + ")";
+    }
+}
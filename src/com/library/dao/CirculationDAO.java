@@ -0,0 +1,308 @@
+package com.library.dao;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.library.models.Borrowing;
+import com.library.util.DatabaseConnection;
+
+/**
+ * Maintains circulation_daily, a per day / book / council rollup of borrow
+ * and return counts that the dashboard charts read instead of grouping the
+ * raw borrowings table.
+ *
+ * BorrowingDAO bumps the borrow counter inside its checkout transaction.
+ * Returns are counted by the borrowings_return_rollup trigger, which moves
+ * a row's count whenever its return_date changes, so the return UPDATE
+ * needs no second statement; where the trigger could not be created,
+ * BorrowingDAO counts the return itself in the same transaction. rebuild()
+ * recomputes the whole table from borrowings and is used as the backfill
+ * job (first start, after a database restore).
+ */
+public class CirculationDAO {
+    private static final Logger logger = LogManager.getLogger(CirculationDAO.class);
+
+    private static final int ER_NO_SUCH_TABLE = 1146;
+    private static final String RETURN_TRIGGER = "borrowings_return_rollup";
+
+    // Students without a council are counted under council 0
+    private static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS circulation_daily ("
+            + "day DATE NOT NULL, "
+            + "book_id INT NOT NULL, "
+            + "council_id INT NOT NULL DEFAULT 0, "
+            + "borrow_count INT NOT NULL DEFAULT 0, "
+            + "return_count INT NOT NULL DEFAULT 0, "
+            + "PRIMARY KEY (day, book_id, council_id), "
+            + "KEY idx_circulation_book_day (book_id, day))";
+
+    private static final String RECORD_BORROW_SQL = "INSERT INTO circulation_daily "
+            + "(day, book_id, council_id, borrow_count, return_count) "
+            + "VALUES (DATE(?), ?, COALESCE((SELECT council_id FROM students WHERE student_id = ?), 0), 1, 0) "
+            + "ON DUPLICATE KEY UPDATE borrow_count = borrow_count + 1";
+
+    // A return counts on the day of its return_date, like in the backfill;
+    // a row whose date is changed or cleared is moved or taken off again
+    private static final String CREATE_RETURN_TRIGGER_SQL = "CREATE TRIGGER " + RETURN_TRIGGER + " "
+            + "AFTER UPDATE ON borrowings FOR EACH ROW BEGIN "
+            + "IF NOT (OLD.return_date <=> NEW.return_date AND OLD.book_id <=> NEW.book_id) THEN "
+            + "IF OLD.return_date IS NOT NULL AND OLD.book_id IS NOT NULL THEN "
+            + "UPDATE circulation_daily SET return_count = return_count - 1 "
+            + "WHERE day = DATE(OLD.return_date) AND book_id = OLD.book_id AND return_count > 0 "
+            + "AND council_id = COALESCE((SELECT council_id FROM students WHERE student_id = OLD.student_id), 0); "
+            + "END IF; "
+            + "IF NEW.return_date IS NOT NULL AND NEW.book_id IS NOT NULL THEN "
+            + "INSERT INTO circulation_daily (day, book_id, council_id, borrow_count, return_count) "
+            + "VALUES (DATE(NEW.return_date), NEW.book_id, "
+            + "COALESCE((SELECT council_id FROM students WHERE student_id = NEW.student_id), 0), 0, 1) "
+            + "ON DUPLICATE KEY UPDATE return_count = return_count + 1; "
+            + "END IF; "
+            + "END IF; "
+            + "END";
+
+    private static volatile Boolean returnTrigger;
+
+    private static final String RECORD_RETURN_SQL = "INSERT INTO circulation_daily "
+            + "(day, book_id, council_id, borrow_count, return_count) "
+            + "SELECT DATE(b.return_date), b.book_id, COALESCE(s.council_id, 0), 0, 1 "
+            + "FROM borrowings b LEFT JOIN students s ON b.student_id = s.student_id "
+            + "WHERE b.borrowing_id = ? AND b.book_id IS NOT NULL AND b.return_date IS NOT NULL "
+            + "ON DUPLICATE KEY UPDATE return_count = return_count + 1";
+
+    private static final String BACKFILL_BORROWS_SQL = "INSERT INTO circulation_daily "
+            + "(day, book_id, council_id, borrow_count, return_count) "
+            + "SELECT DATE(b.borrow_date), b.book_id, COALESCE(s.council_id, 0), COUNT(*), 0 "
+            + "FROM borrowings b LEFT JOIN students s ON b.student_id = s.student_id "
+            + "WHERE b.book_id IS NOT NULL AND b.borrow_date IS NOT NULL "
+            + "GROUP BY DATE(b.borrow_date), b.book_id, COALESCE(s.council_id, 0)";
+
+    private static final String BACKFILL_RETURNS_SQL = "INSERT INTO circulation_daily "
+            + "(day, book_id, council_id, borrow_count, return_count) "
+            + "SELECT DATE(b.return_date), b.book_id, COALESCE(s.council_id, 0), 0, COUNT(*) "
+            + "FROM borrowings b LEFT JOIN students s ON b.student_id = s.student_id "
+            + "WHERE b.book_id IS NOT NULL AND b.return_date IS NOT NULL "
+            + "GROUP BY DATE(b.return_date), b.book_id, COALESCE(s.council_id, 0) "
+            + "ON DUPLICATE KEY UPDATE return_count = VALUES(return_count)";
+
+    /**
+     * Counts a checkout on the borrow date, inside the caller's transaction.
+     */
+    void recordBorrow(Connection conn, Timestamp borrowDate, int bookId, int studentId) throws SQLException {
+        try (PreparedStatement pstmt = StatementCache.prepare(conn, RECORD_BORROW_SQL)) {
+            pstmt.setTimestamp(1, borrowDate);
+            pstmt.setInt(2, bookId);
+            pstmt.setInt(3, studentId);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            skipIfMissing(e);
+        }
+    }
+
+    /**
+     * Whether the trigger counts returns, checked once per run. If not, the
+     * caller has to use recordReturn(s).
+     */
+    boolean countsReturnsByTrigger(Connection conn) throws SQLException {
+        Boolean installed = returnTrigger;
+        if (installed == null) {
+            installed = returnTriggerExists(conn);
+            returnTrigger = installed;
+        }
+        return installed;
+    }
+
+    private static boolean returnTriggerExists(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = StatementCache.prepare(conn, "SELECT 1 FROM information_schema.TRIGGERS "
+                + "WHERE TRIGGER_SCHEMA = DATABASE() AND TRIGGER_NAME = ?")) {
+            pstmt.setString(1, RETURN_TRIGGER);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    // Needs the TRIGGER privilege, and with binary logging on also SUPER or
+    // log_bin_trust_function_creators; without them returns keep being
+    // counted by a statement of their own
+    private static void ensureReturnTrigger(Connection conn) {
+        try {
+            if (!returnTriggerExists(conn)) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(CREATE_RETURN_TRIGGER_SQL);
+                }
+            }
+            returnTrigger = true;
+        } catch (SQLException e) {
+            logger.warn("Could not create the {} trigger, returns are counted separately; "
+                    + "run create_circulation_daily_table.sql as an administrator: {}", RETURN_TRIGGER, e.getMessage());
+        }
+    }
+
+    /**
+     * Counts a return on the day of the return_date the caller just wrote,
+     * the same day the trigger and the backfill use.
+     */
+    void recordReturn(Connection conn, String borrowingId) throws SQLException {
+        try (PreparedStatement pstmt = StatementCache.prepare(conn, RECORD_RETURN_SQL)) {
+            pstmt.setString(1, borrowingId);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            skipIfMissing(e);
+        }
+    }
+
+    /**
+     * recordBorrow for several checkouts at once, sent as one batch.
+     */
+    void recordBorrows(Connection conn, List<Borrowing> borrowings) throws SQLException {
+        try (PreparedStatement pstmt = StatementCache.prepare(conn, RECORD_BORROW_SQL)) {
+            for (Borrowing borrowing : borrowings) {
+                pstmt.setTimestamp(1, new Timestamp(borrowing.getBorrowDate().getTime()));
+                pstmt.setInt(2, borrowing.getBookId());
+                pstmt.setInt(3, borrowing.getStudentId());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        } catch (SQLException e) {
+            skipIfMissing(e);
+        }
+    }
+
+    /**
+     * recordReturn for several returns at once, sent as one batch.
+     */
+    void recordReturns(Connection conn, List<Integer> borrowingIds) throws SQLException {
+        try (PreparedStatement pstmt = StatementCache.prepare(conn, RECORD_RETURN_SQL)) {
+            for (int borrowingId : borrowingIds) {
+                pstmt.setInt(1, borrowingId);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        } catch (SQLException e) {
+            skipIfMissing(e);
+        }
+    }
+
+    // Until the startup job has created the table the counters are skipped;
+    // the backfill picks those rows up. A failed statement does not abort
+    // the surrounding MySQL transaction.
+    private void skipIfMissing(SQLException e) throws SQLException {
+        if (e.getErrorCode() != ER_NO_SUCH_TABLE) {
+            throw e;
+        }
+    }
+
+    /**
+     * Creates the rollup and its return trigger if needed and backfills the
+     * rollup when it is still empty.
+     * Returns true if a backfill ran.
+     */
+    public boolean ensureRollup() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(CREATE_TABLE_SQL);
+            }
+            ensureReturnTrigger(conn);
+            try (PreparedStatement pstmt = StatementCache.prepare(conn,
+                    "SELECT EXISTS(SELECT 1 FROM circulation_daily) AS has_rows, "
+                    + "EXISTS(SELECT 1 FROM borrowings) AS has_borrowings");
+                 ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next() || rs.getBoolean("has_rows") || !rs.getBoolean("has_borrowings")) {
+                    return false;
+                }
+            }
+        }
+        rebuild();
+        return true;
+    }
+
+    /**
+     * Recomputes circulation_daily from the borrowings table in one transaction.
+     */
+    public void rebuild() throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(CREATE_TABLE_SQL);
+            }
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM circulation_daily");
+                stmt.executeUpdate(BACKFILL_BORROWS_SQL);
+                stmt.executeUpdate(BACKFILL_RETURNS_SQL);
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Borrows per day since {@code from}, oldest first. Days without
+     * borrowings are left out.
+     */
+    public Map<LocalDate, Integer> getDailyBorrowCounts(Connection conn, LocalDate from) throws SQLException {
+        String sql = "SELECT day, SUM(borrow_count) AS count FROM circulation_daily "
+                + "WHERE day >= ? GROUP BY day HAVING count > 0 ORDER BY day";
+        Map<LocalDate, Integer> data = new LinkedHashMap<>();
+        try (PreparedStatement pstmt = StatementCache.prepare(conn, sql)) {
+            pstmt.setDate(1, Date.valueOf(from));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    data.put(rs.getDate("day").toLocalDate(), rs.getInt("count"));
+                }
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Most borrowed titles since {@code from}, highest count first.
+     */
+    public Map<String, Integer> getPopularBooks(Connection conn, LocalDate from, int limit) throws SQLException {
+        String sql = "SELECT b.title, SUM(c.borrow_count) AS borrow_count "
+                + "FROM circulation_daily c JOIN books b ON c.book_id = b.book_id "
+                + "WHERE c.day >= ? "
+                + "GROUP BY c.book_id, b.title HAVING borrow_count > 0 "
+                + "ORDER BY borrow_count DESC LIMIT ?";
+        Map<String, Integer> data = new LinkedHashMap<>();
+        try (PreparedStatement pstmt = StatementCache.prepare(conn, sql)) {
+            pstmt.setDate(1, Date.valueOf(from));
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    data.put(rs.getString("title"), rs.getInt("borrow_count"));
+                }
+            }
+        }
+        return data;
+    }
+}
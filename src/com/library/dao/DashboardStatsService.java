@@ -0,0 +1,178 @@
+package com.library.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.library.util.ConfigurationManager;
+import com.library.util.DatabaseConnection;
+
+/**
+ * Numbers shown on the MainFrame dashboard, read as one snapshot.
+ *
+ * A snapshot takes three statements on a single connection: the four
+ * counters in one row, then popular books and 90 days of daily borrow
+ * counts from the circulation_daily rollup (the shorter trend periods are
+ * cut from that). Recent activity comes from AuditLogger's in-memory feed
+ * instead. The snapshot is kept for app.dashboard.cacheTtl seconds. Callers can show a
+ * stale snapshot straight away and refresh it off the EDT.
+ */
+public class DashboardStatsService {
+    public static final int TREND_DAYS = 90;
+
+    private static final String COUNTS_SQL = "SELECT "
+            + "(SELECT COALESCE(SUM(quantity), 0) FROM books) AS total_books, "
+            + "(SELECT COUNT(*) FROM students WHERE status = 'Active') AS active_students, "
+            + "(SELECT COUNT(*) FROM borrowings WHERE status = 'Borrowed') AS borrowed_books, "
+            + "(SELECT COUNT(*) FROM borrowings WHERE status = 'Borrowed' AND due_date < CURRENT_DATE) AS overdue_books";
+
+    private static final DashboardStatsService INSTANCE = new DashboardStatsService();
+
+    private final CirculationDAO circulationDAO = new CirculationDAO();
+    private final long ttlMillis = parseTtl(ConfigurationManager.getProperty("app.dashboard.cacheTtl", "60")) * 1000L;
+    private volatile Snapshot snapshot;
+
+    private DashboardStatsService() {
+    }
+
+    public static DashboardStatsService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * The last snapshot, possibly stale, or null if none has been loaded.
+     * Never touches the database.
+     */
+    public Snapshot getCachedSnapshot() {
+        return snapshot;
+    }
+
+    public boolean isStale(Snapshot current) {
+        return System.currentTimeMillis() - current.getLoadedAt() >= ttlMillis;
+    }
+
+    /**
+     * The cached snapshot if it is still within the TTL, otherwise a fresh one.
+     */
+    public Snapshot getSnapshot() throws SQLException {
+        Snapshot current = snapshot;
+        return current != null && !isStale(current) ? current : refresh();
+    }
+
+    /**
+     * Reads a new snapshot now, on the calling thread.
+     */
+    public Snapshot refresh() throws SQLException {
+        Snapshot fresh = load();
+        snapshot = fresh;
+        return fresh;
+    }
+
+    /**
+     * Marks the snapshot stale so the next read reloads it.
+     */
+    public void invalidate() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            snapshot = current.expired();
+        }
+    }
+
+    private Snapshot load() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            int totalBooks = 0;
+            int activeStudents = 0;
+            int borrowedBooks = 0;
+            int overdueBooks = 0;
+            try (PreparedStatement pstmt = StatementCache.prepare(conn, COUNTS_SQL);
+                 ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    totalBooks = rs.getInt("total_books");
+                    activeStudents = rs.getInt("active_students");
+                    borrowedBooks = rs.getInt("borrowed_books");
+                    overdueBooks = rs.getInt("overdue_books");
+                }
+            }
+
+            return new Snapshot(totalBooks, activeStudents, borrowedBooks, overdueBooks,
+                    loadPopularBooks(conn),
+                    circulationDAO.getDailyBorrowCounts(conn, LocalDate.now().minusDays(TREND_DAYS)),
+                    System.currentTimeMillis());
+        }
+    }
+
+    private Map<String, Integer> loadPopularBooks(Connection conn) throws SQLException {
+        Map<String, Integer> data = new LinkedHashMap<>();
+        circulationDAO.getPopularBooks(conn, LocalDate.now().minusDays(30), 5).forEach((title, count) -> {
+            if (title.length() > 20) {
+                title = title.substring(0, 17) + "...";
+            }
+            data.put(title, count);
+        });
+        return data;
+    }
+
+    static void registerQueryPlans(QueryPlanAdvisor advisor) {
+        advisor.register("DashboardStatsService counters", COUNTS_SQL);
+    }
+
+    private static long parseTtl(String value) {
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return 60;
+        }
+    }
+
+    public static class Snapshot {
+        private final int totalBooks;
+        private final int activeStudents;
+        private final int borrowedBooks;
+        private final int overdueBooks;
+        private final Map<String, Integer> popularBooks;
+        private final Map<LocalDate, Integer> dailyBorrowings;
+        private final long loadedAt;
+
+        Snapshot(int totalBooks, int activeStudents, int borrowedBooks, int overdueBooks,
+                 Map<String, Integer> popularBooks,
+                 Map<LocalDate, Integer> dailyBorrowings, long loadedAt) {
+            this.totalBooks = totalBooks;
+            this.activeStudents = activeStudents;
+            this.borrowedBooks = borrowedBooks;
+            this.overdueBooks = overdueBooks;
+            this.popularBooks = Collections.unmodifiableMap(popularBooks);
+            this.dailyBorrowings = Collections.unmodifiableMap(dailyBorrowings);
+            this.loadedAt = loadedAt;
+        }
+
+        public int getTotalBooks() { return totalBooks; }
+        public int getActiveStudents() { return activeStudents; }
+        public int getBorrowedBooks() { return borrowedBooks; }
+        public int getOverdueBooks() { return overdueBooks; }
+        public Map<String, Integer> getPopularBooks() { return popularBooks; }
+        public long getLoadedAt() { return loadedAt; }
+
+        /**
+         * Borrow counts for each of the last {@code days} days up to today,
+         * oldest first, with zero for days without borrowings.
+         */
+        public Map<LocalDate, Integer> getDailyBorrowings(int days) {
+            Map<LocalDate, Integer> data = new LinkedHashMap<>();
+            LocalDate endDate = LocalDate.now();
+            for (LocalDate date = endDate.minusDays(Math.min(days, TREND_DAYS)); !date.isAfter(endDate); date = date.plusDays(1)) {
+                data.put(date, dailyBorrowings.getOrDefault(date, 0));
+            }
+            return data;
+        }
+
+        Snapshot expired() {
+            return new Snapshot(totalBooks, activeStudents, borrowedBooks, overdueBooks,
+                    popularBooks, dailyBorrowings, 0L);
+        }
+    }
+}
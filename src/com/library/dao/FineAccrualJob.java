@@ -0,0 +1,143 @@
+package com.library.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.library.util.ConfigurationManager;
+import com.library.util.DatabaseConnection;
+import com.library.util.FinePolicy;
+
+/**
+ * Brings borrowings.fine_amount of every open overdue loan up to date, so
+ * lists and reports show the fine accrued so far without working it out
+ * per row.
+ *
+ * One pass streams the open overdue loans from the server row by row
+ * (BaseDAO.forEach) and writes the changed fines through a second
+ * connection in batches; rows
+ * whose fine did not change are not rewritten. Returns still set the final
+ * fine themselves.
+ */
+public class FineAccrualJob {
+    private static final Logger logger = LogManager.getLogger(FineAccrualJob.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String OPEN_OVERDUE_SQL = "SELECT b.borrowing_id, b.due_date, b.fine_amount, bk.category "
+            + "FROM borrowings b LEFT JOIN books bk ON b.book_id = bk.book_id "
+            + "WHERE b.status = 'Borrowed' AND b.due_date < ?";
+
+    private static final String UPDATE_FINE_SQL = "UPDATE borrowings SET fine_amount = ? "
+            + "WHERE borrowing_id = ? AND status = 'Borrowed'";
+
+    /**
+     * Recomputes the fines as of now with the current policy. Returns the
+     * number of loans whose fine changed.
+     */
+    public int run() throws SQLException {
+        FinePolicy policy = FinePolicy.getInstance();
+        Timestamp asOf = new Timestamp(System.currentTimeMillis());
+        int changed;
+
+        try (Connection readConn = DatabaseConnection.getConnection();
+             Connection writeConn = DatabaseConnection.getConnection()) {
+            writeConn.setAutoCommit(false);
+            try (PreparedStatement update = StatementCache.prepare(writeConn, UPDATE_FINE_SQL)) {
+                int[] counts = new int[2]; // changed, pending
+                BaseDAO.forEach(readConn, rs -> new OpenLoan(rs.getInt("borrowing_id"),
+                        policy.fineFor(rs.getString("category"), rs.getTimestamp("due_date"), asOf),
+                        rs.getDouble("fine_amount")), loan -> {
+                    if (Math.abs(loan.fine - loan.stored) < 0.005) {
+                        return;
+                    }
+                    update.setDouble(1, loan.fine);
+                    update.setInt(2, loan.borrowingId);
+                    update.addBatch();
+                    counts[0]++;
+                    if (++counts[1] == BATCH_SIZE) {
+                        update.executeBatch();
+                        writeConn.commit();
+                        counts[1] = 0;
+                    }
+                }, OPEN_OVERDUE_SQL, asOf);
+                if (counts[1] > 0) {
+                    update.executeBatch();
+                    writeConn.commit();
+                }
+                changed = counts[0];
+            } catch (SQLException e) {
+                writeConn.rollback();
+                throw e;
+            } finally {
+                writeConn.setAutoCommit(true);
+            }
+        }
+
+        if (changed > 0) {
+            DashboardStatsService.getInstance().invalidate();
+        }
+        return changed;
+    }
+
+    private static class OpenLoan {
+        final int borrowingId;
+        final double fine;
+        final double stored;
+
+        OpenLoan(int borrowingId, double fine, double stored) {
+            this.borrowingId = borrowingId;
+            this.fine = fine;
+            this.stored = stored;
+        }
+    }
+
+    /**
+     * Runs the job every night at fines.accrual.time (HH:mm, default 01:00)
+     * on a daemon thread. The policy is re-read before each run.
+     */
+    public static void scheduleNightly() {
+        LocalTime at = parseTime(ConfigurationManager.getProperty("fines.accrual.time", "01:00"));
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(at);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fine-accrual");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                FinePolicy.reload();
+                long start = System.currentTimeMillis();
+                int changed = new FineAccrualJob().run();
+                logger.info("Fine accrual updated {} loans in {} ms", changed, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                logger.error("Fine accrual failed", e);
+            }
+        }, Duration.between(now, next).toMillis(), TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    private static LocalTime parseTime(String value) {
+        try {
+            return LocalTime.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            logger.error("Invalid fines.accrual.time {}, using 01:00", value);
+            return LocalTime.of(1, 0);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.library.dao;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Lets the UI abort a DAO query that is still running on the server.
+ *
+ * A DAO method that accepts a canceller attaches its statement just before
+ * executing it and detaches it before closing it. cancel() calls
+ * Statement.cancel on whatever is attached, which makes the driver issue
+ * KILL QUERY for it, and makes any later attach fail straight away.
+ */
+public class QueryCanceller {
+    private Statement statement;
+    private boolean cancelled;
+
+    public synchronized void attach(Statement statement) throws SQLException {
+        if (cancelled) {
+            throw new SQLException("Query cancelled");
+        }
+        this.statement = statement;
+    }
+
+    public synchronized void detach(Statement statement) {
+        if (this.statement == statement) {
+            this.statement = null;
+        }
+    }
+
+    public synchronized void cancel() {
+        cancelled = true;
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                // Already finished or closed; nothing left to stop
+            }
+            statement = null;
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,132 @@
+package com.library.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.library.util.AuditLogger;
+import com.library.util.ConfigurationManager;
+import com.library.util.DatabaseConnection;
+
+/**
+ * Runs EXPLAIN on the hot DAO queries and logs the ones whose plan reads a
+ * whole table, usually a sign that an index from sql/ has not been applied.
+ *
+ * DAOs register their queries with sample parameters in
+ * registerQueryPlans(); check() is run once at startup off the EDT. A full
+ * scan of a table estimated below db.indexAdvisor.minRows rows is only
+ * logged at debug level, as MySQL prefers scanning small tables anyway.
+ */
+public class QueryPlanAdvisor {
+    private static final Logger logger = LogManager.getLogger(QueryPlanAdvisor.class);
+
+    private final Map<String, RegisteredQuery> queries = new LinkedHashMap<>();
+    private final long minRows = parseMinRows(ConfigurationManager.getProperty("db.indexAdvisor.minRows", "1000"));
+
+    /**
+     * An advisor holding the queries registered by the DAOs.
+     */
+    public static QueryPlanAdvisor forDaos() {
+        QueryPlanAdvisor advisor = new QueryPlanAdvisor();
+        new BorrowingDAO().registerQueryPlans(advisor);
+        new BookDAO().registerQueryPlans(advisor);
+        new StudentDAO().registerQueryPlans(advisor);
+        DashboardStatsService.registerQueryPlans(advisor);
+        AuditLogger.registerQueryPlans(advisor);
+        return advisor;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(ConfigurationManager.getProperty("db.indexAdvisor.enabled", "true"));
+    }
+
+    /**
+     * Adds a query under a name used in the log. Parameters are bound in
+     * order with setObject.
+     */
+    public void register(String name, String sql, Object... sampleParams) {
+        queries.put(name, new RegisteredQuery(sql, sampleParams));
+    }
+
+    /**
+     * Explains every registered query and returns the names of those that
+     * fall back to a full scan of a table above the row threshold.
+     */
+    public List<String> check() {
+        List<String> flagged = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (Map.Entry<String, RegisteredQuery> entry : queries.entrySet()) {
+                try {
+                    if (explain(conn, entry.getKey(), entry.getValue())) {
+                        flagged.add(entry.getKey());
+                    }
+                } catch (SQLException e) {
+                    logger.warn("Could not explain query {}: {}", entry.getKey(), e.getMessage());
+                }
+            }
+        } catch (SQLException e) {
+            logger.warn("Query plan check skipped: {}", e.getMessage());
+            return Collections.emptyList();
+        }
+        if (flagged.isEmpty()) {
+            logger.info("Query plan check: all {} registered queries use an index", queries.size());
+        } else {
+            logger.warn("Query plan check: {} of {} registered queries use full table scans: {}",
+                    flagged.size(), queries.size(), flagged);
+        }
+        return flagged;
+    }
+
+    private boolean explain(Connection conn, String name, RegisteredQuery query) throws SQLException {
+        boolean fullScan = false;
+        try (PreparedStatement pstmt = StatementCache.prepare(conn, "EXPLAIN " + query.sql)) {
+            for (int i = 0; i < query.params.length; i++) {
+                pstmt.setObject(i + 1, query.params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (!"ALL".equalsIgnoreCase(rs.getString("type"))) {
+                        continue;
+                    }
+                    String table = rs.getString("table");
+                    long rows = rs.getLong("rows");
+                    if (rows >= minRows) {
+                        fullScan = true;
+                        logger.warn("{}: full scan of {} (~{} rows), possible keys: {}, extra: {}",
+                                name, table, rows, rs.getString("possible_keys"), rs.getString("Extra"));
+                    } else {
+                        logger.debug("{}: full scan of small table {} (~{} rows)", name, table, rows);
+                    }
+                }
+            }
+        }
+        return fullScan;
+    }
+
+    private static long parseMinRows(String value) {
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return 1000;
+        }
+    }
+
+    private static class RegisteredQuery {
+        final String sql;
+        final Object[] params;
+
+        RegisteredQuery(String sql, Object[] params) {
+            this.sql = sql;
+            this.params = params.clone();
+        }
+    }
+}
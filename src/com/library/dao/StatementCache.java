@@ -0,0 +1,132 @@
+package com.library.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.library.util.ConfigurationManager;
+
+/**
+ * Entry point for preparing DAO statements; every DAO prepare goes through
+ * here so the counts cover the whole data layer.
+ *
+ * The actual statement reuse happens inside the MySQL driver, which is configured
+ * with cachePrepStmts/useServerPrepStmts by DatabaseConnection. The driver keeps an
+ * LRU cache per physical connection keyed by SQL text but has no public API for
+ * its hits and misses, so the counts here are an estimate: this class keeps its
+ * own LRU of the same size and reports what that LRU saw, which can drift from
+ * the driver's, e.g. when the pool replaces a connection. Nothing is counted when
+ * db.cachePrepStmts is off, nor for SQL the driver leaves out of its cache for
+ * being prepStmtCacheSqlLimit characters or longer.
+ */
+public final class StatementCache {
+    private static final Logger logger = LogManager.getLogger(StatementCache.class);
+
+    private static final boolean ENABLED =
+            Boolean.parseBoolean(ConfigurationManager.getProperty("db.cachePrepStmts", "true").trim());
+    private static final int CACHE_SIZE = parseSize(ConfigurationManager.getProperty("db.prepStmtCacheSize", "250"), 250);
+    private static final int SQL_LIMIT = parseSize(ConfigurationManager.getProperty("db.prepStmtCacheSqlLimit", "2048"), 2048);
+
+    // Physical connection -> SQL texts the driver currently holds prepared for it
+    private static final Map<Connection, Map<String, Boolean>> prepared =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private StatementCache() {
+    }
+
+    public static PreparedStatement prepare(Connection conn, String sql) throws SQLException {
+        record(conn, sql);
+        return conn.prepareStatement(sql);
+    }
+
+    public static PreparedStatement prepare(Connection conn, String sql, int autoGeneratedKeys) throws SQLException {
+        record(conn, sql);
+        return conn.prepareStatement(sql, autoGeneratedKeys);
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    public static double getHitRatio() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public static void resetStats() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    public static String getStats() {
+        return String.format("estimated hits=%d, misses=%d, hitRatio=%.1f%%", getHits(), getMisses(), getHitRatio() * 100);
+    }
+
+    /**
+     * Logs the counts so far, if caching is on. Called on application shutdown.
+     */
+    public static void logStats() {
+        if (ENABLED) {
+            logger.info("Statement cache: {}", getStats());
+        }
+    }
+
+    private static void record(Connection conn, String sql) {
+        if (!ENABLED || sql.length() >= SQL_LIMIT) {
+            return;
+        }
+        Map<String, Boolean> cache = prepared.computeIfAbsent(physical(conn), c -> newLru());
+        synchronized (cache) {
+            if (cache.put(sql, Boolean.TRUE) != null) {
+                hits.incrementAndGet();
+            } else {
+                misses.incrementAndGet();
+            }
+        }
+    }
+
+    private static Connection physical(Connection conn) {
+        // Pooled connections are proxies; the driver cache lives on the delegate
+        try {
+            if (conn.isWrapperFor(Connection.class)) {
+                return conn.unwrap(Connection.class);
+            }
+        } catch (SQLException e) {
+            // fall through and key on the proxy
+        }
+        return conn;
+    }
+
+    private static Map<String, Boolean> newLru() {
+        return new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+    }
+
+    private static int parseSize(String value, int defaultValue) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
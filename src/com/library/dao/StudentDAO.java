@@ -1,24 +1,32 @@
 package com.library.dao;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.library.models.Student;
 import com.library.util.DatabaseConnection;
 
 public class StudentDAO {
+    // Unit separator; cannot appear in a name typed into the student form
+    private static final char CURSOR_SEPARATOR = '\u001F';
 
     public boolean addStudent(Student student) throws SQLException {
         String sql = "INSERT INTO students (id_number, first_name, last_name, course_id, "
                 + "council_id, school_year, year_level, contact_number, email, status) "
                 + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
-        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = StatementCache.prepare(conn, sql)) {
 
             pstmt.setString(1, student.getIdNumber());
             pstmt.setString(2, student.getFirstName());
@@ -40,7 +48,7 @@ public class StudentDAO {
                 + "course_id=?, council_id=?, school_year=?, year_level=?, contact_number=?, "
                 + "email=?, status=? WHERE student_id=?";
 
-        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = StatementCache.prepare(conn, sql)) {
 
             pstmt.setString(1, student.getIdNumber());
             pstmt.setString(2, student.getFirstName());
@@ -65,7 +73,7 @@ public class StudentDAO {
             conn.setAutoCommit(false); // Start transaction
 
             // First check if student has any borrowed books
-            try (PreparedStatement checkStmt = conn.prepareStatement(
+            try (PreparedStatement checkStmt = StatementCache.prepare(conn,
                     "SELECT COUNT(*) FROM borrowings WHERE student_id = ? AND status = 'Borrowed'")) {
                 checkStmt.setInt(1, studentId);
                 ResultSet rs = checkStmt.executeQuery();
@@ -75,7 +83,7 @@ public class StudentDAO {
             }
 
             // Mark student as inactive instead of deleting
-            try (PreparedStatement updateStmt = conn.prepareStatement(
+            try (PreparedStatement updateStmt = StatementCache.prepare(conn,
                     "UPDATE students SET active = FALSE, status = 'Inactive' WHERE student_id = ?")) {
                 updateStmt.setInt(1, studentId);
                 int updated = updateStmt.executeUpdate();
@@ -85,7 +93,7 @@ public class StudentDAO {
             }
 
             // Update related borrowing records
-            try (PreparedStatement updateBorrowingsStmt = conn.prepareStatement(
+            try (PreparedStatement updateBorrowingsStmt = StatementCache.prepare(conn,
                     "UPDATE borrowings SET status = 'Cancelled' WHERE student_id = ? AND status != 'Borrowed'")) {
                 updateBorrowingsStmt.setInt(1, studentId);
                 updateBorrowingsStmt.executeUpdate();
@@ -105,6 +113,7 @@ public class StudentDAO {
             if (conn != null) {
                 try {
                     conn.setAutoCommit(true);
+                    conn.close();
                 } catch (SQLException e) {
                     e.printStackTrace();
                 }
@@ -119,7 +128,7 @@ public class StudentDAO {
                 + "JOIN councils co ON s.council_id = co.council_id "
                 + "WHERE s.student_id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = StatementCache.prepare(conn, sql)) {
 
             pstmt.setInt(1, studentId);
             ResultSet rs = pstmt.executeQuery();
@@ -141,7 +150,7 @@ public class StudentDAO {
                 + // Only get active students
                 "ORDER BY s.last_name, s.first_name";
 
-        try (Connection conn = DatabaseConnection.getConnection(); Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = StatementCache.prepare(conn, sql); ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
                 students.add(mapResultSetToStudent(rs));
@@ -150,7 +159,94 @@ public class StudentDAO {
         return students;
     }
 
+    /**
+     * Active students in getAllStudents() order, one keyset page at a time.
+     * The cursor is the (last_name, first_name, student_id) of the last row.
+     */
+    public Page<Student> getStudentsPage(String cursor, int pageSize) throws SQLException {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        String[] position = decodeCursor(cursor);
+        String sql = studentsPageQuery(position != null);
+
+        List<Student> students = new ArrayList<>();
+        boolean more = false;
+        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = StatementCache.prepare(conn, sql)) {
+            int index = 1;
+            if (position != null) {
+                pstmt.setString(index++, position[0]);
+                pstmt.setString(index++, position[0]);
+                pstmt.setString(index++, position[1]);
+                pstmt.setString(index++, position[1]);
+                pstmt.setInt(index++, Integer.parseInt(position[2]));
+            }
+            pstmt.setInt(index, pageSize + 1);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (students.size() == pageSize) {
+                        more = true; // the extra look-ahead row
+                        break;
+                    }
+                    students.add(mapResultSetToStudent(rs));
+                }
+            }
+        }
+        Student last = more ? students.get(students.size() - 1) : null;
+        return new Page<>(students, last != null ? encodeCursor(last) : null);
+    }
+
+    private static String studentsPageQuery(boolean afterCursor) {
+        return "SELECT s.*, c.course_name, co.council_name "
+                + "FROM students s "
+                + "JOIN courses c ON s.course_id = c.course_id "
+                + "JOIN councils co ON s.council_id = co.council_id "
+                + "WHERE s.active = TRUE "
+                + (afterCursor
+                        ? "AND (s.last_name > ? OR (s.last_name = ? AND (s.first_name > ? "
+                        + "OR (s.first_name = ? AND s.student_id > ?)))) "
+                        : "")
+                + "ORDER BY s.last_name, s.first_name, s.student_id LIMIT ?";
+    }
+
+    void registerQueryPlans(QueryPlanAdvisor advisor) {
+        advisor.register("StudentDAO.getStudentsPage", studentsPageQuery(false), 101);
+        advisor.register("StudentDAO.getStudentsPage (next page)", studentsPageQuery(true),
+                "M", "M", "M", "M", 0, 101);
+    }
+
+    private static String encodeCursor(Student last) {
+        String raw = last.getLastName() + CURSOR_SEPARATOR + last.getFirstName() + CURSOR_SEPARATOR + last.getStudentId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String[] position;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            position = raw.split(String.valueOf(CURSOR_SEPARATOR), -1);
+            if (position.length == 3) {
+                Integer.parseInt(position[2]);
+                return position;
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor, e);
+        }
+        throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+    }
+
     public List<Student> searchStudents(String searchTerm) throws SQLException {
+        return searchStudents(searchTerm, null);
+    }
+
+    /**
+     * searchStudents that can be aborted through {@code canceller}; null for none.
+     */
+    public List<Student> searchStudents(String searchTerm, QueryCanceller canceller) throws SQLException {
         List<Student> students = new ArrayList<>();
         String sql = "SELECT s.*, c.course_name, co.council_name "
                 + "FROM students s "
@@ -160,16 +256,24 @@ public class StudentDAO {
                 + "CONCAT(s.first_name, ' ', s.last_name) LIKE ? OR "
                 + "s.email LIKE ?";
 
-        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = StatementCache.prepare(conn, sql)) {
 
             String searchPattern = "%" + searchTerm + "%";
             pstmt.setString(1, searchPattern);
             pstmt.setString(2, searchPattern);
             pstmt.setString(3, searchPattern);
 
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                students.add(mapResultSetToStudent(rs));
+            if (canceller != null) {
+                canceller.attach(pstmt);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    students.add(mapResultSetToStudent(rs));
+                }
+            } finally {
+                if (canceller != null) {
+                    canceller.detach(pstmt);
+                }
             }
         }
         return students;
@@ -182,7 +286,7 @@ public class StudentDAO {
                 + "JOIN councils co ON s.council_id = co.council_id "
                 + "WHERE s.id_number = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = StatementCache.prepare(conn, sql)) {
 
             pstmt.setString(1, idNumber);
             ResultSet rs = pstmt.executeQuery();
@@ -194,6 +298,42 @@ public class StudentDAO {
         return null;
     }
 
+    /**
+     * The students with any of the given ID numbers, keyed by ID number, in
+     * one query. Numbers without a student are missing from the map.
+     */
+    public Map<String, Student> getStudentsByIdNumbers(Collection<String> idNumbers) throws SQLException {
+        Map<String, Student> students = new HashMap<>();
+        Set<String> distinct = new LinkedHashSet<>(idNumbers);
+        if (distinct.isEmpty()) {
+            return students;
+        }
+        StringBuilder sql = new StringBuilder("SELECT s.*, c.course_name, co.council_name "
+                + "FROM students s "
+                + "JOIN courses c ON s.course_id = c.course_id "
+                + "JOIN councils co ON s.council_id = co.council_id "
+                + "WHERE s.id_number IN (");
+        for (int i = 0; i < distinct.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = StatementCache.prepare(conn, sql.toString())) {
+            int index = 1;
+            for (String idNumber : distinct) {
+                pstmt.setString(index++, idNumber);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Student student = mapResultSetToStudent(rs);
+                    students.put(student.getIdNumber(), student);
+                }
+            }
+        }
+        return students;
+    }
+
     private Student mapResultSetToStudent(ResultSet rs) throws SQLException {
         Student student = new Student();
         student.setStudentId(rs.getInt("student_id"));
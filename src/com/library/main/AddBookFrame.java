@@ -24,6 +24,7 @@ import javax.swing.JTextField;
 import java.util.ArrayList;
 import java.lang.StringBuilder;
 import com.library.components.DatePicker;
+import com.library.dao.BookCatalogCache;
 
 public class AddBookFrame extends JFrame {
 
@@ -43,9 +44,7 @@ public class AddBookFrame extends JFrame {
     }};
 
     private String generateUniqueBookId(String category) {
-        Connection conn = null;
-        try {
-            conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getConnection()) {
             String categoryCode = CATEGORY_CODES.getOrDefault(category, "GEN"); // Default to GEN if category not found
             String year = String.format("%02d", Calendar.getInstance().get(Calendar.YEAR) % 100); // Get last 2 digits of year
             
@@ -261,12 +260,12 @@ public class AddBookFrame extends JFrame {
                 }
                 
                 // All validations passed, proceed with saving
-                Connection conn = DatabaseConnection.getConnection();
                 String query = "INSERT INTO books (book_id, isbn, title, author, category, publisher, " +
                              "publication_year, quantity, available_quantity, location, price, status) " +
                              "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
-                try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                try (Connection conn = DatabaseConnection.getConnection();
+                     PreparedStatement pstmt = conn.prepareStatement(query)) {
                 pstmt.setString(1, bookIdField.getText().trim());
                     pstmt.setString(2, isbnField.getText().trim());
                     pstmt.setString(3, titleField.getText().trim());
@@ -282,6 +281,7 @@ public class AddBookFrame extends JFrame {
                     pstmt.setString(12, "Available");
                 
                 pstmt.executeUpdate();
+                BookCatalogCache.getInstance().invalidate();
                 
                 JOptionPane.showMessageDialog(this,
                     "Book added successfully",
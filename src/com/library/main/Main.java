@@ -1,6 +1,12 @@
 package com.library.main;
 
 import javax.swing.*;
+import com.library.dao.AuditRetentionJob;
+import com.library.dao.CirculationDAO;
+import com.library.dao.FineAccrualJob;
+import com.library.dao.QueryPlanAdvisor;
+import com.library.dao.StatementCache;
+import com.library.util.AuditLogger;
 import com.library.util.DatabaseConnection;
 
 public class Main {
@@ -10,7 +16,31 @@ public class Main {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
             
             // Test database connection
-            DatabaseConnection.getConnection();
+            DatabaseConnection.getConnection().close();
+            // Store queued audit events before the pool goes away
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                AuditLogger.shutdown();
+                StatementCache.logStats();
+                DatabaseConnection.closeConnection();
+            }, "shutdown"));
+            
+            // Create the circulation rollup and backfill it on first start,
+            // then log hot queries whose plans fall back to full table scans
+            Thread maintenance = new Thread(() -> {
+                try {
+                    new CirculationDAO().ensureRollup();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                if (QueryPlanAdvisor.isEnabled()) {
+                    QueryPlanAdvisor.forDaos().check();
+                }
+            }, "startup-maintenance");
+            maintenance.setDaemon(true);
+            maintenance.start();
+            FineAccrualJob.scheduleNightly();
+            AuditRetentionJob.scheduleNightly();
+            AuditLogger.start();
             
             // Launch application
             SwingUtilities.invokeLater(() -> {
@@ -5,6 +5,10 @@ import javax.swing.border.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.sql.*;
+import com.library.components.AsyncLoader;
+import com.library.dao.DashboardStatsService;
+import com.library.models.AuditLog;
+import com.library.util.AuditLogger;
 import com.library.util.DatabaseConnection;
 import com.library.panels.StudentPanel;
 import com.library.panels.BookPanel;
@@ -32,6 +36,16 @@ public class MainFrame extends JFrame {
     private int adminId;
     private String adminName;
     private String selectedPeriod = "WEEK"; // Default to weekly view
+
+    // Dashboard numbers come from one cached snapshot, refreshed off the EDT
+    private final DashboardStatsService dashboardStats = DashboardStatsService.getInstance();
+    private final AsyncLoader dashboardLoader = new AsyncLoader(getRootPane());
+    private DashboardStatsService.Snapshot dashboardSnapshot;
+    private JLabel[] statLabels;
+    private DefaultListModel<String> activityModel;
+    private static final int RECENT_ACTIVITY_LIMIT = 10;
+    private JComponent popularBooksChart;
+    private JComponent borrowingTrendsChart;
     
     // Add these color constants at the top of the class
     private static final Color DARK_BG = new Color(18, 18, 18);
@@ -124,6 +138,7 @@ public class MainFrame extends JFrame {
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
                 adminName = rs.getString("name");
+                AuditLogger.setAdminName(adminId, adminName);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -501,15 +516,16 @@ public class MainFrame extends JFrame {
         gbc.weightx = 1.0;
         gbc.insets = new Insets(0, 10, 0, 10);
 
-        // Add stat cards
+        // Add stat cards; the counts are filled in by showDashboardStats
+        statLabels = new JLabel[4];
         gbc.gridx = 0; gbc.gridy = 0;
-        addModernStatCard(statsPanel, "📚", "Total Books", getTotalBooks(), currentTheme.accentBlue, gbc);
+        statLabels[0] = addModernStatCard(statsPanel, "📚", "Total Books", "…", currentTheme.accentBlue, gbc);
         gbc.gridx = 1;
-        addModernStatCard(statsPanel, "👥", "Active Students", getActiveStudents(), currentTheme.accentGreen, gbc);
+        statLabels[1] = addModernStatCard(statsPanel, "👥", "Active Students", "…", currentTheme.accentGreen, gbc);
         gbc.gridx = 2;
-        addModernStatCard(statsPanel, "📖", "Books Borrowed", getBorrowedBooks(), currentTheme.accentPurple, gbc);
+        statLabels[2] = addModernStatCard(statsPanel, "📖", "Books Borrowed", "…", currentTheme.accentPurple, gbc);
         gbc.gridx = 3;
-        addModernStatCard(statsPanel, "⚠", "Overdue Books", getOverdueBooks(), currentTheme.accentOrange, gbc);
+        statLabels[3] = addModernStatCard(statsPanel, "⚠", "Overdue Books", "…", currentTheme.accentOrange, gbc);
 
         // Main content panel with GridBagLayout
         JPanel contentPanel = new JPanel(new GridBagLayout());
@@ -544,10 +560,31 @@ public class MainFrame extends JFrame {
         this.contentPanel.add(dashboard);
         this.contentPanel.revalidate();
         this.contentPanel.repaint();
+
+        // Show the cached snapshot straight away and refresh it if it is stale
+        DashboardStatsService.Snapshot cached = dashboardStats.getCachedSnapshot();
+        if (cached != null) {
+            showDashboardStats(cached);
+        }
+        if (cached == null || dashboardStats.isStale(cached)) {
+            dashboardLoader.load(dashboardStats::refresh, this::showDashboardStats,
+                "Error loading dashboard statistics");
+        }
+    }
+
+    private void showDashboardStats(DashboardStatsService.Snapshot snapshot) {
+        dashboardSnapshot = snapshot;
+        statLabels[0].setText(String.valueOf(snapshot.getTotalBooks()));
+        statLabels[1].setText(String.valueOf(snapshot.getActiveStudents()));
+        statLabels[2].setText(String.valueOf(snapshot.getBorrowedBooks()));
+        statLabels[3].setText(String.valueOf(snapshot.getOverdueBooks()));
+        showRecentActivity();
+        popularBooksChart.repaint();
+        borrowingTrendsChart.repaint();
     }
     
     // Update the addModernStatCard method
-    private void addModernStatCard(JPanel container, String icon, String title, String value, Color accentColor, GridBagConstraints gbc) {
+    private JLabel addModernStatCard(JPanel container, String icon, String title, String value, Color accentColor, GridBagConstraints gbc) {
         JPanel card = new JPanel(new BorderLayout(10, 5)) {
             @Override
             protected void paintComponent(Graphics g) {
@@ -615,6 +652,7 @@ public class MainFrame extends JFrame {
         card.add(valueLabel, BorderLayout.CENTER);
 
         container.add(card, gbc);
+        return valueLabel;
     }
     
     // Update the createModernAnalyticsPanel method
@@ -799,52 +837,6 @@ public class MainFrame extends JFrame {
         panel.add(item);
     }
     
-    // Helper methods to get data
-    private String[] getRecentActivities() {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            // First check if table exists
-            DatabaseMetaData dbm = conn.getMetaData();
-            ResultSet tables = dbm.getTables(null, null, "audit_log", null);
-            
-            if (!tables.next()) {
-                return new String[]{"No activity logs available"};
-            }
-            
-            String query = """
-                SELECT 
-                    l.timestamp,
-                    l.action,
-                    l.details,
-                    CONCAT(a.first_name, ' ', a.last_name) as admin_name
-                FROM audit_log l
-                JOIN admins a ON l.admin_id = a.admin_id
-                ORDER BY l.timestamp DESC 
-                LIMIT 10
-                """;
-                
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            
-            List<String> activities = new ArrayList<>();
-            while (rs.next()) {
-                String activity = String.format("[%s] %s by %s: %s",
-                    rs.getTimestamp("timestamp").toString(),
-                    rs.getString("action"),
-                    rs.getString("admin_name"),
-                    rs.getString("details")
-                );
-                activities.add(activity);
-            }
-            
-            return activities.isEmpty() ? 
-                new String[]{"No recent activities"} : 
-                activities.toArray(new String[0]);
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return new String[]{"Error loading activities"};
-        }
-    }
     
     private JComponent createPopularBooksChart() {
         return new JPanel() {
@@ -858,8 +850,14 @@ public class MainFrame extends JFrame {
                 g2.setColor(currentTheme.background);
                 g2.fillRect(0, 0, getWidth(), getHeight());
                 
-                // Get data
+                // Get data from the dashboard snapshot
                 Map<String, Integer> data = getPopularBooksData();
+                if (data == null) {
+                    g2.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+                    g2.setColor(currentTheme.textPrimary);
+                    g2.drawString("Loading...", getWidth()/2 - 25, getHeight()/2);
+                    return;
+                }
                 if (data.isEmpty()) {
                     g2.setFont(new Font("Segoe UI", Font.PLAIN, 12));
                     g2.setColor(currentTheme.textPrimary);
@@ -909,33 +907,9 @@ public class MainFrame extends JFrame {
         };
     }
     
+    // Null until the first dashboard snapshot has loaded
     private Map<String, Integer> getPopularBooksData() {
-        Map<String, Integer> data = new LinkedHashMap<>();
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String query = """
-                SELECT b.title, COUNT(*) as borrow_count 
-                FROM borrowings br 
-                JOIN books b ON br.book_id = b.book_id
-                WHERE br.borrow_date >= DATE_SUB(CURRENT_DATE, INTERVAL 30 DAY) 
-                GROUP BY b.book_id, b.title 
-                ORDER BY borrow_count DESC 
-                LIMIT 5
-                """;
-                
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-                while (rs.next()) {
-                    String title = rs.getString("title");
-                    if (title.length() > 20) {
-                        title = title.substring(0, 17) + "...";
-                    }
-                    data.put(title, rs.getInt("borrow_count"));
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return data;
+        return dashboardSnapshot != null ? dashboardSnapshot.getPopularBooks() : null;
     }
     
     private JComponent createBorrowingTrendsChart() {
@@ -946,8 +920,13 @@ public class MainFrame extends JFrame {
                 Graphics2D g2 = (Graphics2D) g;
                 g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
                 
-                // Get data
+                // Get data from the dashboard snapshot
                 Map<String, Integer> data = getBorrowingTrendsData();
+                if (data == null) {
+                    g2.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+                    g2.drawString("Loading...", getWidth()/2 - 25, getHeight()/2);
+                    return;
+                }
                 if (data.isEmpty() || (data.size() == 1 && data.containsKey("No Data"))) {
                     g2.setFont(new Font("Segoe UI", Font.PLAIN, 12));
                     g2.drawString("No borrowing trends available", getWidth()/2 - 50, getHeight()/2);
@@ -1054,53 +1033,19 @@ public class MainFrame extends JFrame {
         };
     }
     
+    // Null until the first dashboard snapshot has loaded
     private Map<String, Integer> getBorrowingTrendsData() {
-        Map<String, Integer> data = new LinkedHashMap<>();
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String interval = switch (selectedPeriod) {
-                case "WEEK" -> "7 DAY";
-                case "MONTH" -> "30 DAY";
-                case "3MONTHS" -> "90 DAY";
-                default -> "7 DAY";
-            };
-            
-            String query = """
-                SELECT DATE(borrow_date) as date, COUNT(*) as count 
-                FROM borrowings 
-                WHERE borrow_date >= DATE_SUB(CURRENT_DATE, INTERVAL %s) 
-                GROUP BY DATE(borrow_date) 
-                ORDER BY date
-                """.formatted(interval);
-                
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-                
-                // Create a map with all dates in the range (including zeros)
-                LocalDate endDate = LocalDate.now();
-                LocalDate startDate = switch (selectedPeriod) {
-                    case "WEEK" -> endDate.minusDays(7);
-                    case "MONTH" -> endDate.minusDays(30);
-                    case "3MONTHS" -> endDate.minusDays(90);
-                    default -> endDate.minusDays(7);
-                };
-                
-                // Initialize all dates with zero
-                LocalDate date = startDate;
-                while (!date.isAfter(endDate)) {
-                    data.put(formatDate(date), 0);
-                    date = date.plusDays(1);
-                }
-                
-                // Fill in actual data
-                while (rs.next()) {
-                    LocalDate borrowDate = rs.getDate("date").toLocalDate();
-                    data.put(formatDate(borrowDate), rs.getInt("count"));
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            data.put("No Data", 0);
+        if (dashboardSnapshot == null) {
+            return null;
         }
+        int days = switch (selectedPeriod) {
+            case "WEEK" -> 7;
+            case "MONTH" -> 30;
+            case "3MONTHS" -> 90;
+            default -> 7;
+        };
+        Map<String, Integer> data = new LinkedHashMap<>();
+        dashboardSnapshot.getDailyBorrowings(days).forEach((date, count) -> data.put(formatDate(date), count));
         return data;
     }
     
@@ -1145,62 +1090,6 @@ public class MainFrame extends JFrame {
         }
     }
 
-    private String getTotalBooks() {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String query = "SELECT SUM(quantity) as total FROM books";
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            if (rs.next()) {
-                return String.valueOf(rs.getInt("total"));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return "0";
-    }
-
-    private String getActiveStudents() {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String query = "SELECT COUNT(*) as count FROM students WHERE status = 'Active'";
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            if (rs.next()) {
-                return String.valueOf(rs.getInt("count"));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return "0";
-    }
-
-    private String getBorrowedBooks() {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String query = "SELECT COUNT(*) as count FROM borrowings WHERE status = 'Borrowed'";
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            if (rs.next()) {
-                return String.valueOf(rs.getInt("count"));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return "0";
-    }
-
-    private String getOverdueBooks() {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String query = "SELECT COUNT(*) as count FROM borrowings WHERE status = 'Borrowed' AND due_date < CURRENT_DATE";
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            if (rs.next()) {
-                return String.valueOf(rs.getInt("count"));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return "0";
-    }
-
     private static class RoundedBorder extends AbstractBorder {
         private final int radius;
         private final Color color;
@@ -1233,7 +1122,9 @@ public class MainFrame extends JFrame {
 
     // Add these setup methods
     private void setupRecentActivities(JPanel panel) {
-        JList<String> activityList = new JList<>(getRecentActivities());
+        activityModel = new DefaultListModel<>();
+        showRecentActivity();
+        JList<String> activityList = new JList<>(activityModel);
         activityList.setBackground(currentTheme.cardBackground);
         activityList.setForeground(currentTheme.textPrimary);
         activityList.setSelectionBackground(currentTheme.accentBlue);
@@ -1246,13 +1137,26 @@ public class MainFrame extends JFrame {
         panel.add(scrollPane, BorderLayout.CENTER);
     }
 
+    // From AuditLogger's in-memory feed, so this never waits on the database
+    private void showRecentActivity() {
+        activityModel.clear();
+        for (AuditLog log : AuditLogger.getRecentActivity(RECENT_ACTIVITY_LIMIT)) {
+            activityModel.addElement(log.toString());
+        }
+        if (activityModel.isEmpty()) {
+            activityModel.addElement("No recent activities");
+        }
+    }
+
     private void setupPopularBooks(JPanel panel) {
-        panel.add(createPopularBooksChart(), BorderLayout.CENTER);
+        popularBooksChart = createPopularBooksChart();
+        panel.add(popularBooksChart, BorderLayout.CENTER);
     }
 
     private void setupBorrowingTrends(JPanel panel) {
         JPanel trendsContent = new JPanel(new BorderLayout());
         trendsContent.setOpaque(false);
+        borrowingTrendsChart = createBorrowingTrendsChart();
 
         // Period selector
         JPanel periodSelector = new JPanel(new FlowLayout(FlowLayout.LEFT));
@@ -1278,7 +1182,7 @@ public class MainFrame extends JFrame {
         periodSelector.add(periodCombo);
 
         trendsContent.add(periodSelector, BorderLayout.NORTH);
-        trendsContent.add(createBorrowingTrendsChart(), BorderLayout.CENTER);
+        trendsContent.add(borrowingTrendsChart, BorderLayout.CENTER);
         panel.add(trendsContent, BorderLayout.CENTER);
     }
 
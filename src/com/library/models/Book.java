@@ -22,6 +22,23 @@ public class Book {
     
     // Constructors
     public Book() {}
+
+    public Book(Book other) {
+        this.bookId = other.bookId;
+        this.isbn = other.isbn;
+        this.title = other.title;
+        this.author = other.author;
+        this.publisher = other.publisher;
+        this.publicationYear = other.publicationYear;
+        this.category = other.category;
+        this.quantity = other.quantity;
+        this.availableQuantity = other.availableQuantity;
+        this.location = other.location;
+        this.addedDate = other.addedDate;
+        this.status = other.status;
+        this.active = other.active;
+        this.price = other.price;
+    }
     
     // Getters and Setters
     public int getBookId() { return bookId; }
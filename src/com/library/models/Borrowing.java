@@ -11,6 +11,8 @@ public class Borrowing {
     private Date dueDate;
     private Date returnDate;
     private String status;
+    private BorrowingStatus borrowingStatus;
+    private int daysOverdue;
     private double fineAmount;
     
     // Additional fields for display
@@ -50,7 +52,16 @@ public class Borrowing {
     public void setReturnDate(Date returnDate) { this.returnDate = returnDate; }
     
     public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public void setStatus(String status) {
+        this.status = status;
+        this.borrowingStatus = BorrowingStatus.fromDb(status);
+    }
+    
+    public BorrowingStatus getBorrowingStatus() { return borrowingStatus; }
+    public void setBorrowingStatus(BorrowingStatus borrowingStatus) { this.borrowingStatus = borrowingStatus; }
+    
+    public int getDaysOverdue() { return daysOverdue; }
+    public void setDaysOverdue(int daysOverdue) { this.daysOverdue = daysOverdue; }
     
     public double getFineAmount() { return fineAmount; }
     public void setFineAmount(double fineAmount) { this.fineAmount = fineAmount; }
@@ -84,17 +95,18 @@ public class Borrowing {
     
     // Utility methods
     public boolean isOverdue() {
-        if (status.equals("Borrowed") && dueDate != null) {
-            return new Date().after(dueDate);
-        }
-        return false;
+        return borrowingStatus == BorrowingStatus.OVERDUE;
     }
     
-    public long getDaysOverdue() {
-        if (!isOverdue()) return 0;
-        
-        long diff = new Date().getTime() - dueDate.getTime();
-        return diff / (24 * 60 * 60 * 1000);
+    /**
+     * Status as shown in the tables, e.g. "Overdue (3 days)". Built on
+     * demand so loading a list does not format every row.
+     */
+    public String getStatusLabel() {
+        if (borrowingStatus == BorrowingStatus.OVERDUE) {
+            return "Overdue (" + daysOverdue + " days)";
+        }
+        return borrowingStatus != null ? borrowingStatus.getLabel() : status;
     }
     
     public double calculateFine(double finePerDay) {
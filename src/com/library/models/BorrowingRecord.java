@@ -12,6 +12,8 @@ public class BorrowingRecord {
     private Timestamp dueDate;
     private Timestamp returnDate;
     private String status;
+    private BorrowingStatus borrowingStatus;
+    private int daysOverdue;
     private String courseName;
     private String yearLevel;
     private String councilName;
@@ -29,6 +31,7 @@ public class BorrowingRecord {
         this.dueDate = dueDate;
         this.returnDate = returnDate;
         this.status = status;
+        this.borrowingStatus = BorrowingStatus.fromDb(status);
     }
 
     // Getters
@@ -41,6 +44,8 @@ public class BorrowingRecord {
     public Timestamp getDueDate() { return dueDate; }
     public Timestamp getReturnDate() { return returnDate; }
     public String getStatus() { return status; }
+    public BorrowingStatus getBorrowingStatus() { return borrowingStatus; }
+    public int getDaysOverdue() { return daysOverdue; }
     public String getCourseName() { return courseName; }
     public String getYearLevel() { return yearLevel; }
     public String getCouncilName() { return councilName; }
@@ -54,8 +59,23 @@ public class BorrowingRecord {
     public void setBorrowDate(Timestamp borrowDate) { this.borrowDate = borrowDate; }
     public void setDueDate(Timestamp dueDate) { this.dueDate = dueDate; }
     public void setReturnDate(Timestamp returnDate) { this.returnDate = returnDate; }
-    public void setStatus(String status) { this.status = status; }
+    public void setStatus(String status) {
+        this.status = status;
+        this.borrowingStatus = BorrowingStatus.fromDb(status);
+    }
+    public void setBorrowingStatus(BorrowingStatus borrowingStatus) { this.borrowingStatus = borrowingStatus; }
+    public void setDaysOverdue(int daysOverdue) { this.daysOverdue = daysOverdue; }
     public void setCourseName(String courseName) { this.courseName = courseName; }
     public void setYearLevel(String yearLevel) { this.yearLevel = yearLevel; }
     public void setCouncilName(String councilName) { this.councilName = councilName; }
+
+    /**
+     * Status for display, e.g. "Overdue (3 days)", built on demand.
+     */
+    public String getStatusLabel() {
+        if (borrowingStatus == BorrowingStatus.OVERDUE) {
+            return "Overdue (" + daysOverdue + " days)";
+        }
+        return borrowingStatus != null ? borrowingStatus.getLabel() : status;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.library.models;
+
+/**
+ * State of a borrowing. The borrowings table stores Borrowed, Returned and
+ * Archived; OVERDUE is derived by the query for a Borrowed row past its due
+ * date, so it never has to be computed per row in Java.
+ */
+public enum BorrowingStatus {
+    BORROWED("Borrowed"),
+    OVERDUE("Overdue"),
+    RETURNED("Returned"),
+    ARCHIVED("Archived");
+
+    private final String label;
+
+    BorrowingStatus(String label) {
+        this.label = label;
+    }
+
+    /**
+     * The value as stored in borrowings.status and shown in the UI.
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Parses a borrowings.status value; null if it is not one of the known states.
+     */
+    public static BorrowingStatus fromDb(String value) {
+        if (value != null) {
+            for (BorrowingStatus status : values()) {
+                if (status.label.equalsIgnoreCase(value)) {
+                    return status;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -11,8 +11,6 @@ import java.awt.FontMetrics;
 import java.awt.Frame;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.event.KeyAdapter;
-import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.sql.SQLException;
@@ -33,6 +31,7 @@ import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.JTextField;
@@ -40,20 +39,26 @@ import javax.swing.ListSelectionModel;
 import javax.swing.SwingUtilities;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 
+import com.library.components.AsyncLoader;
 import com.library.components.DatePicker;
+import com.library.components.LazyTableModel;
+import com.library.components.TypeAheadSearch;
+import com.library.dao.BookCatalogCache;
 import com.library.dao.BookDAO;
 import com.library.models.Book;
 import com.library.util.Theme;
 
 public class BookPanel extends JPanel {
     private JTable bookTable;
-    private DefaultTableModel tableModel;
+    private LazyTableModel<Book> tableModel;
     private JTextField searchField;
     private BookDAO bookDAO;
     private JComboBox<String> statusCombo;
+    private final BookCatalogCache catalogCache = BookCatalogCache.getInstance();
+    private final BookCatalogCache.Listener catalogListener =
+        (type, book) -> SwingUtilities.invokeLater(this::refreshBooks);
     
     // Theme instance
     private Theme currentTheme;
@@ -70,6 +75,9 @@ public class BookPanel extends JPanel {
     
     // Components that need theme updates
     private JScrollPane tableScrollPane;
+    private final JProgressBar loadingIndicator = AsyncLoader.createIndicator();
+    private final AsyncLoader deleteLoader = new AsyncLoader(this);
+    private TypeAheadSearch<Book> bookSearch;
     private JPanel topPanel;
     
     public BookPanel() {
@@ -87,6 +95,18 @@ public class BookPanel extends JPanel {
         loadBooks();
     }
     
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        catalogCache.addListener(catalogListener);
+    }
+    
+    @Override
+    public void removeNotify() {
+        catalogCache.removeListener(catalogListener);
+        super.removeNotify();
+    }
+    
     /**
      * Creates a default light theme when none is provided
      */
@@ -220,6 +240,7 @@ public class BookPanel extends JPanel {
         
         searchPanel.add(searchField);
         searchPanel.add(searchButton);
+        searchPanel.add(loadingIndicator);
         
         topPanel.add(searchPanel, BorderLayout.WEST);
         topPanel.add(addButton, BorderLayout.EAST);
@@ -229,12 +250,15 @@ public class BookPanel extends JPanel {
             "ID", "ISBN", "Title", "Author", "Category",
             "Publication Year", "Price", "Quantity", "Available", "Location", "Status"
         };
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new LazyTableModel<>(columns, BookPanel::bookColumn);
+        tableModel.setIndicator(loadingIndicator);
+        tableModel.setErrorHandler(e -> {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this,
+                "Error loading books: " + e.getMessage(),
+                "Database Error",
+                JOptionPane.ERROR_MESSAGE);
+        });
         bookTable = new JTable(tableModel);
         styleTable(bookTable);
         
@@ -258,6 +282,7 @@ public class BookPanel extends JPanel {
         
         // Scroll pane with modern styling
         tableScrollPane = new JScrollPane(bookTable);
+        tableModel.attachTo(tableScrollPane);
         tableScrollPane.setBorder(BorderFactory.createLineBorder(new Color(currentTheme.textSecondary.getRed(), 
                                                                          currentTheme.textSecondary.getGreen(), 
                                                                          currentTheme.textSecondary.getBlue(), 
@@ -269,15 +294,13 @@ public class BookPanel extends JPanel {
         add(tableScrollPane, BorderLayout.CENTER);
         
         // Add action listeners
-        searchButton.addActionListener(e -> searchBooks());
-        searchField.addKeyListener(new KeyAdapter() {
-            @Override
-            public void keyPressed(KeyEvent e) {
-                if (e.getKeyCode() == KeyEvent.VK_ENTER) {
-                    searchBooks();
-                }
-            }
-        });
+        // Searches as the user types; Enter and the button search at once
+        bookSearch = new TypeAheadSearch<>(searchField, bookDAO::searchBooks, books -> tableModel.setList(() -> books));
+        bookSearch.setOnCleared(this::loadBooks);
+        bookSearch.setIndicator(loadingIndicator);
+        bookSearch.setErrorHandler(this::showSearchError);
+        searchButton.addActionListener(e -> bookSearch.searchNow());
+        searchField.addActionListener(e -> bookSearch.searchNow());
         
         addButton.addActionListener(e -> showBookDialog(null));
         editItem.addActionListener(e -> editSelectedBook());
@@ -387,62 +410,41 @@ public class BookPanel extends JPanel {
     }
     
     private void loadBooks() {
-        tableModel.setRowCount(0);
-        try {
-            List<Book> books = bookDAO.getAllBooks();
-            for (Book book : books) {
-                Object[] row = {
-                    book.getBookId(),
-                    book.getIsbn(),
-                    book.getTitle(),
-                    book.getAuthor(),
-                    book.getCategory(),
-                    book.getPublicationYear(),
-                    String.format("%.2f", book.getPrice()),
-                    book.getQuantity(),
-                    book.getAvailableQuantity(),
-                    book.getLocation(),
-                    book.getStatus()
-                };
-                tableModel.addRow(row);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                "Error loading books: " + e.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
+        tableModel.setList(catalogCache::getAllBooks);
+    }
+    
+    // The catalog changed: drop cached search results and redo the current view
+    private void refreshBooks() {
+        bookSearch.invalidate();
+        if (searchField.getText().trim().isEmpty()) {
+            loadBooks();
+        } else {
+            bookSearch.searchNow();
         }
     }
     
-    private void searchBooks() {
-        String searchTerm = searchField.getText().trim();
-        tableModel.setRowCount(0);
-        
-        try {
-            List<Book> books = bookDAO.searchBooks(searchTerm);
-            for (Book book : books) {
-                Object[] row = {
-                    book.getBookId(),
-                    book.getIsbn(),
-                    book.getTitle(),
-                    book.getAuthor(),
-                    book.getCategory(),
-                    book.getPublicationYear(),
-                    String.format("%.2f", book.getPrice()),
-                    book.getQuantity(),
-                    book.getAvailableQuantity(),
-                    book.getLocation(),
-                    book.getStatus()
-                };
-                tableModel.addRow(row);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                "Error searching books: " + e.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
+    private void showSearchError(Exception e) {
+        e.printStackTrace();
+        JOptionPane.showMessageDialog(this,
+            "Error searching books: " + e.getMessage(),
+            "Database Error",
+            JOptionPane.ERROR_MESSAGE);
+    }
+    
+    private static Object bookColumn(Book book, int column) {
+        switch (column) {
+            case 0: return book.getBookId();
+            case 1: return book.getIsbn();
+            case 2: return book.getTitle();
+            case 3: return book.getAuthor();
+            case 4: return book.getCategory();
+            case 5: return book.getPublicationYear();
+            case 6: return String.format("%.2f", book.getPrice());
+            case 7: return book.getQuantity();
+            case 8: return book.getAvailableQuantity();
+            case 9: return book.getLocation();
+            case 10: return book.getStatus();
+            default: return null;
         }
     }
     
@@ -514,78 +516,78 @@ public class BookPanel extends JPanel {
             statusCombo.setSelectedItem(book.getStatus());
         }
         // Add action listeners
+        AsyncLoader saveLoader = new AsyncLoader(panel);
         saveButton.addActionListener(e -> {
+            // Validate required fields
+            if (isEmptyOrWhitespace(isbnField.getText()) ||
+                isEmptyOrWhitespace(titleField.getText()) ||
+                isEmptyOrWhitespace(authorField.getText()) ||
+                isEmptyOrWhitespace(categoryField.getText()) ||
+                isEmptyOrWhitespace(publisherField.getText()) ||
+                isEmptyOrWhitespace(quantityField.getText()) ||
+                isEmptyOrWhitespace(locationField.getText()) ||
+                isEmptyOrWhitespace(priceField.getText()) ||
+                datePicker.getDate() == null) {
+                StringBuilder message = new StringBuilder("The following fields are required:\n\n");
+                if (isEmptyOrWhitespace(isbnField.getText())) message.append("• ISBN\n");
+                if (isEmptyOrWhitespace(titleField.getText())) message.append("• Title\n");
+                if (isEmptyOrWhitespace(authorField.getText())) message.append("• Author\n");
+                if (isEmptyOrWhitespace(categoryField.getText())) message.append("• Category\n");
+                if (isEmptyOrWhitespace(publisherField.getText())) message.append("• Publisher\n");
+                if (datePicker.getDate() == null) message.append("• Publication Date\n");
+                if (isEmptyOrWhitespace(quantityField.getText())) message.append("• Quantity\n");
+                if (isEmptyOrWhitespace(locationField.getText())) message.append("• Location\n");
+                if (isEmptyOrWhitespace(priceField.getText())) message.append("• Price\n");
+                JOptionPane.showMessageDialog(dialog,
+                    message.toString(),
+                    "Required Fields Missing",
+                    JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            Book newBook = book == null ? new Book() : book;
+            newBook.setIsbn(isbnField.getText().trim());
+            newBook.setTitle(titleField.getText().trim());
+            newBook.setAuthor(authorField.getText().trim());
+            newBook.setPublisher(publisherField.getText().trim());
+            newBook.setCategory(categoryField.getText().trim());
+            newBook.setLocation(locationField.getText().trim());
             try {
-                // Validate required fields
-                if (isEmptyOrWhitespace(isbnField.getText()) ||
-                    isEmptyOrWhitespace(titleField.getText()) ||
-                    isEmptyOrWhitespace(authorField.getText()) ||
-                    isEmptyOrWhitespace(categoryField.getText()) ||
-                    isEmptyOrWhitespace(publisherField.getText()) ||
-                    isEmptyOrWhitespace(quantityField.getText()) ||
-                    isEmptyOrWhitespace(locationField.getText()) ||
-                    isEmptyOrWhitespace(priceField.getText()) ||
-                    datePicker.getDate() == null) {
-                    StringBuilder message = new StringBuilder("The following fields are required:\n\n");
-                    if (isEmptyOrWhitespace(isbnField.getText())) message.append("• ISBN\n");
-                    if (isEmptyOrWhitespace(titleField.getText())) message.append("• Title\n");
-                    if (isEmptyOrWhitespace(authorField.getText())) message.append("• Author\n");
-                    if (isEmptyOrWhitespace(categoryField.getText())) message.append("• Category\n");
-                    if (isEmptyOrWhitespace(publisherField.getText())) message.append("• Publisher\n");
-                    if (datePicker.getDate() == null) message.append("• Publication Date\n");
-                    if (isEmptyOrWhitespace(quantityField.getText())) message.append("• Quantity\n");
-                    if (isEmptyOrWhitespace(locationField.getText())) message.append("• Location\n");
-                    if (isEmptyOrWhitespace(priceField.getText())) message.append("• Price\n");
-                    JOptionPane.showMessageDialog(dialog,
-                        message.toString(),
-                        "Required Fields Missing",
-                        JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-                Book newBook = book == null ? new Book() : book;
-                newBook.setIsbn(isbnField.getText().trim());
-                newBook.setTitle(titleField.getText().trim());
-                newBook.setAuthor(authorField.getText().trim());
-                newBook.setPublisher(publisherField.getText().trim());
-                newBook.setCategory(categoryField.getText().trim());
-                newBook.setLocation(locationField.getText().trim());
-                try {
-                    java.util.Calendar cal = java.util.Calendar.getInstance();
-                    cal.setTime(datePicker.getDate());
-                    newBook.setPublicationYear(cal.get(java.util.Calendar.YEAR));
-                    newBook.setQuantity(Integer.parseInt(quantityField.getText().trim()));
-                    newBook.setPrice(Double.parseDouble(priceField.getText().trim()));
-                } catch (NumberFormatException ex) {
-                    JOptionPane.showMessageDialog(dialog,
-                        "Please enter valid numbers for Quantity and Price",
-                        "Invalid Input",
-                        JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-                // Validate the book using the model's validation
-                if (!newBook.isValid()) {
-                    List<String> errors = newBook.getValidationErrors();
-                    JOptionPane.showMessageDialog(dialog,
-                        "Please correct the following errors:\n\n" + String.join("\n", errors),
-                        "Validation Error",
-                        JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-                if (book == null) {
-                    newBook.setAvailableQuantity(newBook.getQuantity());
-                    bookDAO.addBook(newBook);
-                } else {
-                    bookDAO.updateBook(newBook);
-                }
-                loadBooks();
+                java.util.Calendar cal = java.util.Calendar.getInstance();
+                cal.setTime(datePicker.getDate());
+                newBook.setPublicationYear(cal.get(java.util.Calendar.YEAR));
+                newBook.setQuantity(Integer.parseInt(quantityField.getText().trim()));
+                newBook.setPrice(Double.parseDouble(priceField.getText().trim()));
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(dialog,
+                    "Please enter valid numbers for Quantity and Price",
+                    "Invalid Input",
+                    JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            // Validate the book using the model's validation
+            if (!newBook.isValid()) {
+                List<String> errors = newBook.getValidationErrors();
+                JOptionPane.showMessageDialog(dialog,
+                    "Please correct the following errors:\n\n" + String.join("\n", errors),
+                    "Validation Error",
+                    JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            if (book == null) {
+                newBook.setAvailableQuantity(newBook.getQuantity());
+            }
+            saveButton.setEnabled(false);
+            saveLoader.load(() -> book == null ? bookDAO.addBook(newBook) : bookDAO.updateBook(newBook), saved -> {
+                // The table refreshes itself from the catalog change event
                 dialog.dispose();
-            } catch (SQLException ex) {
+            }, ex -> {
+                saveButton.setEnabled(true);
                 ex.printStackTrace();
                 JOptionPane.showMessageDialog(dialog,
                     "Error saving book: " + ex.getMessage(),
                     "Database Error",
                     JOptionPane.ERROR_MESSAGE);
-            }
+            });
         });
         cancelButton.addActionListener(e -> dialog.dispose());
         dialog.add(new JScrollPane(panel));
@@ -614,9 +616,13 @@ public class BookPanel extends JPanel {
     private void editSelectedBook() {
         int selectedRow = bookTable.getSelectedRow();
         if (selectedRow >= 0) {
-            int bookId = (int) tableModel.getValueAt(selectedRow, 0);
+            Book selected = tableModel.getItem(selectedRow);
+            if (selected == null) {
+                return; // its block is still loading
+            }
+            int bookId = selected.getBookId();
             try {
-                Book book = bookDAO.getBookById(bookId);
+                Book book = catalogCache.getBookById(bookId);
                 if (book != null) {
                     showBookDialog(book);
                 }
@@ -640,8 +646,12 @@ public class BookPanel extends JPanel {
             return;
         }
 
-        int bookId = (int) bookTable.getValueAt(selectedRow, 0);
-        String bookTitle = (String) bookTable.getValueAt(selectedRow, 1);
+        Book selected = tableModel.getItem(selectedRow);
+        if (selected == null) {
+            return; // its block is still loading
+        }
+        int bookId = selected.getBookId();
+        String bookTitle = selected.getTitle();
 
         int confirm = JOptionPane.showConfirmDialog(this,
             "Are you sure you want to delete book: " + bookTitle + "?",
@@ -649,16 +659,15 @@ public class BookPanel extends JPanel {
             JOptionPane.YES_NO_OPTION,
             JOptionPane.WARNING_MESSAGE);
 
-        if (confirm == JOptionPane.YES_OPTION) {
-            try {
+        if (confirm == JOptionPane.YES_OPTION && !deleteLoader.isLoading()) {
+            deleteLoader.load(() -> {
                 bookDAO.deleteBook(bookId);
-                loadBooks(); // Refresh table
-                JOptionPane.showMessageDialog(this,
+                return null;
+            }, deleted -> JOptionPane.showMessageDialog(this,
                     "Book deleted successfully",
                     "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
-            } catch (SQLException e) {
-                String errorMessage = e.getMessage();
+                    JOptionPane.INFORMATION_MESSAGE), e -> {
+                String errorMessage = String.valueOf(e.getMessage());
                 if (errorMessage.contains("currently borrowed")) {
                     JOptionPane.showMessageDialog(this,
                         "Cannot delete this book because it is currently borrowed.\n" +
@@ -671,16 +680,20 @@ public class BookPanel extends JPanel {
                         "Database Error",
                         JOptionPane.ERROR_MESSAGE);
                 }
-            }
+            });
         }
     }
     
     private void viewSelectedBook() {
         int selectedRow = bookTable.getSelectedRow();
         if (selectedRow >= 0) {
-            int bookId = (int) tableModel.getValueAt(selectedRow, 0);
+            Book selected = tableModel.getItem(selectedRow);
+            if (selected == null) {
+                return; // its block is still loading
+            }
+            int bookId = selected.getBookId();
             try {
-                Book book = bookDAO.getBookById(bookId);
+                Book book = catalogCache.getBookById(bookId);
                 if (book != null) {
                     showBookDetailsDialog(book);
                 }
@@ -23,9 +23,14 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.io.FileWriter;
 import java.awt.print.PrinterJob;
 import java.awt.print.Printable;
@@ -47,29 +52,42 @@ import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
+import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.ListSelectionModel;
 import javax.swing.SwingUtilities;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 
+import com.library.components.AsyncLoader;
 import com.library.components.DatePicker;
+import com.library.components.LazyTableModel;
+import com.library.components.TypeAheadSearch;
+import com.library.dao.BatchResult;
+import com.library.dao.BookCatalogCache;
 import com.library.dao.BookDAO;
+import com.library.dao.BookUnavailableException;
 import com.library.dao.BorrowingDAO;
+import com.library.dao.BorrowingQuery;
 import com.library.dao.StudentDAO;
 import com.library.models.Book;
 import com.library.models.Borrowing;
+import com.library.models.BorrowingStatus;
 import com.library.models.Student;
+import com.library.util.DateFormats;
 import com.library.util.Theme;
 
 public class BorrowingPanel extends JPanel {
     private JTable borrowingsTable;
-    private DefaultTableModel tableModel;
+    private LazyTableModel<Borrowing> tableModel;
     private JTextField searchField;
+    private JComboBox<String> dateFieldCombo;
+    private DatePicker dateFromPicker;
+    private DatePicker dateToPicker;
     private BorrowingDAO borrowingDAO;
     private StudentDAO studentDAO;
     private BookDAO bookDAO;
@@ -92,6 +110,16 @@ public class BorrowingPanel extends JPanel {
     // Components that need theme updates
     private JScrollPane scrollPane;
     private JPanel searchPanel;
+    private final JProgressBar loadingIndicator = AsyncLoader.createIndicator();
+    private final AsyncLoader returnLoader = new AsyncLoader(this);
+    
+    private static final String[] DATE_FILTER_OPTIONS = {"Any Date", "Borrow Date", "Due Date", "Return Date"};
+    private static final BorrowingQuery.DateField[] DATE_FILTER_FIELDS = {
+        null,
+        BorrowingQuery.DateField.BORROW_DATE,
+        BorrowingQuery.DateField.DUE_DATE,
+        BorrowingQuery.DateField.RETURN_DATE
+    };
     
     public BorrowingPanel(int adminId) {
         this(adminId, "all");
@@ -229,48 +257,43 @@ public class BorrowingPanel extends JPanel {
         searchField.setForeground(currentTheme.textPrimary);
         searchField.setCaretColor(currentTheme.textPrimary);
         
-        // Add date filter
-        DatePicker dateFilterPicker = new DatePicker();
-        dateFilterPicker.setPreferredSize(new Dimension(120, 35));
-        dateFilterPicker.addPropertyChangeListener("date", e -> searchBorrowings());
+        // Add date filter: which date column, then a from/to day range
+        dateFieldCombo = new JComboBox<>(DATE_FILTER_OPTIONS);
+        dateFieldCombo.setFont(CONTENT_FONT);
+        dateFieldCombo.addActionListener(e -> searchBorrowings());
+        dateFromPicker = new DatePicker();
+        dateFromPicker.setPreferredSize(new Dimension(120, 35));
+        dateFromPicker.addPropertyChangeListener("date", e -> {
+            dateToPicker.setDate(dateFromPicker.getDate());
+        });
+        dateToPicker = new DatePicker();
+        dateToPicker.setPreferredSize(new Dimension(120, 35));
+        dateToPicker.addPropertyChangeListener("date", e -> {
+            if (dateFieldCombo.getSelectedIndex() > 0) {
+                searchBorrowings();
+            }
+        });
         JLabel dateLabel = new JLabel("Filter by Date:");
         dateLabel.setFont(CONTENT_FONT);
         dateLabel.setForeground(currentTheme.textPrimary);
+        JLabel toLabel = new JLabel("to");
+        toLabel.setFont(CONTENT_FONT);
+        toLabel.setForeground(currentTheme.textPrimary);
         searchPanel.add(dateLabel);
-        searchPanel.add(dateFilterPicker);
+        searchPanel.add(dateFieldCombo);
+        searchPanel.add(dateFromPicker);
+        searchPanel.add(toLabel);
+        searchPanel.add(dateToPicker);
         
         // Add All button
         JButton allButton = createStyledButton("All", PRIMARY_COLOR);
         allButton.setPreferredSize(new Dimension(80, 35));
         allButton.addActionListener(e -> {
-            // Clear search field
+            // Clear search field and date filter
             searchField.setText("");
-            // Load all borrowings directly
-            try {
-                tableModel.setRowCount(0);
-                List<Borrowing> borrowings = borrowingDAO.getAllBorrowings();
-                for (Borrowing borrowing : borrowings) {
-                    Object[] row = {
-                        borrowing.getBorrowingId(),
-                        borrowing.getBookTitle(),
-                        borrowing.getStudentName(),
-                        borrowing.getCourseName(),
-                        borrowing.getYearLevel(),
-                        borrowing.getCouncilName(),
-                        borrowing.getBorrowDate(),
-                        borrowing.getDueDate(),
-                        borrowing.getReturnDate(),
-                        borrowing.getStatus(),
-                        borrowing.getFineAmount()
-                    };
-                    tableModel.addRow(row);
-                }
-            } catch (SQLException ex) {
-                JOptionPane.showMessageDialog(BorrowingPanel.this,
-                    "Error loading borrowings: " + ex.getMessage(),
-                    "Database Error",
-                    JOptionPane.ERROR_MESSAGE);
-            }
+            dateFieldCombo.setSelectedIndex(0);
+            // Load all borrowings, one block at a time
+            tableModel.setSource(borrowingDAO::getAllBorrowingsPage);
         });
         searchPanel.add(allButton);
         
@@ -284,16 +307,19 @@ public class BorrowingPanel extends JPanel {
         
         JButton borrowButton = createStyledButton("+ Borrow Book", ACCENT_COLOR);
         JButton returnButton = createStyledButton("Return Book", PRIMARY_COLOR);
+        JButton batchButton = createStyledButton("Batch Mode", PRIMARY_COLOR);
         JButton historyButton = createStyledButton("Transaction History", PRIMARY_COLOR);
         
         borrowButton.setPreferredSize(new Dimension(160, 35));
         returnButton.setPreferredSize(new Dimension(160, 35));
+        batchButton.setPreferredSize(new Dimension(160, 35));
         historyButton.setPreferredSize(new Dimension(160, 35));
         
         // Only show buttons in specific modes
         if ("all".equals(mode) || "borrowed".equals(mode)) {
             buttonsPanel.add(borrowButton);
             buttonsPanel.add(returnButton);
+            buttonsPanel.add(batchButton);
         }
         
         // Add history button if not already in history mode
@@ -303,6 +329,7 @@ public class BorrowingPanel extends JPanel {
         
         searchPanel.add(searchField);
         searchPanel.add(searchButton);
+        searchPanel.add(loadingIndicator);
         
         topPanel.add(searchPanel, BorderLayout.WEST);
         topPanel.add(buttonsPanel, BorderLayout.EAST);
@@ -313,12 +340,7 @@ public class BorrowingPanel extends JPanel {
             "Borrow Date", "Due Date", "Return Date", "Status", "Fine"
         };
         
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = createBorrowingsModel(columns);
         borrowingsTable = new JTable(tableModel);
         styleTable(borrowingsTable);
         
@@ -384,6 +406,7 @@ public class BorrowingPanel extends JPanel {
                                                                     100)));
         scrollPane.getViewport().setBackground(currentTheme.cardBackground);
         scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+        tableModel.attachTo(scrollPane);
         
         // Add components to main panel
         add(topPanel, BorderLayout.NORTH);
@@ -392,6 +415,7 @@ public class BorrowingPanel extends JPanel {
         // Add action listeners
         borrowButton.addActionListener(e -> showBorrowDialog());
         returnButton.addActionListener(e -> returnSelectedBook());
+        batchButton.addActionListener(e -> showBatchDialog());
         searchButton.addActionListener(e -> searchBorrowings());
         historyButton.addActionListener(e -> showTransactionHistory());
         searchField.addKeyListener(new KeyAdapter() {
@@ -434,12 +458,7 @@ public class BorrowingPanel extends JPanel {
             "Borrow Date", "Due Date", "Return Date", "Status", "Fine"
         };
         
-        DefaultTableModel historyTableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        LazyTableModel<Borrowing> historyTableModel = createBorrowingsModel(columns);
         
         JTable historyTable = new JTable(historyTableModel);
         styleTable(historyTable);
@@ -453,6 +472,7 @@ public class BorrowingPanel extends JPanel {
         JScrollPane tableScrollPane = new JScrollPane(historyTable);
         tableScrollPane.setBorder(BorderFactory.createLineBorder(new Color(220, 220, 220)));
         tableScrollPane.getViewport().setBackground(Color.WHITE);
+        historyTableModel.attachTo(tableScrollPane);
         
         // Create buttons panel
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
@@ -546,49 +566,8 @@ public class BorrowingPanel extends JPanel {
         }
     }
     
-    private void loadHistoryData(DefaultTableModel model, String historyMode) {
-        model.setRowCount(0);
-        try {
-            List<Borrowing> borrowings;
-            switch (historyMode) {
-                case "borrowed":
-                    borrowings = borrowingDAO.getActiveBorrowings();
-                    break;
-                case "overdue":
-                    borrowings = borrowingDAO.getOverdueBorrowings();
-                    break;
-                case "returns":
-                    // Show only returned books
-                    borrowings = borrowingDAO.getAllBorrowings().stream()
-                        .filter(b -> "Returned".equals(b.getStatus()))
-                        .collect(java.util.stream.Collectors.toList());
-                    break;
-                default:
-                    borrowings = borrowingDAO.getAllBorrowings();
-            }
-            
-            for (Borrowing borrowing : borrowings) {
-                Object[] row = {
-                    borrowing.getBorrowingId(),
-                    borrowing.getBookTitle(),
-                    borrowing.getStudentName(),
-                    borrowing.getCourseName(),
-                    borrowing.getYearLevel(),
-                    borrowing.getCouncilName(),
-                    borrowing.getBorrowDate(),
-                    borrowing.getDueDate(),
-                    borrowing.getReturnDate(),
-                    borrowing.getStatus(),
-                    borrowing.getFineAmount()
-                };
-                model.addRow(row);
-            }
-        } catch (SQLException ex) {
-            JOptionPane.showMessageDialog(null,
-                "Error loading transaction history: " + ex.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+    private void loadHistoryData(LazyTableModel<Borrowing> model, String historyMode) {
+        startModeLoad(model, historyMode);
     }
     
     private JButton createStyledButton(String text, Color backgroundColor) {
@@ -659,6 +638,9 @@ public class BorrowingPanel extends JPanel {
             @Override
             public Component getTableCellRendererComponent(JTable table, Object value,
                     boolean isSelected, boolean hasFocus, int row, int column) {
+                if (value instanceof Date) {
+                    value = DateFormats.formatDateTime((Date) value);
+                }
                 Component c = DEFAULT_RENDERER.getTableCellRendererComponent(
                     table, value, isSelected, hasFocus, row, column);
                 
@@ -685,50 +667,52 @@ public class BorrowingPanel extends JPanel {
     }
     
     private void loadBorrowings() {
-        tableModel.setRowCount(0);
-        try {
-            List<Borrowing> borrowings;
-            switch (mode) {
-                case "borrowed":
-                    borrowings = borrowingDAO.getActiveBorrowings();
-                    break;
-                case "overdue":
-                    borrowings = borrowingDAO.getOverdueBorrowings();
-                    break;
-                case "returns":
-                    // Show only returned books
-                    borrowings = borrowingDAO.getAllBorrowings().stream()
-                        .filter(b -> "Returned".equals(b.getStatus()))
-                        .collect(java.util.stream.Collectors.toList());
-                    break;
-                case "history":
-                    borrowings = borrowingDAO.getAllBorrowings();
-                    break;
-                default:
-                    borrowings = borrowingDAO.getAllBorrowings();
-            }
-            
-            for (Borrowing borrowing : borrowings) {
-                Object[] row = {
-                    borrowing.getBorrowingId(),
-                    borrowing.getBookTitle(),
-                    borrowing.getStudentName(),
-                    borrowing.getCourseName(),
-                    borrowing.getYearLevel(),
-                    borrowing.getCouncilName(),
-                    borrowing.getBorrowDate(),
-                    borrowing.getDueDate(),
-                    borrowing.getReturnDate(),
-                    borrowing.getStatus(),
-                    borrowing.getFineAmount()
-                };
-                tableModel.addRow(row);
-            }
-        } catch (SQLException ex) {
+        startModeLoad(tableModel, mode);
+    }
+    
+    private void startModeLoad(LazyTableModel<Borrowing> model, String loadMode) {
+        switch (loadMode) {
+            case "borrowed":
+                model.setSource(borrowingDAO::getActiveBorrowingsPage);
+                break;
+            case "overdue":
+                model.setSource(borrowingDAO::getOverdueBorrowingsPage);
+                break;
+            case "returns":
+                model.setSource(borrowingDAO::getReturnedBorrowingsPage);
+                break;
+            default:
+                model.setSource(borrowingDAO::getAllBorrowingsPage);
+        }
+    }
+    
+    private LazyTableModel<Borrowing> createBorrowingsModel(String[] columns) {
+        LazyTableModel<Borrowing> model = new LazyTableModel<>(columns, BorrowingPanel::borrowingColumn);
+        model.setIndicator(loadingIndicator);
+        model.setErrorHandler(ex -> {
+            ex.printStackTrace();
             JOptionPane.showMessageDialog(this,
                 "Error loading borrowings: " + ex.getMessage(),
                 "Database Error",
                 JOptionPane.ERROR_MESSAGE);
+        });
+        return model;
+    }
+    
+    private static Object borrowingColumn(Borrowing borrowing, int column) {
+        switch (column) {
+            case 0: return borrowing.getBorrowingId();
+            case 1: return borrowing.getBookTitle();
+            case 2: return borrowing.getStudentName();
+            case 3: return borrowing.getCourseName();
+            case 4: return borrowing.getYearLevel();
+            case 5: return borrowing.getCouncilName();
+            case 6: return borrowing.getBorrowDate();
+            case 7: return borrowing.getDueDate();
+            case 8: return borrowing.getReturnDate();
+            case 9: return borrowing.getStatusLabel();
+            case 10: return borrowing.getFineAmount();
+            default: return null;
         }
     }
     
@@ -741,6 +725,8 @@ public class BorrowingPanel extends JPanel {
         // Create main panel
         JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
         mainPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
+        AsyncLoader borrowLoader = new AsyncLoader(mainPanel);
+        AsyncLoader studentLoader = new AsyncLoader(null);
         
         // Create search panel
         JPanel searchPanel = new JPanel(new BorderLayout(5, 0));
@@ -775,22 +761,22 @@ public class BorrowingPanel extends JPanel {
         studentIdField.addFocusListener(new FocusAdapter() {
             @Override
             public void focusLost(FocusEvent e) {
-                try {
-                    String studentIdNumber = studentIdField.getText().trim();
-                    if (!studentIdNumber.isEmpty()) {
-                        Student student = studentDAO.getStudentByIdNumber(studentIdNumber);
-                        if (student != null) {
-                            studentNameLabel.setText(student.getFirstName() + " " + student.getLastName());
-                            studentNameLabel.setForeground(Color.BLUE);
-                        } else {
-                            studentNameLabel.setText("Student not found");
-                            studentNameLabel.setForeground(Color.RED);
-                        }
+                String studentIdNumber = studentIdField.getText().trim();
+                if (studentIdNumber.isEmpty()) {
+                    return;
+                }
+                studentLoader.load(() -> studentDAO.getStudentByIdNumber(studentIdNumber), student -> {
+                    if (student != null) {
+                        studentNameLabel.setText(student.getFirstName() + " " + student.getLastName());
+                        studentNameLabel.setForeground(Color.BLUE);
+                    } else {
+                        studentNameLabel.setText("Student not found");
+                        studentNameLabel.setForeground(Color.RED);
                     }
-                } catch (SQLException ex) {
+                }, ex -> {
                     studentNameLabel.setText("Error checking student");
                     studentNameLabel.setForeground(Color.RED);
-                }
+                });
             }
         });
         
@@ -834,75 +820,80 @@ public class BorrowingPanel extends JPanel {
         java.util.Map<String, Integer> bookIds = new java.util.HashMap<>();
         
         // Search action
-        ActionListener searchAction = e -> {
-            String searchTerm = searchField.getText().trim();
+        Consumer<List<Book>> showBooks = books -> {
             bookListModel.clear();
             bookIds.clear();
-            try {
-                List<Book> books = bookDAO.searchBooks(searchTerm);
-                for (Book book : books) {
-                    if (book.getAvailableQuantity() > 0) {
-                        String displayText = String.format("[%d] %s - %s (Available: %d)",
-                            book.getBookId(), book.getTitle(), book.getIsbn(), 
-                            book.getAvailableQuantity());
-                        bookListModel.addElement(displayText);
-                        bookIds.put(displayText, book.getBookId());
-                    }
+            for (Book book : books) {
+                if (book.getAvailableQuantity() > 0) {
+                    String displayText = String.format("[%d] %s - %s (Available: %d)",
+                        book.getBookId(), book.getTitle(), book.getIsbn(), 
+                        book.getAvailableQuantity());
+                    bookListModel.addElement(displayText);
+                    bookIds.put(displayText, book.getBookId());
                 }
-            } catch (SQLException ex) {
-                JOptionPane.showMessageDialog(dialog,
-                    "Error searching books: " + ex.getMessage(),
-                    "Search Error",
-                    JOptionPane.ERROR_MESSAGE);
             }
         };
+        Consumer<Exception> showSearchError = ex -> JOptionPane.showMessageDialog(dialog,
+            "Error searching books: " + ex.getMessage(),
+            "Search Error",
+            JOptionPane.ERROR_MESSAGE);
+        
+        // Searches as the user types; an empty field lists every available book
+        TypeAheadSearch<Book> bookSearch = new TypeAheadSearch<>(searchField, bookDAO::searchBooks, showBooks);
+        bookSearch.setErrorHandler(showSearchError);
+        bookSearch.setClearedList(() -> BookCatalogCache.getInstance().getAvailableBooks());
         
-        searchButton.addActionListener(searchAction);
-        searchField.addActionListener(searchAction); // Allow search on Enter key
+        searchButton.addActionListener(e -> bookSearch.searchNow());
+        searchField.addActionListener(e -> bookSearch.searchNow()); // Allow search on Enter key
         
         // Borrow action
         borrowButton.addActionListener(e -> {
-            try {
-                // Validate book selection
-                String selectedBook = bookList.getSelectedValue();
-                if (selectedBook == null) {
-                    JOptionPane.showMessageDialog(dialog,
-                        "Please select a book to borrow",
-                        "Selection Required",
-                        JOptionPane.WARNING_MESSAGE);
-                    return;
-                }
-                
-                // Validate student
-                String studentIdNumber = studentIdField.getText().trim();
-                if (studentIdNumber.isEmpty()) {
-                    JOptionPane.showMessageDialog(dialog,
-                        "Please enter a Student ID Number",
-                        "Input Required",
-                        JOptionPane.WARNING_MESSAGE);
-                    return;
-                }
-                
+            // Validate book selection
+            String selectedBook = bookList.getSelectedValue();
+            if (selectedBook == null) {
+                JOptionPane.showMessageDialog(dialog,
+                    "Please select a book to borrow",
+                    "Selection Required",
+                    JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            
+            // Validate student
+            String studentIdNumber = studentIdField.getText().trim();
+            if (studentIdNumber.isEmpty()) {
+                JOptionPane.showMessageDialog(dialog,
+                    "Please enter a Student ID Number",
+                    "Input Required",
+                    JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            
+            int bookId = bookIds.get(selectedBook);
+            Date dueDate = dueDatePicker.getDate();
+            borrowButton.setEnabled(false);
+            // null when the student does not exist
+            borrowLoader.load(() -> {
                 Student student = studentDAO.getStudentByIdNumber(studentIdNumber);
                 if (student == null) {
-                    JOptionPane.showMessageDialog(dialog,
-                        "Invalid Student ID Number. Student not found.",
-                        "Student Not Found",
-                        JOptionPane.ERROR_MESSAGE);
-                    return;
+                    return null;
                 }
                 
-                int bookId = bookIds.get(selectedBook);
-                
                 Borrowing borrowing = new Borrowing();
                 borrowing.setBookId(bookId);
                 borrowing.setStudentId(student.getStudentId()); // Use the internal student ID
                 borrowing.setBorrowDate(new Date()); // Use current timestamp
-                borrowing.setDueDate(dueDatePicker.getDate());
+                borrowing.setDueDate(dueDate);
                 borrowing.setAdminId(adminId);
                 borrowing.setStatus("Borrowed"); // Set initial status to 'Borrowed'
-                
-                if (borrowingDAO.addBorrowing(borrowing)) {
+                return borrowingDAO.addBorrowing(borrowing);
+            }, borrowed -> {
+                borrowButton.setEnabled(true);
+                if (borrowed == null) {
+                    JOptionPane.showMessageDialog(dialog,
+                        "Invalid Student ID Number. Student not found.",
+                        "Student Not Found",
+                        JOptionPane.ERROR_MESSAGE);
+                } else if (borrowed) {
                     JOptionPane.showMessageDialog(dialog,
                         "Book borrowed successfully",
                         "Success",
@@ -915,12 +906,23 @@ public class BorrowingPanel extends JPanel {
                         "Error",
                         JOptionPane.ERROR_MESSAGE);
                 }
-            } catch (SQLException ex) {
-                JOptionPane.showMessageDialog(dialog,
-                    "Database error: " + ex.getMessage(),
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE);
-            }
+            }, ex -> {
+                borrowButton.setEnabled(true);
+                if (ex instanceof BookUnavailableException) {
+                    // Someone else took the last copy since the list was loaded
+                    JOptionPane.showMessageDialog(dialog,
+                        "No copies of this book are left. The list has been refreshed.",
+                        "Book Unavailable",
+                        JOptionPane.WARNING_MESSAGE);
+                    bookSearch.invalidate();
+                    bookSearch.searchNow();
+                } else {
+                    JOptionPane.showMessageDialog(dialog,
+                        "Database error: " + ex.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            });
         });
         
         cancelButton.addActionListener(e -> dialog.dispose());
@@ -930,11 +932,12 @@ public class BorrowingPanel extends JPanel {
         dialog.add(buttonPanel, BorderLayout.SOUTH);
         
         // Initial search to populate list
-        searchField.setText("");
-        searchAction.actionPerformed(null);
+        bookSearch.searchNow();
         
         dialog.setLocationRelativeTo(this);
         dialog.setVisible(true);
+        bookSearch.cancel();
+        studentLoader.cancel();
     }
     
     private void returnSelectedBook() {
@@ -947,103 +950,245 @@ public class BorrowingPanel extends JPanel {
             return;
         }
         
-        // Get the borrowing ID as Integer and convert to String
-        Integer borrowId = (Integer) borrowingsTable.getValueAt(selectedRow, 0);
-        String borrowIdStr = borrowId.toString();
+        Borrowing selected = tableModel.getItem(selectedRow);
+        if (selected == null) {
+            return; // its block is still loading
+        }
         
         int confirm = JOptionPane.showConfirmDialog(this,
             "Are you sure you want to return this book?",
             "Confirm Return",
             JOptionPane.YES_NO_OPTION);
             
-        if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                if (borrowingDAO.returnBook(borrowIdStr)) {
+        if (confirm == JOptionPane.YES_OPTION && !returnLoader.isLoading()) {
+            returnLoader.load(() -> borrowingDAO.returnBook(selected), returned -> {
+                if (returned) {
                     JOptionPane.showMessageDialog(this,
                         "Book returned successfully",
                         "Success",
                         JOptionPane.INFORMATION_MESSAGE);
-                    loadBorrowings();
                 } else {
                     JOptionPane.showMessageDialog(this,
-                        "Failed to return book",
-                        "Error",
-                        JOptionPane.ERROR_MESSAGE);
+                        "This book has already been returned",
+                        "Already Returned",
+                        JOptionPane.WARNING_MESSAGE);
                 }
-            } catch (SQLException ex) {
-                JOptionPane.showMessageDialog(this,
-                    "Error returning book: " + ex.getMessage(),
-                    "Database Error",
-                    JOptionPane.ERROR_MESSAGE);
-            }
+                loadBorrowings();
+            }, ex -> JOptionPane.showMessageDialog(this,
+                "Error returning book: " + ex.getMessage(),
+                "Database Error",
+                JOptionPane.ERROR_MESSAGE));
         }
     }
     
-    private void searchBorrowings() {
-        String searchTerm = searchField.getText().trim().toLowerCase();
-        Date filterDate = null;
-        Component[] components = searchPanel.getComponents();
-        for (Component c : components) {
-            if (c instanceof DatePicker) {
-                filterDate = ((DatePicker) c).getDate();
-                break;
+    private void showBatchDialog() {
+        Frame parentFrame = (Frame) SwingUtilities.getWindowAncestor(this);
+        JDialog dialog = new JDialog(parentFrame, "Batch Mode", true);
+        dialog.setLayout(new BorderLayout(10, 10));
+        dialog.setSize(450, 500);
+        
+        JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
+        mainPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
+        // A batch touches the database once per step, not per line, but
+        // still runs off the EDT so a large one doesn't freeze the dialog
+        AsyncLoader batchLoader = new AsyncLoader(mainPanel);
+        
+        // Mode and, for checkouts, the book and due date shared by every line
+        JPanel formPanel = new JPanel(new GridBagLayout());
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(5, 5, 5, 5);
+        
+        gbc.gridx = 0; gbc.gridy = 0;
+        formPanel.add(new JLabel("Mode:"), gbc);
+        JComboBox<String> modeCombo = new JComboBox<>(new String[] {"Return", "Checkout"});
+        gbc.gridx = 1;
+        formPanel.add(modeCombo, gbc);
+        
+        gbc.gridx = 0; gbc.gridy = 1;
+        JLabel isbnLabel = new JLabel("Book ISBN:");
+        formPanel.add(isbnLabel, gbc);
+        JTextField isbnField = new JTextField(20);
+        gbc.gridx = 1;
+        formPanel.add(isbnField, gbc);
+        
+        gbc.gridx = 0; gbc.gridy = 2;
+        JLabel dueDateLabel = new JLabel("Due Date:");
+        formPanel.add(dueDateLabel, gbc);
+        Calendar cal = Calendar.getInstance();
+        cal.add(Calendar.DAY_OF_MONTH, 14);
+        DatePicker dueDatePicker = new DatePicker(cal.getTime());
+        gbc.gridx = 1;
+        formPanel.add(dueDatePicker, gbc);
+        
+        // Scanned IDs, one per line
+        JLabel idsLabel = new JLabel();
+        JTextArea idsArea = new JTextArea();
+        JPanel idsPanel = new JPanel(new BorderLayout(5, 5));
+        idsPanel.add(idsLabel, BorderLayout.NORTH);
+        idsPanel.add(new JScrollPane(idsArea), BorderLayout.CENTER);
+        
+        Runnable updateMode = () -> {
+            boolean checkout = modeCombo.getSelectedIndex() == 1;
+            isbnLabel.setVisible(checkout);
+            isbnField.setVisible(checkout);
+            dueDateLabel.setVisible(checkout);
+            dueDatePicker.setVisible(checkout);
+            idsLabel.setText(checkout ? "Student ID Numbers (one per line):" : "Borrowing IDs (one per line):");
+        };
+        modeCombo.addActionListener(e -> updateMode.run());
+        updateMode.run();
+        
+        mainPanel.add(formPanel, BorderLayout.NORTH);
+        mainPanel.add(idsPanel, BorderLayout.CENTER);
+        
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton processButton = new JButton("Process");
+        JButton closeButton = new JButton("Close");
+        buttonPanel.add(processButton);
+        buttonPanel.add(closeButton);
+        
+        processButton.addActionListener(e -> {
+            List<String> lines = new ArrayList<>();
+            for (String line : idsArea.getText().split("\\R")) {
+                if (!line.trim().isEmpty()) {
+                    lines.add(line.trim());
+                }
+            }
+            if (lines.isEmpty()) {
+                JOptionPane.showMessageDialog(dialog,
+                    "Please scan or enter at least one ID",
+                    "Input Required",
+                    JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            
+            boolean checkout = modeCombo.getSelectedIndex() == 1;
+            String isbn = isbnField.getText().trim();
+            Date dueDate = dueDatePicker.getDate();
+            processButton.setEnabled(false);
+            batchLoader.load(() -> checkout
+                    ? processBatchCheckout(isbn, dueDate, lines)
+                    : processBatchReturn(lines),
+                report -> {
+                    processButton.setEnabled(true);
+                    if (report == null) {
+                        JOptionPane.showMessageDialog(dialog,
+                            "Please enter the ISBN of an existing book",
+                            "Book Not Found",
+                            JOptionPane.WARNING_MESSAGE);
+                        return;
+                    }
+                    idsArea.setText("");
+                    showBatchReport(dialog, report);
+                    loadBorrowings();
+                },
+                ex -> {
+                    processButton.setEnabled(true);
+                    JOptionPane.showMessageDialog(dialog,
+                        "Database error: " + ex.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                });
+        });
+        closeButton.addActionListener(e -> dialog.dispose());
+        
+        dialog.add(mainPanel, BorderLayout.CENTER);
+        dialog.add(buttonPanel, BorderLayout.SOUTH);
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+    }
+    
+    // Runs on a loader thread. Returns every valid ID in one call; the report
+    // lists each line's outcome
+    private String processBatchReturn(List<String> lines) throws SQLException {
+        List<Integer> borrowingIds = new ArrayList<>();
+        List<String> accepted = new ArrayList<>();
+        StringBuilder report = new StringBuilder();
+        for (String line : lines) {
+            try {
+                borrowingIds.add(Integer.parseInt(line));
+                accepted.add(line);
+            } catch (NumberFormatException ex) {
+                report.append(line).append(": Invalid ID\n");
             }
         }
         
-        tableModel.setRowCount(0);
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+        BatchResult result = borrowingDAO.returnBatch(borrowingIds);
+        for (int i = 0; i < result.size(); i++) {
+            report.append(accepted.get(i)).append(": ").append(result.getOutcome(i)).append('\n');
+        }
+        return String.format("Returned %d of %d%n%n%s", result.getDoneCount(), lines.size(), report);
+    }
+    
+    // Runs on a loader thread. Checks one title out to every listed student
+    // in one call; null if the book could not be found
+    private String processBatchCheckout(String isbn, Date dueDate, List<String> lines) throws SQLException {
+        Book book = isbn.isEmpty() ? null : bookDAO.findByIsbn(isbn);
+        if (book == null) {
+            return null;
+        }
         
-        try {
-            // If date is selected, get all borrowings and filter by date
-            List<Borrowing> borrowings;
-            if (filterDate != null) {
-                borrowings = borrowingDAO.getAllBorrowings();
-            } else {
-                // If no date selected, use search term
-                borrowings = borrowingDAO.searchBorrowings(searchTerm);
+        Map<String, Student> students = studentDAO.getStudentsByIdNumbers(lines);
+        List<Borrowing> borrowings = new ArrayList<>();
+        List<String> accepted = new ArrayList<>();
+        StringBuilder report = new StringBuilder();
+        Date now = new Date();
+        for (String line : lines) {
+            Student student = students.get(line);
+            if (student == null) {
+                report.append(line).append(": Student not found\n");
+                continue;
             }
-
-            for (Borrowing borrowing : borrowings) {
-                boolean shouldAdd = true;
-                
-                // Apply date filter if selected
-                if (filterDate != null && borrowing.getBorrowDate() != null) {
-                    String borrowDateStr = sdf.format(borrowing.getBorrowDate());
-                    String filterDateStr = sdf.format(filterDate);
-                    shouldAdd = borrowDateStr.equals(filterDateStr);
-                }
-                
-                // Apply text search if date not selected
-                if (filterDate == null && !searchTerm.isEmpty()) {
-                    String bookTitle = borrowing.getBookTitle() != null ? borrowing.getBookTitle().toLowerCase() : "";
-                    String studentName = borrowing.getStudentName() != null ? borrowing.getStudentName().toLowerCase() : "";
-                    shouldAdd = bookTitle.contains(searchTerm) || studentName.contains(searchTerm);
-                }
-                
-                if (shouldAdd) {
-                    Object[] row = {
-                        borrowing.getBorrowingId(),
-                        borrowing.getBookTitle(),
-                        borrowing.getStudentName(),
-                        borrowing.getCourseName(),
-                        borrowing.getYearLevel(),
-                        borrowing.getCouncilName(),
-                        borrowing.getBorrowDate(),
-                        borrowing.getDueDate(),
-                        borrowing.getReturnDate(),
-                        borrowing.getStatus(),
-                        borrowing.getFineAmount()
-                    };
-                    tableModel.addRow(row);
-                }
+            Borrowing borrowing = new Borrowing();
+            borrowing.setBookId(book.getBookId());
+            borrowing.setStudentId(student.getStudentId());
+            borrowing.setBorrowDate(now);
+            borrowing.setDueDate(dueDate);
+            borrowing.setAdminId(adminId);
+            borrowing.setStatus("Borrowed");
+            borrowings.add(borrowing);
+            accepted.add(line);
+        }
+        
+        BatchResult result = borrowingDAO.checkoutBatch(borrowings);
+        for (int i = 0; i < result.size(); i++) {
+            report.append(accepted.get(i)).append(": ").append(result.getOutcome(i)).append('\n');
+        }
+        return String.format("Checked out %d of %d copies of %s%n%n%s",
+            result.getDoneCount(), lines.size(), book.getTitle(), report);
+    }
+    
+    private void showBatchReport(JDialog dialog, String report) {
+        JTextArea reportArea = new JTextArea(report, 15, 35);
+        reportArea.setEditable(false);
+        JOptionPane.showMessageDialog(dialog,
+            new JScrollPane(reportArea),
+            "Batch Result",
+            JOptionPane.INFORMATION_MESSAGE);
+    }
+    
+    private void searchBorrowings() {
+        BorrowingQuery query = BorrowingQuery.all().text(searchField.getText());
+        
+        // The range is whole days, from the start of the first day up to the
+        // start of the day after the last one
+        BorrowingQuery.DateField dateField = DATE_FILTER_FIELDS[dateFieldCombo.getSelectedIndex()];
+        if (dateField != null) {
+            LocalDate from = toLocalDate(dateFromPicker.getDate());
+            LocalDate to = toLocalDate(dateToPicker.getDate());
+            if (to.isBefore(from)) {
+                LocalDate swap = from;
+                from = to;
+                to = swap;
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                "Error searching borrowings: " + e.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
+            query.onDays(dateField, from, to);
         }
+        tableModel.setSource((cursor, size) -> borrowingDAO.findBorrowingsPage(query, cursor, size));
+    }
+    
+    private static LocalDate toLocalDate(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
     }
     
     private JPanel createFormField(String label, JComponent field) {
@@ -1069,6 +1214,9 @@ public class BorrowingPanel extends JPanel {
                 JOptionPane.WARNING_MESSAGE);
             return;
         }
+        if (tableModel.getItem(selectedRow) == null) {
+            return; // its block is still loading
+        }
         
         // Create details dialog
         JDialog dialog = new JDialog((Frame) SwingUtilities.getWindowAncestor(this),
@@ -1174,8 +1322,11 @@ public class BorrowingPanel extends JPanel {
             return;
         }
         
-        // Get the borrowing ID
-        int borrowingId = (Integer) tableModel.getValueAt(selectedRow, 0);
+        Borrowing selectedBorrowing = tableModel.getItem(selectedRow);
+        if (selectedBorrowing == null) {
+            return; // its block is still loading
+        }
+        int borrowingId = selectedBorrowing.getBorrowingId();
         
         // Create edit dialog
         JDialog dialog = new JDialog((Frame) SwingUtilities.getWindowAncestor(this),
@@ -1200,8 +1351,15 @@ public class BorrowingPanel extends JPanel {
         // Status
         gbc.gridx = 0; gbc.gridy = 1;
         formPanel.add(new JLabel("Status:"), gbc);
-        JComboBox<String> statusCombo = new JComboBox<>(new String[]{"Borrowed", "Returned", "Overdue"});
-        statusCombo.setSelectedItem(tableModel.getValueAt(selectedRow, 9)); // Status column
+        // Returning and reopening go through Return Book, which also moves
+        // the copy and the circulation counts
+        boolean returned = selectedBorrowing.getBorrowingStatus() == BorrowingStatus.RETURNED;
+        JComboBox<String> statusCombo = new JComboBox<>(returned
+                ? new String[]{"Returned"}
+                : new String[]{"Borrowed", "Overdue"});
+        if (selectedBorrowing.getBorrowingStatus() != null) {
+            statusCombo.setSelectedItem(selectedBorrowing.getBorrowingStatus().getLabel());
+        }
         gbc.gridx = 1;
         formPanel.add(statusCombo, gbc);
         
@@ -1213,13 +1371,15 @@ public class BorrowingPanel extends JPanel {
         buttonPanel.add(cancelButton);
         
         // Add action listeners
+        AsyncLoader saveLoader = new AsyncLoader(formPanel);
         saveButton.addActionListener(e -> {
-            try {
-                // Update the borrowing
-                String status = (String) statusCombo.getSelectedItem();
-                Date dueDate = dueDatePicker.getDate();
-                
-                if (borrowingDAO.updateBorrowing(borrowingId, status, dueDate)) {
+            // Update the borrowing
+            String status = (String) statusCombo.getSelectedItem();
+            Date dueDate = dueDatePicker.getDate();
+            saveButton.setEnabled(false);
+            saveLoader.load(() -> borrowingDAO.updateBorrowing(borrowingId, status, dueDate), updated -> {
+                saveButton.setEnabled(true);
+                if (updated) {
                     JOptionPane.showMessageDialog(dialog,
                         "Borrowing updated successfully",
                         "Success",
@@ -1232,12 +1392,13 @@ public class BorrowingPanel extends JPanel {
                         "Error",
                         JOptionPane.ERROR_MESSAGE);
                 }
-            } catch (SQLException ex) {
+            }, ex -> {
+                saveButton.setEnabled(true);
                 JOptionPane.showMessageDialog(dialog,
                     "Database error: " + ex.getMessage(),
                     "Error",
                     JOptionPane.ERROR_MESSAGE);
-            }
+            });
         });
         
         cancelButton.addActionListener(e -> dialog.dispose());
@@ -17,6 +17,8 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
@@ -25,6 +27,7 @@ import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.JTable;
@@ -38,6 +41,7 @@ import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 
+import com.library.components.AsyncLoader;
 import com.library.util.DatabaseConnection;
 import com.library.util.Theme;
 
@@ -47,6 +51,9 @@ public class CouncilPanel extends JPanel {
     private DefaultTableModel tableModel;
     private JTable courseTable;
     private DefaultTableModel courseTableModel;
+    private final AsyncLoader councilLoader = new AsyncLoader(this);
+    private final AsyncLoader courseLoader = new AsyncLoader(this);
+    private final JProgressBar loadingIndicator = AsyncLoader.createIndicator();
     
     // Theme constants
     private static final Theme LIGHT_THEME = new Theme(
@@ -239,6 +246,9 @@ public class CouncilPanel extends JPanel {
         });
         
         topPanel.add(themeToggle);
+        topPanel.add(loadingIndicator);
+        councilLoader.setIndicator(loadingIndicator);
+        courseLoader.setIndicator(loadingIndicator);
         add(topPanel, BorderLayout.NORTH);
 
         // Split pane for councils and courses
@@ -439,26 +449,22 @@ public class CouncilPanel extends JPanel {
     }
 
     private void loadCouncils() {
-        tableModel.setRowCount(0);
-        try (Connection conn = DatabaseConnection.getConnection(); Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT * FROM councils ORDER BY council_name")) {
-
-            while (rs.next()) {
-                Object[] row = {
-                    rs.getInt("council_id"),
-                    rs.getString("council_name"),
-                    rs.getString("description")
-                };
-                tableModel.addRow(row);
+        councilLoader.load(() -> {
+            List<Object[]> rows = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection(); Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT * FROM councils ORDER BY council_name")) {
+
+                while (rs.next()) {
+                    Object[] row = {
+                        rs.getInt("council_id"),
+                        rs.getString("council_name"),
+                        rs.getString("description")
+                    };
+                    rows.add(row);
+                }
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                    "Error loading councils: " + e.getMessage(),
-                    "Database Error",
-                    JOptionPane.ERROR_MESSAGE);
-        }
+            return rows;
+        }, rows -> fillTable(tableModel, rows), "Error loading councils");
     }
-
     private void loadCoursesForSelectedCouncil() {
         int selectedRow = councilTable.getSelectedRow();
         if (selectedRow == -1) {
@@ -466,28 +472,33 @@ public class CouncilPanel extends JPanel {
         }
 
         int councilId = (int) councilTable.getValueAt(selectedRow, 0);
-        courseTableModel.setRowCount(0);
-
-        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(
-                "SELECT * FROM courses WHERE council_id = ? AND active = TRUE ORDER BY course_name")) {
 
-            pstmt.setInt(1, councilId);
-            ResultSet rs = pstmt.executeQuery();
+        // A newer selection supersedes the courses still loading for the old one
+        courseLoader.load(() -> {
+            List<Object[]> rows = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT * FROM courses WHERE council_id = ? AND active = TRUE ORDER BY course_name")) {
 
-            while (rs.next()) {
-                Object[] row = {
-                    rs.getInt("course_id"),
-                    rs.getString("course_code"),
-                    rs.getString("course_name")
-                };
-                courseTableModel.addRow(row);
+                pstmt.setInt(1, councilId);
+                ResultSet rs = pstmt.executeQuery();
+
+                while (rs.next()) {
+                    Object[] row = {
+                        rs.getInt("course_id"),
+                        rs.getString("course_code"),
+                        rs.getString("course_name")
+                    };
+                    rows.add(row);
+                }
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                    "Error loading courses: " + e.getMessage(),
-                    "Database Error",
-                    JOptionPane.ERROR_MESSAGE);
+            return rows;
+        }, rows -> fillTable(courseTableModel, rows), "Error loading courses");
+    }
+
+    private void fillTable(DefaultTableModel model, List<Object[]> rows) {
+        model.setRowCount(0);
+        for (Object[] row : rows) {
+            model.addRow(row);
         }
     }
 
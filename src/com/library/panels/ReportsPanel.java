@@ -19,6 +19,10 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.swing.AbstractCellEditor;
 import javax.swing.BorderFactory;
@@ -32,6 +36,7 @@ import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.JTextArea;
@@ -40,8 +45,6 @@ import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
 import javax.swing.border.AbstractBorder;
 import javax.swing.border.EmptyBorder;
-import javax.swing.event.DocumentEvent;
-import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
@@ -50,7 +53,11 @@ import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableColumnModel;
 
+import com.library.components.AsyncLoader;
+import com.library.components.TypeAheadSearch;
+import com.library.dao.BookCatalogCache;
 import com.library.dao.BookDAO;
+import com.library.dao.QueryCanceller;
 import com.library.dao.StudentDAO;
 import com.library.main.MainFrame;
 import com.library.models.Book;
@@ -89,6 +96,8 @@ public class ReportsPanel extends JPanel {
     // Add table model
     private DefaultTableModel tableModel;
     private JTable reportsTable;
+    private final AsyncLoader reportsLoader = new AsyncLoader(this);
+    private final JProgressBar loadingIndicator = AsyncLoader.createIndicator();
 
     public ReportsPanel() {
         this(null);
@@ -202,6 +211,8 @@ public class ReportsPanel extends JPanel {
 
         titlePanel.add(iconLabel);
         titlePanel.add(titleLabel);
+        titlePanel.add(loadingIndicator);
+        reportsLoader.setIndicator(loadingIndicator);
         topPanel.add(titlePanel, BorderLayout.WEST);
 
         // Action buttons panel
@@ -366,7 +377,17 @@ public class ReportsPanel extends JPanel {
     }
 
     private void loadReports() {
-        tableModel.setRowCount(0);
+        reportsLoader.load(this::fetchReportRows, rows -> {
+            tableModel.setRowCount(0);
+            for (Object[] row : rows) {
+                tableModel.addRow(row);
+            }
+        }, e -> showError("Error loading reports: " + e.getMessage()));
+    }
+
+    // Runs on a loader thread
+    private List<Object[]> fetchReportRows() throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
         try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(
                 "SELECT r.*, b.title, a.username FROM reports r "
                 + "LEFT JOIN books b ON r.book_id = b.book_id "
@@ -383,11 +404,10 @@ public class ReportsPanel extends JPanel {
                     formatDate(rs.getTimestamp("created_at")),
                     "actions"
                 };
-                tableModel.addRow(row);
+                rows.add(row);
             }
-        } catch (SQLException e) {
-            showError("Error loading reports: " + e.getMessage());
         }
+        return rows;
     }
 
     // Add these methods for report actions
@@ -488,62 +508,52 @@ public class ReportsPanel extends JPanel {
             pricePanel.setVisible(showPrice);
         });
 
+        AsyncLoader submitLoader = new AsyncLoader(panel);
         submitBtn.addActionListener(e -> {
-            try {
-                String searchTerm = searchField.getText().trim();
-                Book book = bookDAO.findByIsbn(searchTerm);
-                String reportType = (String) typeCombo.getSelectedItem();
-                boolean needsPrice = "Lost".equalsIgnoreCase(reportType) || "Stolen".equalsIgnoreCase(reportType) || "Damaged".equalsIgnoreCase(reportType);
-                double price = 0.0;
-                if (needsPrice) {
-                    if (priceField.getText().trim().isEmpty()) {
-                        JOptionPane.showMessageDialog(dialog, "Price is required for this report type.", "Missing Price", JOptionPane.ERROR_MESSAGE);
-                        return;
-                    }
-                    try {
-                        price = Double.parseDouble(priceField.getText().trim());
-                        if (price <= 0) {
-                            throw new NumberFormatException();
-                        }
-                    } catch (NumberFormatException ex) {
-                        JOptionPane.showMessageDialog(dialog, "Please enter a valid positive price.", "Invalid Price", JOptionPane.ERROR_MESSAGE);
-                        return;
+            String searchTerm = searchField.getText().trim();
+            String reportType = (String) typeCombo.getSelectedItem();
+            boolean needsPrice = "Lost".equalsIgnoreCase(reportType) || "Stolen".equalsIgnoreCase(reportType) || "Damaged".equalsIgnoreCase(reportType);
+            double price = 0.0;
+            if (needsPrice) {
+                if (priceField.getText().trim().isEmpty()) {
+                    JOptionPane.showMessageDialog(dialog, "Price is required for this report type.", "Missing Price", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                try {
+                    price = Double.parseDouble(priceField.getText().trim());
+                    if (price <= 0) {
+                        throw new NumberFormatException();
                     }
+                } catch (NumberFormatException ex) {
+                    JOptionPane.showMessageDialog(dialog, "Please enter a valid positive price.", "Invalid Price", JOptionPane.ERROR_MESSAGE);
+                    return;
                 }
-                if (book != null) {
-                    try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(
-                            "INSERT INTO reports (report_type, book_id, person_type, person_id, description, processed_by, status) VALUES (?, ?, ?, ?, ?, ?, 'Pending')")) {
-                        pstmt.setString(1, reportType);
-                        pstmt.setInt(2, book.getBookId());
-                        pstmt.setString(3, (String) lostByCombo.getSelectedItem());
-                        pstmt.setString(4, personField.getText().trim());
-                        pstmt.setString(5, descArea.getText());
-                        pstmt.setInt(6, MainFrame.getCurrentAdminId());
-                        pstmt.executeUpdate();
-                        // If lost, decrease book quantity by 1
-                        if ("Lost".equalsIgnoreCase(reportType)) {
-                            try (PreparedStatement updateStmt = conn.prepareStatement(
-                                    "UPDATE books SET quantity = quantity - 1, available_quantity = GREATEST(available_quantity - 1, 0) WHERE book_id = ? AND quantity > 0")) {
-                                updateStmt.setInt(1, book.getBookId());
-                                updateStmt.executeUpdate();
-                            }
-                        }
+            }
+            String personType = (String) lostByCombo.getSelectedItem();
+            String personId = personField.getText().trim();
+            String description = descArea.getText();
+            submitBtn.setEnabled(false);
+            submitLoader.load(() -> submitBookReport(searchTerm, reportType, personType, personId, description),
+                submitted -> {
+                    submitBtn.setEnabled(true);
+                    if (submitted) {
                         JOptionPane.showMessageDialog(dialog,
                                 "Report submitted successfully",
                                 "Success",
                                 JOptionPane.INFORMATION_MESSAGE);
                         loadReports();
                         dialog.dispose();
+                    } else {
+                        JOptionPane.showMessageDialog(dialog,
+                                "Book not found",
+                                "Error",
+                                JOptionPane.ERROR_MESSAGE);
                     }
-                } else {
-                    JOptionPane.showMessageDialog(dialog,
-                            "Book not found",
-                            "Error",
-                            JOptionPane.ERROR_MESSAGE);
-                }
-            } catch (SQLException ex) {
-                showError("Error submitting report: " + ex.getMessage());
-            }
+                },
+                ex -> {
+                    submitBtn.setEnabled(true);
+                    showError("Error submitting report: " + ex.getMessage());
+                });
         });
 
         // Add field validation
@@ -558,42 +568,31 @@ public class ReportsPanel extends JPanel {
             }
         });
 
-        // Add ID field validation
-        personField.getDocument().addDocumentListener(new DocumentListener() {
-            public void changedUpdate(DocumentEvent e) {
-                validateId();
-            }
-
-            public void removeUpdate(DocumentEvent e) {
-                validateId();
+        // Add ID field validation, looked up once typing pauses
+        AtomicReference<String> lookupType = new AtomicReference<>((String) lostByCombo.getSelectedItem());
+        TypeAheadSearch<String> idLookup = new TypeAheadSearch<>(personField, (id, canceller) -> {
+            String info = null;
+            if ("Student".equals(lookupType.get())) {
+                info = getStudentInfo(id, canceller);
+            } else if ("Personnel".equals(lookupType.get())) {
+                info = getPersonnelInfo(id, canceller);
             }
-
-            public void insertUpdate(DocumentEvent e) {
-                validateId();
+            return info != null ? Collections.singletonList(info) : Collections.emptyList();
+        }, matches -> {
+            if (!matches.isEmpty()) {
+                personField.setForeground(new Color(0, 120, 0));  // Green for valid
+                personField.setToolTipText(matches.get(0));
+            } else {
+                personField.setForeground(Color.RED);  // Red for invalid
+                personField.setToolTipText("ID not found");
             }
-
-            private void validateId() {
-                String id = personField.getText().trim();
-                String type = (String) lostByCombo.getSelectedItem();
-
-                if (id.isEmpty()) {
-                    return;
-                }
-
-                String info = null;
-                if ("Student".equals(type)) {
-                    info = getStudentInfo(id);
-                } else if ("Personnel".equals(type)) {
-                    info = getPersonnelInfo(id);
-                }
-
-                if (info != null) {
-                    personField.setForeground(new Color(0, 120, 0));  // Green for valid
-                    personField.setToolTipText(info);
-                } else {
-                    personField.setForeground(Color.RED);  // Red for invalid
-                    personField.setToolTipText("ID not found");
-                }
+        });
+        idLookup.setOnCleared(() -> { });
+        lostByCombo.addActionListener(e -> {
+            lookupType.set((String) lostByCombo.getSelectedItem());
+            idLookup.invalidate();
+            if (!personField.getText().trim().isEmpty()) {
+                idLookup.searchNow();
             }
         });
 
@@ -619,6 +618,40 @@ public class ReportsPanel extends JPanel {
 
         dialog.add(panel);
         dialog.setVisible(true);
+        idLookup.cancel();
+    }
+
+    // Runs on a loader thread. Returns false if no book has the ID or ISBN.
+    private boolean submitBookReport(String searchTerm, String reportType, String personType, String personId,
+                                     String description) throws SQLException {
+        Book book = BookCatalogCache.getInstance().getBookByIsbn(searchTerm);
+        if (book == null) {
+            book = bookDAO.findByIsbn(searchTerm);
+        }
+        if (book == null) {
+            return false;
+        }
+        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO reports (report_type, book_id, person_type, person_id, description, processed_by, status) VALUES (?, ?, ?, ?, ?, ?, 'Pending')")) {
+            pstmt.setString(1, reportType);
+            pstmt.setInt(2, book.getBookId());
+            pstmt.setString(3, personType);
+            pstmt.setString(4, personId);
+            pstmt.setString(5, description);
+            pstmt.setInt(6, MainFrame.getCurrentAdminId());
+            pstmt.executeUpdate();
+            // If lost, decrease book quantity by 1
+            if ("Lost".equalsIgnoreCase(reportType)) {
+                try (PreparedStatement updateStmt = conn.prepareStatement(
+                        "UPDATE books SET quantity = quantity - 1, available_quantity = GREATEST(available_quantity - 1, 0) WHERE book_id = ? AND quantity > 0")) {
+                    updateStmt.setInt(1, book.getBookId());
+                    if (updateStmt.executeUpdate() > 0) {
+                        BookCatalogCache.getInstance().copyLost(book.getBookId());
+                    }
+                }
+            }
+        }
+        return true;
     }
 
     private void showStudentReportDialog() {
@@ -729,12 +762,14 @@ public class ReportsPanel extends JPanel {
     }
 
     // Add this method to fetch personnel info
-    private String getPersonnelInfo(String id) {
+    private String getPersonnelInfo(String id, QueryCanceller canceller) {
         try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(
                 "SELECT username, email FROM admins WHERE admin_id = ?")) {
 
             pstmt.setString(1, id);
+            canceller.attach(pstmt);
             ResultSet rs = pstmt.executeQuery();
+            canceller.detach(pstmt);
 
             if (rs.next()) {
                 return String.format("%s (%s)",
@@ -748,12 +783,14 @@ public class ReportsPanel extends JPanel {
     }
 
     // Add this method to fetch student info
-    private String getStudentInfo(String id) {
+    private String getStudentInfo(String id, QueryCanceller canceller) {
         try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(
                 "SELECT CONCAT(first_name, ' ', last_name) as name, id_number, email FROM students WHERE id_number = ?")) {
 
             pstmt.setString(1, id);
+            canceller.attach(pstmt);
             ResultSet rs = pstmt.executeQuery();
+            canceller.detach(pstmt);
 
             if (rs.next()) {
                 return String.format("%s (%s - %s)",
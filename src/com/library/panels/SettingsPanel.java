@@ -45,7 +45,11 @@ import javax.swing.JTextField;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
 
+import com.library.dao.BookCatalogCache;
+import com.library.dao.CirculationDAO;
+import com.library.dao.DashboardStatsService;
 import com.library.util.DatabaseConnection;
+import com.library.util.FinePolicy;
 import com.library.util.Theme;
 
 public class SettingsPanel extends JPanel {
@@ -626,6 +630,8 @@ public class SettingsPanel extends JPanel {
             pstmt.setString(2, String.valueOf(emailNotificationsCheck.isSelected()));
             pstmt.executeUpdate();
             
+            FinePolicy.reload();
+            
             JOptionPane.showMessageDialog(this,
                 "Settings saved successfully",
                 "Success",
@@ -815,6 +821,10 @@ public class SettingsPanel extends JPanel {
                             "Restore Complete",
                             JOptionPane.INFORMATION_MESSAGE);
                         loadSettings(); // Reload settings after restore
+                        BookCatalogCache.getInstance().invalidate();
+                        // The restored borrowings need a fresh circulation rollup
+                        new CirculationDAO().rebuild();
+                        DashboardStatsService.getInstance().invalidate();
 
                 } catch (Exception e) {
                     e.printStackTrace();
@@ -1,5 +1,8 @@
 package com.library.panels;
 
+import com.library.components.AsyncLoader;
+import com.library.components.LazyTableModel;
+import com.library.components.TypeAheadSearch;
 import com.library.dao.StudentDAO;
 import com.library.models.Student;
 import com.library.util.DatabaseConnection;
@@ -10,6 +13,7 @@ import java.awt.*;
 import java.awt.event.*;
 import java.sql.*;
 import java.util.List;
+import java.util.Locale;
 import javax.swing.border.EmptyBorder;
 import com.toedter.calendar.JDateChooser;
 import java.io.File;
@@ -24,7 +28,7 @@ import com.library.util.ExcelTemplateUtil;
 
 public class StudentPanel extends JPanel {
     private JTable studentTable;
-    private DefaultTableModel tableModel;
+    private LazyTableModel<Student> tableModel;
     private JTextField searchField;
     private StudentDAO studentDAO;
     private JComboBox<String> councilCombo;
@@ -46,6 +50,9 @@ public class StudentPanel extends JPanel {
     
     // Components that need theme updates
     private JScrollPane tableScrollPane;
+    private final JProgressBar loadingIndicator = AsyncLoader.createIndicator();
+    private final AsyncLoader actionLoader = new AsyncLoader(this);
+    private TypeAheadSearch<Student> studentSearch;
     private JPanel topPanel;
     
     public StudentPanel() {
@@ -229,6 +236,7 @@ public class StudentPanel extends JPanel {
         searchField.setCaretColor(currentTheme.textPrimary);
         
         searchPanel.add(searchField);
+        searchPanel.add(loadingIndicator);
         
         topPanel.add(searchPanel, BorderLayout.WEST);
         topPanel.add(buttonPanel, BorderLayout.EAST);
@@ -238,12 +246,15 @@ public class StudentPanel extends JPanel {
             "ID", "Student ID", "Name", "Course", "Council",
             "Year Level", "School Year", "Contact", "Email", "Status"
         };
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new LazyTableModel<>(columns, StudentPanel::studentColumn);
+        tableModel.setIndicator(loadingIndicator);
+        tableModel.setErrorHandler(e -> {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this,
+                "Error loading students: " + e.getMessage(),
+                "Database Error",
+                JOptionPane.ERROR_MESSAGE);
+        });
         studentTable = new JTable(tableModel);
         styleTable(studentTable);
         
@@ -267,6 +278,7 @@ public class StudentPanel extends JPanel {
         
         // Scroll pane with modern styling
         tableScrollPane = new JScrollPane(studentTable);
+        tableModel.attachTo(tableScrollPane);
         tableScrollPane.setBorder(BorderFactory.createLineBorder(new Color(currentTheme.textSecondary.getRed(), 
                                                                          currentTheme.textSecondary.getGreen(), 
                                                                          currentTheme.textSecondary.getBlue(), 
@@ -278,14 +290,14 @@ public class StudentPanel extends JPanel {
         add(tableScrollPane, BorderLayout.CENTER);
         
         // Add action listeners
-        searchField.addKeyListener(new KeyAdapter() {
-            @Override
-            public void keyPressed(KeyEvent e) {
-                if (e.getKeyCode() == KeyEvent.VK_ENTER) {
-                    searchStudents();
-                }
-            }
-        });
+        // Searches as the user types; Enter searches at once
+        studentSearch = new TypeAheadSearch<>(searchField, studentDAO::searchStudents,
+            students -> tableModel.setList(() -> students));
+        studentSearch.setNarrower(StudentPanel::matchesSearch);
+        studentSearch.setOnCleared(this::loadStudents);
+        studentSearch.setIndicator(loadingIndicator);
+        studentSearch.setErrorHandler(this::showSearchError);
+        searchField.addActionListener(e -> studentSearch.searchNow());
         
         editItem.addActionListener(e -> editSelectedStudent());
         deleteItem.addActionListener(e -> deleteSelectedStudent());
@@ -394,60 +406,49 @@ public class StudentPanel extends JPanel {
     }
     
     private void loadStudents() {
-        tableModel.setRowCount(0);
-        try {
-            List<Student> students = studentDAO.getAllStudents();
-            for (Student student : students) {
-                Object[] row = {
-                    student.getStudentId(),
-                    student.getIdNumber(),
-                    student.getFullName(),
-                    student.getCourseName(),
-                    student.getCouncilName(),
-                    student.getYearLevel(),
-                    student.getSchoolYear(),
-                    student.getContactNumber(),
-                    student.getEmail(),
-                    student.getStatus()
-                };
-                tableModel.addRow(row);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                "Error loading students: " + e.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+        // Rows are fetched a block at a time as the table scrolls
+        tableModel.setSource(studentDAO::getStudentsPage);
     }
     
-    private void searchStudents() {
-        String searchTerm = searchField.getText().trim();
-        tableModel.setRowCount(0);
-        
-        try {
-            List<Student> students = studentDAO.searchStudents(searchTerm);
-            for (Student student : students) {
-                Object[] row = {
-                    student.getStudentId(),
-                    student.getIdNumber(),
-                    student.getFullName(),
-                    student.getCourseName(),
-                    student.getCouncilName(),
-                    student.getYearLevel(),
-                    student.getSchoolYear(),
-                    student.getContactNumber(),
-                    student.getEmail(),
-                    student.getStatus()
-                };
-                tableModel.addRow(row);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                "Error searching students: " + e.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
+    // Students changed: cached search results are stale
+    private void refreshStudents() {
+        studentSearch.invalidate();
+        loadStudents();
+    }
+    
+    // Same match as StudentDAO.searchStudents (LIKE '%term%' on ID number,
+    // full name and email), so a longer term can narrow an earlier result
+    private static boolean matchesSearch(Student student, String term) {
+        return contains(student.getIdNumber(), term)
+            || contains(student.getFirstName() + " " + student.getLastName(), term)
+            || contains(student.getEmail(), term);
+    }
+    
+    private static boolean contains(String value, String term) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(term);
+    }
+    
+    private void showSearchError(Exception e) {
+        e.printStackTrace();
+        JOptionPane.showMessageDialog(this,
+            "Error searching students: " + e.getMessage(),
+            "Database Error",
+            JOptionPane.ERROR_MESSAGE);
+    }
+    
+    private static Object studentColumn(Student student, int column) {
+        switch (column) {
+            case 0: return student.getStudentId();
+            case 1: return student.getIdNumber();
+            case 2: return student.getFullName();
+            case 3: return student.getCourseName();
+            case 4: return student.getCouncilName();
+            case 5: return student.getYearLevel();
+            case 6: return student.getSchoolYear();
+            case 7: return student.getContactNumber();
+            case 8: return student.getEmail();
+            case 9: return student.getStatus();
+            default: return null;
         }
     }
     
@@ -561,37 +562,36 @@ public class StudentPanel extends JPanel {
         }
         
         // Add action listeners
+        AsyncLoader saveLoader = new AsyncLoader(mainPanel);
         saveButton.addActionListener(e -> {
-            try {
-                Student newStudent = student == null ? new Student() : student;
-                newStudent.setIdNumber(idField.getText());
-                newStudent.setFirstName(firstNameField.getText());
-                newStudent.setLastName(lastNameField.getText());
-                newStudent.setYearLevel(yearLevelCombo.getSelectedItem().toString());
-                newStudent.setSchoolYear(schoolYearField.getText());
-                newStudent.setContactNumber(contactField.getText());
-                newStudent.setEmail(emailField.getText());
-                newStudent.setStatus(statusCombo.getSelectedItem().toString());
-                
+            Student newStudent = student == null ? new Student() : student;
+            newStudent.setIdNumber(idField.getText());
+            newStudent.setFirstName(firstNameField.getText());
+            newStudent.setLastName(lastNameField.getText());
+            newStudent.setYearLevel(yearLevelCombo.getSelectedItem().toString());
+            newStudent.setSchoolYear(schoolYearField.getText());
+            newStudent.setContactNumber(contactField.getText());
+            newStudent.setEmail(emailField.getText());
+            newStudent.setStatus(statusCombo.getSelectedItem().toString());
+            String councilName = councilCombo.getSelectedItem().toString();
+            String courseName = courseCombo.getSelectedItem().toString();
+            
+            saveButton.setEnabled(false);
+            saveLoader.load(() -> {
                 // Get selected council and course IDs
-                setStudentCouncilAndCourse(newStudent);
-                
-                if (student == null) {
-                    studentDAO.addStudent(newStudent);
-                } else {
-                    studentDAO.updateStudent(newStudent);
-                }
-                
-                loadStudents();
+                setStudentCouncilAndCourse(newStudent, councilName, courseName);
+                return student == null ? studentDAO.addStudent(newStudent) : studentDAO.updateStudent(newStudent);
+            }, saved -> {
+                refreshStudents();
                 dialog.dispose();
-                
-            } catch (SQLException ex) {
+            }, ex -> {
+                saveButton.setEnabled(true);
                 ex.printStackTrace();
                 JOptionPane.showMessageDialog(dialog,
                     "Error saving student: " + ex.getMessage(),
                     "Database Error",
                     JOptionPane.ERROR_MESSAGE);
-            }
+            });
         });
         
         cancelButton.addActionListener(e -> dialog.dispose());
@@ -655,12 +655,14 @@ public class StudentPanel extends JPanel {
         }
     }
     
-    private void setStudentCouncilAndCourse(Student student) throws SQLException {
+    // Runs on a loader thread, so the names are read from the combos first
+    private void setStudentCouncilAndCourse(Student student, String councilName, String courseName)
+            throws SQLException {
         try (Connection conn = DatabaseConnection.getConnection()) {
             // Get council ID
             String councilQuery = "SELECT council_id FROM councils WHERE council_name = ?";
             PreparedStatement pstmt = conn.prepareStatement(councilQuery);
-            pstmt.setString(1, councilCombo.getSelectedItem().toString());
+            pstmt.setString(1, councilName);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
                 student.setCouncilId(rs.getInt("council_id"));
@@ -669,7 +671,7 @@ public class StudentPanel extends JPanel {
             // Get course ID
             String courseQuery = "SELECT course_id FROM courses WHERE course_name = ?";
             pstmt = conn.prepareStatement(courseQuery);
-            pstmt.setString(1, courseCombo.getSelectedItem().toString());
+            pstmt.setString(1, courseName);
             rs = pstmt.executeQuery();
             if (rs.next()) {
                 student.setCourseId(rs.getInt("course_id"));
@@ -680,19 +682,22 @@ public class StudentPanel extends JPanel {
     private void editSelectedStudent() {
         int selectedRow = studentTable.getSelectedRow();
         if (selectedRow >= 0) {
-            int studentId = (int) tableModel.getValueAt(selectedRow, 0);
-            try {
-                Student student = studentDAO.getStudentById(studentId);
+            Student selected = tableModel.getItem(selectedRow);
+            if (selected == null) {
+                return; // its block is still loading
+            }
+            int studentId = selected.getStudentId();
+            actionLoader.load(() -> studentDAO.getStudentById(studentId), student -> {
                 if (student != null) {
                     showStudentDialog(student);
                 }
-            } catch (SQLException e) {
+            }, e -> {
                 e.printStackTrace();
                 JOptionPane.showMessageDialog(this,
                     "Error loading student details: " + e.getMessage(),
                     "Database Error",
                     JOptionPane.ERROR_MESSAGE);
-            }
+            });
         }
     }
     
@@ -706,7 +711,11 @@ public class StudentPanel extends JPanel {
             return;
         }
 
-        int studentId = (int) studentTable.getValueAt(selectedRow, 0);
+        Student selected = tableModel.getItem(selectedRow);
+        if (selected == null) {
+            return; // its block is still loading
+        }
+        int studentId = selected.getStudentId();
         String studentName = (String) studentTable.getValueAt(selectedRow, 1);
 
         int confirm = JOptionPane.showConfirmDialog(this,
@@ -715,16 +724,18 @@ public class StudentPanel extends JPanel {
             JOptionPane.YES_NO_OPTION,
             JOptionPane.WARNING_MESSAGE);
 
-        if (confirm == JOptionPane.YES_OPTION) {
-            try {
+        if (confirm == JOptionPane.YES_OPTION && !actionLoader.isLoading()) {
+            actionLoader.load(() -> {
                 studentDAO.deleteStudent(studentId);
-                loadStudents(); // Refresh table
+                return null;
+            }, deleted -> {
+                refreshStudents(); // Refresh table
                 JOptionPane.showMessageDialog(this,
                     "Student deleted successfully",
                     "Success",
                     JOptionPane.INFORMATION_MESSAGE);
-            } catch (SQLException e) {
-                String errorMessage = e.getMessage();
+            }, e -> {
+                String errorMessage = String.valueOf(e.getMessage());
                 if (errorMessage.contains("borrowed books")) {
                     JOptionPane.showMessageDialog(this,
                         "Cannot delete this student because they have borrowed books that haven't been returned.\n" +
@@ -737,26 +748,29 @@ public class StudentPanel extends JPanel {
                         "Database Error",
                         JOptionPane.ERROR_MESSAGE);
                 }
-            }
+            });
         }
     }
     
     private void viewSelectedStudent() {
         int selectedRow = studentTable.getSelectedRow();
         if (selectedRow >= 0) {
-            int studentId = (int) tableModel.getValueAt(selectedRow, 0);
-            try {
-                Student student = studentDAO.getStudentById(studentId);
+            Student selected = tableModel.getItem(selectedRow);
+            if (selected == null) {
+                return; // its block is still loading
+            }
+            int studentId = selected.getStudentId();
+            actionLoader.load(() -> studentDAO.getStudentById(studentId), student -> {
                 if (student != null) {
                     showStudentDetailsDialog(student);
                 }
-            } catch (SQLException e) {
+            }, e -> {
                 e.printStackTrace();
                 JOptionPane.showMessageDialog(this,
                     "Error loading student details: " + e.getMessage(),
                     "Database Error",
                     JOptionPane.ERROR_MESSAGE);
-            }
+            });
         }
     }
     
@@ -957,29 +971,32 @@ public class StudentPanel extends JPanel {
         JButton importButton = new JButton("Import");
         JButton cancelButton = new JButton("Cancel");
         
+        AsyncLoader importLoader = new AsyncLoader(mainPanel);
         importButton.addActionListener(e -> {
-            try {
+            importButton.setEnabled(false);
+            importLoader.load(() -> {
                 int successCount = 0;
                 for (Student student : students) {
                     if (studentDAO.addStudent(student)) {
                         successCount++;
                     }
                 }
-                
-                loadStudents(); // Refresh table
+                return successCount;
+            }, successCount -> {
+                refreshStudents(); // Refresh table
                 dialog.dispose();
                 
                 JOptionPane.showMessageDialog(this,
                     successCount + " students imported successfully",
                     "Import Complete",
                     JOptionPane.INFORMATION_MESSAGE);
-                
-            } catch (SQLException ex) {
+            }, ex -> {
+                importButton.setEnabled(true);
                 JOptionPane.showMessageDialog(this,
                     "Error importing students: " + ex.getMessage(),
                     "Import Error",
                     JOptionPane.ERROR_MESSAGE);
-            }
+            });
         });
         
         cancelButton.addActionListener(e -> dialog.dispose());
@@ -993,8 +1010,7 @@ public class StudentPanel extends JPanel {
     }
     
     private void downloadStudentList() {
-        try {
-            List<Student> students = studentDAO.getAllStudents();
+        actionLoader.load(studentDAO::getAllStudents, students -> {
             if (students.isEmpty()) {
                 JOptionPane.showMessageDialog(this,
                     "No students found to export",
@@ -1003,12 +1019,12 @@ public class StudentPanel extends JPanel {
                 return;
             }
             ExcelTemplateUtil.exportStudentList(students);
-        } catch (SQLException e) {
+        }, e -> {
             e.printStackTrace();
             JOptionPane.showMessageDialog(this,
                 "Error retrieving student data: " + e.getMessage(),
                 "Database Error",
                 JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
 } 
\ No newline at end of file
@@ -0,0 +1,8 @@
+-- AuditLogger.searchLogsPage reads newest first, keyed on (timestamp, log_id),
+-- optionally filtered by action; the full-text index serves the details search
+-- (MATCH ... AGAINST in boolean mode). InnoDB appends the primary key to
+-- secondary indexes, so both indexes also order ties by log_id.
+ALTER TABLE audit_log
+    ADD INDEX idx_audit_log_timestamp (`timestamp`),
+    ADD INDEX idx_audit_log_action_timestamp (action, `timestamp`),
+    ADD FULLTEXT INDEX ft_audit_log_details (details);
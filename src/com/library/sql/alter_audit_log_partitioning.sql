@@ -0,0 +1,51 @@
+-- Optional, for installations where audit_log has grown large: partitions the
+-- table by month so old months can be dropped as a whole instead of deleted
+-- row by row. Run after alter_audit_log_indexes.sql and
+-- alter_audit_log_timestamp.sql.
+--
+-- Trade-off: InnoDB does not allow foreign keys or FULLTEXT indexes on
+-- partitioned tables, so this drops both.
+--  * book, student and admin ids are no longer checked against their tables.
+--  * Text searches still find admins by name through the admin_id index, but
+--    the details are matched with LIKE (AuditLogger detects the missing
+--    index). That reads newest first along idx_audit_log_timestamp and stops
+--    at a page of matches, and a date range prunes it to the months asked
+--    for, but a rare word can still read a large part of the table. Leave
+--    the table unpartitioned where searching the details matters more than
+--    cheap retention.
+-- Every unique key must include the partitioning column, so the primary key
+-- becomes (log_id, timestamp).
+ALTER TABLE audit_log
+    DROP FOREIGN KEY audit_log_ibfk_1,
+    DROP FOREIGN KEY audit_log_ibfk_2,
+    DROP FOREIGN KEY audit_log_ibfk_3,
+    DROP INDEX ft_audit_log_details;
+
+ALTER TABLE audit_log
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (log_id, `timestamp`);
+
+-- One partition per month from the oldest entry to two months ahead, named
+-- pYYYYMM as AuditRetentionJob expects; the job splits further months out of
+-- pmax as they come up.
+SET SESSION group_concat_max_len = 1000000;
+
+SET @audit_partitions = (
+    WITH RECURSIVE months (first_day) AS (
+        SELECT CAST(DATE_FORMAT(COALESCE(MIN(`timestamp`), CURRENT_DATE), '%Y-%m-01') AS DATE)
+        FROM audit_log
+        UNION ALL
+        SELECT first_day + INTERVAL 1 MONTH FROM months
+        WHERE first_day < CURRENT_DATE + INTERVAL 2 MONTH - INTERVAL DAY(CURRENT_DATE) - 1 DAY
+    )
+    SELECT GROUP_CONCAT(CONCAT('PARTITION p', DATE_FORMAT(first_day, '%Y%m'),
+                               ' VALUES LESS THAN (TO_DAYS(''', first_day + INTERVAL 1 MONTH, '''))')
+                        ORDER BY first_day SEPARATOR ', ')
+    FROM months
+);
+
+SET @audit_partitioning = CONCAT('ALTER TABLE audit_log PARTITION BY RANGE (TO_DAYS(`timestamp`)) (',
+                                 @audit_partitions, ', PARTITION pmax VALUES LESS THAN MAXVALUE)');
+PREPARE audit_partitioning FROM @audit_partitioning;
+EXECUTE audit_partitioning;
+DEALLOCATE PREPARE audit_partitioning;
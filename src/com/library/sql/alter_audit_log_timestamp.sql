@@ -0,0 +1,21 @@
+-- Audit searches page and seek on (timestamp, log_id), which skips rows with
+-- a NULL timestamp and cannot encode a cursor for one, and partitioning by
+-- month needs the column too. Every insert sets it, so backfill any old NULLs
+-- from the entry logged just before (log_id follows insertion order), or the
+-- oldest entry when there is none, and make the column required.
+UPDATE audit_log l
+JOIN (
+    SELECT DISTINCT n.log_id,
+        COALESCE(
+            (SELECT p.`timestamp` FROM audit_log p
+             WHERE p.log_id < n.log_id AND p.`timestamp` IS NOT NULL
+             ORDER BY p.log_id DESC LIMIT 1),
+            (SELECT MIN(o.`timestamp`) FROM audit_log o),
+            CURRENT_TIMESTAMP) AS filled
+    FROM audit_log n
+    WHERE n.`timestamp` IS NULL
+) f ON f.log_id = l.log_id
+SET l.`timestamp` = f.filled;
+
+ALTER TABLE audit_log
+    MODIFY `timestamp` datetime NOT NULL DEFAULT current_timestamp();
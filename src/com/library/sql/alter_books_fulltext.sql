@@ -0,0 +1,3 @@
+-- Full-text index used by BookDAO.searchBooks (MATCH ... AGAINST in boolean mode)
+ALTER TABLE books
+ADD FULLTEXT INDEX ft_books_search (title, author, isbn);
@@ -0,0 +1,5 @@
+-- BookDAO.searchBooks matches the start of the title for words shorter than
+-- the FULLTEXT minimum token size (innodb_ft_min_token_size, 3 by default),
+-- and whenever ft_books_search is not installed.
+ALTER TABLE books
+ADD INDEX idx_books_title (title);
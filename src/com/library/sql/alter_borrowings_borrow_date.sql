@@ -0,0 +1,10 @@
+-- Keyset pages order and seek on (borrow_date, borrowing_id), which skips
+-- rows with a NULL borrow_date and cannot encode a cursor for one. Every
+-- insert sets the date, so backfill any old NULLs from the due date less the
+-- default 14 day loan and make the column required.
+UPDATE borrowings
+SET borrow_date = due_date - INTERVAL 14 DAY
+WHERE borrow_date IS NULL;
+
+ALTER TABLE borrowings
+    MODIFY borrow_date DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP;
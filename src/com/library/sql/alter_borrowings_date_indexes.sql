@@ -0,0 +1,6 @@
+-- Date filters in BorrowingPanel search on due_date or return_date with a
+-- half-open range (col >= day AND col < next day); borrow_date ranges use
+-- idx_borrowings_borrow_date from alter_borrowings_indexes.sql.
+ALTER TABLE borrowings
+    ADD INDEX idx_borrowings_due_date (due_date),
+    ADD INDEX idx_borrowings_return_date (return_date);
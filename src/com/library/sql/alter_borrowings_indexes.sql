@@ -0,0 +1,21 @@
+-- Composite indexes for the hot borrowing queries.
+-- (status, due_date): overdue list and the dashboard overdue/borrowed counts
+-- (book_id, status): BookDAO.deleteBook's active-borrow check
+-- (student_id, status): a student's current loans
+-- (borrow_date, borrowing_id): keyset pages, newest first
+-- The composite keys start with the FK columns, so the single-column
+-- book_id/student_id keys become redundant and are dropped.
+ALTER TABLE borrowings
+    ADD INDEX idx_borrowings_status_due (status, due_date),
+    ADD INDEX idx_borrowings_book_status (book_id, status),
+    ADD INDEX idx_borrowings_student_status (student_id, status),
+    ADD INDEX idx_borrowings_borrow_date (borrow_date, borrowing_id);
+
+ALTER TABLE borrowings
+    DROP INDEX book_id,
+    DROP INDEX student_id;
+
+-- StudentDAO.getStudentsPage keyset order and the active student count
+ALTER TABLE students
+    ADD INDEX idx_students_active_name (active, last_name, first_name, student_id),
+    ADD INDEX idx_students_status (status);
@@ -0,0 +1,49 @@
+-- Daily circulation rollup read by the dashboard charts.
+-- Borrows are counted by BorrowingDAO on checkout; returns are counted by the
+-- trigger below whenever a borrowing's return_date is set or moved, so a return
+-- is a single UPDATE. CirculationDAO.rebuild() backfills it.
+CREATE TABLE IF NOT EXISTS circulation_daily (
+    day DATE NOT NULL,
+    book_id INT NOT NULL,
+    council_id INT NOT NULL DEFAULT 0,
+    borrow_count INT NOT NULL DEFAULT 0,
+    return_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, book_id, council_id),
+    KEY idx_circulation_book_day (book_id, day)
+);
+
+DROP TRIGGER IF EXISTS borrowings_return_rollup;
+DELIMITER //
+CREATE TRIGGER borrowings_return_rollup AFTER UPDATE ON borrowings FOR EACH ROW
+BEGIN
+    IF NOT (OLD.return_date <=> NEW.return_date AND OLD.book_id <=> NEW.book_id) THEN
+        IF OLD.return_date IS NOT NULL AND OLD.book_id IS NOT NULL THEN
+            UPDATE circulation_daily SET return_count = return_count - 1
+            WHERE day = DATE(OLD.return_date) AND book_id = OLD.book_id AND return_count > 0
+              AND council_id = COALESCE((SELECT council_id FROM students WHERE student_id = OLD.student_id), 0);
+        END IF;
+        IF NEW.return_date IS NOT NULL AND NEW.book_id IS NOT NULL THEN
+            INSERT INTO circulation_daily (day, book_id, council_id, borrow_count, return_count)
+            VALUES (DATE(NEW.return_date), NEW.book_id,
+                    COALESCE((SELECT council_id FROM students WHERE student_id = NEW.student_id), 0), 0, 1)
+            ON DUPLICATE KEY UPDATE return_count = return_count + 1;
+        END IF;
+    END IF;
+END //
+DELIMITER ;
+
+-- Backfill from existing borrowings
+DELETE FROM circulation_daily;
+
+INSERT INTO circulation_daily (day, book_id, council_id, borrow_count, return_count)
+SELECT DATE(b.borrow_date), b.book_id, COALESCE(s.council_id, 0), COUNT(*), 0
+FROM borrowings b LEFT JOIN students s ON b.student_id = s.student_id
+WHERE b.book_id IS NOT NULL AND b.borrow_date IS NOT NULL
+GROUP BY DATE(b.borrow_date), b.book_id, COALESCE(s.council_id, 0);
+
+INSERT INTO circulation_daily (day, book_id, council_id, borrow_count, return_count)
+SELECT DATE(b.return_date), b.book_id, COALESCE(s.council_id, 0), 0, COUNT(*)
+FROM borrowings b LEFT JOIN students s ON b.student_id = s.student_id
+WHERE b.book_id IS NOT NULL AND b.return_date IS NOT NULL
+GROUP BY DATE(b.return_date), b.book_id, COALESCE(s.council_id, 0)
+ON DUPLICATE KEY UPDATE return_count = VALUES(return_count);
@@ -0,0 +1,11 @@
+-- Fine rules read by FinePolicy; existing values are kept
+INSERT IGNORE INTO settings (setting_key, setting_value, description) VALUES
+('fine_rate', '1.0', 'Fine per chargeable day overdue'),
+('fine_grace_days', '0', 'Chargeable days overdue that are not fined'),
+('fine_max', '0', 'Maximum fine per borrowing, 0 for no limit'),
+('fine_skip_weekends', 'false', 'Do not charge Saturdays and Sundays'),
+('fine_holidays', '', 'Comma separated yyyy-MM-dd dates that are not charged');
+
+-- Category rates override fine_rate, e.g.
+-- INSERT IGNORE INTO settings (setting_key, setting_value, description) VALUES
+-- ('fine_rate.Reference', '5.0', 'Fine per chargeable day for Reference books');
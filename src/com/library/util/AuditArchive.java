@@ -0,0 +1,276 @@
+package com.library.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Monthly gzip files of audit_log rows moved out of the database by
+ * AuditRetentionJob, one file per month of the rows' timestamps, named
+ * audit_log-yyyy-MM.tsv.gz.
+ *
+ * Each line holds log_id, timestamp, action, book_id, student_id, admin_id
+ * and details, tab separated, with tabs, newlines and backslashes escaped
+ * and NULL written as \N. That is the default format of MySQL's LOAD DATA,
+ * so an unpacked file can be loaded back into an audit_log table as is.
+ *
+ * Every append adds a separate gzip member and is forced to disk before it
+ * returns; GZIPInputStream reads the members as one stream. A member that
+ * fails half way is cut off again.
+ */
+public class AuditArchive {
+    /** Most entries the job archives at once; read() drops repeats within this distance. */
+    public static final int MAX_CHUNK = 10_000;
+
+    private static final String PREFIX = "audit_log-";
+    private static final String SUFFIX = ".tsv.gz";
+    private static final String NULL = "\\N";
+
+    private final Path dir;
+
+    public AuditArchive(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * The archive in audit.archive.dir, default logs/audit-archive.
+     */
+    public static AuditArchive fromConfig() {
+        return new AuditArchive(Paths.get(ConfigurationManager.getProperty("audit.archive.dir", "logs/audit-archive")));
+    }
+
+    /**
+     * One archived audit_log row. The ids are null where the column was.
+     */
+    public static class Entry {
+        private final int logId;
+        private final Timestamp timestamp;
+        private final String action;
+        private final Integer bookId;
+        private final Integer studentId;
+        private final Integer adminId;
+        private final String details;
+
+        public Entry(int logId, Timestamp timestamp, String action, Integer bookId, Integer studentId,
+                     Integer adminId, String details) {
+            this.logId = logId;
+            this.timestamp = timestamp;
+            this.action = action;
+            this.bookId = bookId;
+            this.studentId = studentId;
+            this.adminId = adminId;
+            this.details = details;
+        }
+
+        public int getLogId() { return logId; }
+        public Timestamp getTimestamp() { return timestamp; }
+        public String getAction() { return action; }
+        public Integer getBookId() { return bookId; }
+        public Integer getStudentId() { return studentId; }
+        public Integer getAdminId() { return adminId; }
+        public String getDetails() { return details; }
+    }
+
+    /**
+     * Adds {@code entries} to the end of the month's file and forces them to
+     * disk, so they can be deleted from the database once this returns.
+     */
+    public void append(YearMonth month, List<Entry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream member = new ByteArrayOutputStream(entries.size() * 64);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(member, 64 * 1024), StandardCharsets.UTF_8))) {
+            StringBuilder line = new StringBuilder(256);
+            for (Entry entry : entries) {
+                line.setLength(0);
+                line.append(entry.logId).append('\t')
+                    .append(entry.timestamp != null ? entry.timestamp.toString() : NULL).append('\t');
+                appendEscaped(line, entry.action).append('\t');
+                line.append(entry.bookId != null ? entry.bookId.toString() : NULL).append('\t')
+                    .append(entry.studentId != null ? entry.studentId.toString() : NULL).append('\t')
+                    .append(entry.adminId != null ? entry.adminId.toString() : NULL).append('\t');
+                appendEscaped(line, entry.details).append('\n');
+                out.append(line);
+            }
+        }
+
+        Files.createDirectories(dir);
+        try (FileChannel channel = FileChannel.open(fileFor(month), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            long start = channel.size();
+            ByteBuffer buffer = ByteBuffer.wrap(member.toByteArray());
+            try {
+                long position = start;
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                // Cut off the partial member, which would break reading the file
+                channel.truncate(start);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * The months that have an archive file, oldest first.
+     */
+    public List<YearMonth> months() throws IOException {
+        List<YearMonth> months = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return months;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    months.add(YearMonth.parse(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+                } catch (DateTimeParseException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        Collections.sort(months);
+        return months;
+    }
+
+    /**
+     * Streams the month's entries in the order they were archived, reading
+     * the file as the stream is consumed. Close the stream when done, e.g.
+     * with try-with-resources. An empty stream if the month has no file.
+     *
+     * A chunk archived again because the job stopped before deleting it
+     * from the database is returned only once.
+     */
+    public Stream<Entry> read(YearMonth month) throws IOException {
+        Path file = fileFor(month);
+        if (!Files.exists(file)) {
+            return Stream.empty();
+        }
+        BufferedReader in = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file), 64 * 1024), StandardCharsets.UTF_8));
+        Map<Integer, Boolean> recent = new LinkedHashMap<Integer, Boolean>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Boolean> eldest) {
+                return size() > MAX_CHUNK;
+            }
+        };
+        return in.lines()
+                .map(line -> parse(line, file))
+                .filter(entry -> recent.put(entry.logId, Boolean.TRUE) == null)
+                .onClose(() -> {
+                    try {
+                        in.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * The entry archived last for the month, or null if there is none. Reads
+     * through the whole file.
+     */
+    public Entry lastEntry(YearMonth month) throws IOException {
+        try (Stream<Entry> entries = read(month)) {
+            return entries.reduce((first, second) -> second).orElse(null);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public Path fileFor(YearMonth month) {
+        return dir.resolve(PREFIX + month + SUFFIX);
+    }
+
+    private static Entry parse(String line, Path file) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 7) {
+            throw new UncheckedIOException(new IOException("Malformed line in " + file + ": " + line));
+        }
+        return new Entry(
+            Integer.parseInt(fields[0]),
+            NULL.equals(fields[1]) ? null : Timestamp.valueOf(fields[1]),
+            unescape(fields[2]),
+            parseId(fields[3]),
+            parseId(fields[4]),
+            parseId(fields[5]),
+            unescape(fields[6])
+        );
+    }
+
+    private static Integer parseId(String field) {
+        return NULL.equals(field) ? null : Integer.valueOf(field);
+    }
+
+    private static StringBuilder appendEscaped(StringBuilder line, String value) {
+        if (value == null) {
+            return line.append(NULL);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\': line.append("\\\\"); break;
+                case '\t': line.append("\\t"); break;
+                case '\n': line.append("\\n"); break;
+                case '\r': line.append("\\r"); break;
+                case '\0': line.append("\\0"); break;
+                default: line.append(c);
+            }
+        }
+        return line;
+    }
+
+    private static String unescape(String field) {
+        if (NULL.equals(field)) {
+            return null;
+        }
+        if (field.indexOf('\\') < 0) {
+            return field;
+        }
+        StringBuilder value = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c != '\\' || i + 1 == field.length()) {
+                value.append(c);
+                continue;
+            }
+            char escaped = field.charAt(++i);
+            switch (escaped) {
+                case 't': value.append('\t'); break;
+                case 'n': value.append('\n'); break;
+                case 'r': value.append('\r'); break;
+                case '0': value.append('\0'); break;
+                default: value.append(escaped);
+            }
+        }
+        return value.toString();
+    }
+}
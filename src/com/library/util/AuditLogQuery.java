@@ -0,0 +1,114 @@
+package com.library.util;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Criteria for AuditLogger.searchLogsPage. Every criterion left unset
+ * matches all entries; the ones that are set are ANDed. Column aliases are
+ * l (audit_log) and a (admins).
+ */
+public class AuditLogQuery {
+    private String text;
+    private String action;
+    private Integer adminId;
+    private Date from;
+    private Date before;
+
+    public static AuditLogQuery all() {
+        return new AuditLogQuery();
+    }
+
+    /**
+     * Words in the details, matched through the FULLTEXT index as prefixes,
+     * or the start of the admin's first or last name for every word. Blank
+     * text is ignored.
+     */
+    public AuditLogQuery text(String text) {
+        this.text = text != null && !text.trim().isEmpty() ? text.trim() : null;
+        return this;
+    }
+
+    public AuditLogQuery action(String action) {
+        this.action = action != null && !action.trim().isEmpty() ? action.trim() : null;
+        return this;
+    }
+
+    public AuditLogQuery admin(int adminId) {
+        this.adminId = adminId;
+        return this;
+    }
+
+    /**
+     * Entries at or after {@code from} and before {@code before}; either end
+     * may be null for an open range.
+     */
+    public AuditLogQuery timeRange(Date from, Date before) {
+        this.from = from;
+        this.before = before;
+        return this;
+    }
+
+    /**
+     * Adds one condition per criterion that is set, other than the text,
+     * binding its values to {@code params} in order. The text goes through
+     * detailsCondition and adminNameCondition, one per branch of the search.
+     */
+    void appendConditions(List<String> conditions, List<Object> params) {
+        if (action != null) {
+            conditions.add("l.action = ?");
+            params.add(action);
+        }
+        if (adminId != null) {
+            conditions.add("l.admin_id = ?");
+            params.add(adminId);
+        }
+        if (from != null) {
+            conditions.add("l.timestamp >= ?");
+            params.add(new Timestamp(from.getTime()));
+        }
+        if (before != null) {
+            conditions.add("l.timestamp < ?");
+            params.add(new Timestamp(before.getTime()));
+        }
+    }
+
+    /**
+     * The details half of the text search. Without {@code fullText}, or for
+     * words shorter than the index keeps, the details are matched with LIKE,
+     * for servers where the index is not installed (or was dropped by
+     * sql/alter_audit_log_partitioning.sql); that scans, but only until a
+     * page of matches is found.
+     */
+    String detailsCondition(boolean fullText, List<Object> params) {
+        String booleanQuery = fullText ? FullText.prefixQuery(text) : null;
+        if (booleanQuery != null) {
+            params.add(booleanQuery);
+            return "MATCH(l.details) AGAINST (? IN BOOLEAN MODE)";
+        }
+        params.add("%" + text + "%");
+        return "l.details LIKE ?";
+    }
+
+    /**
+     * The admin half of the text search: admins whose first or last name
+     * starts with each word. admins is a small table, and the matching ids
+     * are looked up through the admin_id index of audit_log.
+     */
+    String adminNameCondition(List<Object> params) {
+        List<String> words = new ArrayList<>();
+        for (String word : text.split("\\s+")) {
+            String prefix = word.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+            words.add("(first_name LIKE ? OR last_name LIKE ?)");
+            params.add(prefix);
+            params.add(prefix);
+        }
+        return "l.admin_id IN (SELECT admin_id FROM admins WHERE " + String.join(" AND ", words) + ")";
+    }
+
+    boolean hasText() {
+        return text != null;
+    }
+}
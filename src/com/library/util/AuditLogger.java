@@ -2,59 +2,410 @@ package com.library.util;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import com.library.dao.Page;
+import com.library.dao.QueryPlanAdvisor;
+import com.library.dao.StatementCache;
 import com.library.models.AuditLog;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * Writes audit events to audit_log without holding up the caller.
+ *
+ * log and logAction only put the event on a bounded in-memory queue. A
+ * single background writer drains it and inserts the events in batches,
+ * which the driver rewrites into multi-row INSERTs. A batch is written once
+ * audit.batch.size events are waiting or audit.flush.intervalMs has passed
+ * since the first of them. When the queue is full, audit.queue.policy
+ * decides: "block" waits up to audit.queue.offerTimeoutMs for room and then
+ * drops the event, "drop" drops it straight away. shutdown() writes what is
+ * still queued.
+ *
+ * When the database is down, or an insert takes longer than
+ * audit.write.timeoutSec, the events go to an AuditSpool file instead.
+ * While the spool holds events, newer ones are appended behind them, and
+ * every audit.spool.retryMs the writer tries to replay the spool into
+ * audit_log, so events are stored in the order they happened.
+ *
+ * The last audit.recent.size events are also kept in memory, seeded from
+ * audit_log in the background by start(), for getRecentActivity().
+ */
 public class AuditLogger {
     private static final Logger logger = LogManager.getLogger(AuditLogger.class);
     
+    private static final int QUEUE_CAPACITY = parseInt("audit.queue.capacity", 10000);
+    private static final int BATCH_SIZE = parseInt("audit.batch.size", 200);
+    private static final long FLUSH_INTERVAL_MILLIS = parseInt("audit.flush.intervalMs", 1000);
+    private static final long OFFER_TIMEOUT_MILLIS = parseInt("audit.queue.offerTimeoutMs", 50);
+    private static final boolean BLOCK_WHEN_FULL =
+            !"drop".equalsIgnoreCase(ConfigurationManager.getProperty("audit.queue.policy", "block").trim());
+    private static final int WRITE_TIMEOUT_SECONDS = parseInt("audit.write.timeoutSec", 10);
+    private static final long SPOOL_RETRY_MILLIS = parseInt("audit.spool.retryMs", 5000);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+    private static final int RECENT_SIZE = parseInt("audit.recent.size", 50);
+    
+    private static final int SEARCH_PAGE_SIZE = 100;
+    private static final String LOGS_PAGE_SELECT = "SELECT l.log_id, l.timestamp, l.action, l.details, l.admin_id, "
+            + "CONCAT(a.first_name, ' ', a.last_name) AS admin_name "
+            + "FROM audit_log l LEFT JOIN admins a ON l.admin_id = a.admin_id ";
+    
+    private static final String INSERT_SQL = "INSERT INTO audit_log "
+            + "(timestamp, action, book_id, student_id, admin_id, details) VALUES (?, ?, ?, ?, ?, ?)";
+    
+    private static final BlockingQueue<AuditEvent> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static final AtomicLong enqueued = new AtomicLong();
+    private static final AtomicLong written = new AtomicLong();
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final AtomicLong failed = new AtomicLong();
+    private static final AtomicLong spooled = new AtomicLong();
+    
+    private static final AuditSpool spool = new AuditSpool(
+            Paths.get(ConfigurationManager.getProperty("audit.spool.file", "logs/audit.spool")));
+    private static long lastReplayAttempt;
+    
+    private static final RecentActivityBuffer recent = new RecentActivityBuffer(RECENT_SIZE);
+    private static final Map<Integer, String> adminNames = new ConcurrentHashMap<>();
+    private static boolean recentSeeded;
+    
+    private static Thread writer;
+    private static volatile boolean closed;
+    // Read-held by enqueue across its closed check and offer, write-held by
+    // shutdown to close, so no event lands in the queue after the writer
+    // may have seen it closed and empty
+    private static final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private static boolean tableChecked;
+    private static volatile boolean fullTextAvailable = true;
+    
     // New method for detailed logging
     public static void log(String action, int bookId, int studentId, int adminId, String details) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            createTableIfNotExists(conn);
-            
-            String query = """
-                INSERT INTO audit_log (action, book_id, student_id, admin_id, details)
-                VALUES (?, ?, ?, ?, ?)
-                """;
-                
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setString(1, action);
-                pstmt.setInt(2, bookId);
-                pstmt.setInt(3, studentId);
-                pstmt.setInt(4, adminId);
-                pstmt.setString(5, details);
-                pstmt.executeUpdate();
-                logger.info("Audit log created: {} - {}", action, details);
+        enqueue(new AuditEvent(action, bookId > 0 ? bookId : null, studentId > 0 ? studentId : null,
+                adminId, details));
+    }
+    
+    // Keep the old method for backward compatibility
+    public static void logAction(String actionType, String description, int adminId) {
+        enqueue(new AuditEvent(actionType, null, null, adminId, description));
+    }
+    
+    private static void enqueue(AuditEvent event) {
+        boolean accepted = false;
+        closeLock.readLock().lock();
+        try {
+            if (!closed) {
+                ensureWriter();
+                accepted = BLOCK_WHEN_FULL
+                        ? queue.offer(event, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                        : queue.offer(event);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        if (accepted) {
+            enqueued.incrementAndGet();
+            recent.add(event);
+        } else {
+            long count = dropped.incrementAndGet();
+            if (count == 1 || count % 1000 == 0) {
+                logger.warn("Audit queue full or closed, {} events dropped so far: {} - {}",
+                        count, event.action, event.details);
+            }
+        }
+    }
+    
+    /**
+     * Starts the writer ahead of the first event, so events spooled by an
+     * earlier run are replayed as soon as the database is reachable.
+     */
+    public static void start() {
+        startSeeding();
+        ensureWriter();
+    }
+    
+    /**
+     * Up to {@code limit} of the latest events, newest first, from memory.
+     * Events still queued for the writer are included; their log id is 0.
+     */
+    public static List<AuditLog> getRecentActivity(int limit) {
+        List<AuditLog> logs = new ArrayList<>();
+        for (AuditEvent event : recent.latest(limit)) {
+            logs.add(new AuditLog(0, event.action, event.details, event.timestamp, event.adminId,
+                    adminNames.getOrDefault(event.adminId, "Admin #" + event.adminId)));
+        }
+        return logs;
+    }
+    
+    /**
+     * Name shown for the admin's events in getRecentActivity, e.g. once the
+     * admin has logged in.
+     */
+    public static void setAdminName(int adminId, String name) {
+        if (name != null) {
+            adminNames.put(adminId, name);
+        }
+    }
+    
+    // Loads the latest entries once, on a thread of its own so a slow or
+    // unreachable database holds up neither startup nor the writer
+    private static synchronized void startSeeding() {
+        if (recentSeeded) {
+            return;
+        }
+        recentSeeded = true;
+        Thread seeder = new Thread(AuditLogger::seedRecentActivity, "audit-recent-seed");
+        seeder.setDaemon(true);
+        seeder.start();
+    }
+    
+    // The entries have to go in before any new event, so if something was
+    // logged meanwhile they are skipped
+    private static void seedRecentActivity() {
+        try {
+            List<AuditLog> logs = searchLogsPage(AuditLogQuery.all(), null, RECENT_SIZE).getItems();
+            List<AuditEvent> events = new ArrayList<>(logs.size());
+            for (int i = logs.size() - 1; i >= 0; i--) {
+                AuditLog log = logs.get(i);
+                events.add(new AuditEvent(log.getTimestamp(), log.getAction(), null, null, log.getAdminId(),
+                        log.getDetails()));
+            }
+            if (recent.seed(events)) {
+                for (AuditLog log : logs) {
+                    setAdminName(log.getAdminId(), log.getAdminName());
+                }
             }
         } catch (SQLException e) {
-            logger.error("Error creating audit log: {}", e.getMessage());
-            e.printStackTrace();
+            logger.error("Error loading recent audit activity: {}", e.getMessage());
         }
     }
     
-    // Keep the old method for backward compatibility
-    public static void logAction(String actionType, String description, int adminId) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            createTableIfNotExists(conn);
-            
-            String query = """
-                INSERT INTO audit_log (action, admin_id, details)
-                VALUES (?, ?, ?)
-                """;
+    private static synchronized void ensureWriter() {
+        if (writer == null) {
+            writer = new Thread(AuditLogger::runWriter, "audit-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+    
+    /**
+     * Stops taking events and waits for the writer to store the ones still
+     * queued. Called once, on application shutdown. Events the writer has
+     * not reached by the timeout are counted as dropped.
+     */
+    public static void shutdown() {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        Thread thread;
+        synchronized (AuditLogger.class) {
+            thread = writer;
+        }
+        if (thread != null) {
+            try {
+                thread.join(SHUTDOWN_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<AuditEvent> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        if (!leftover.isEmpty()) {
+            dropped.addAndGet(leftover.size());
+            logger.warn("{} audit events were still queued at shutdown and are lost", leftover.size());
+        }
+        logger.info("Audit logger stopped: {}", getStats());
+    }
+    
+    public static Stats getStats() {
+        return new Stats(enqueued.get(), written.get(), dropped.get(), failed.get(), spooled.get(), queue.size());
+    }
+    
+    private static void runWriter() {
+        List<AuditEvent> batch = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            try {
+                AuditEvent first = queue.poll(FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed) {
+                        replaySpool(true);
+                        spool.close();
+                        return;
+                    }
+                    replaySpool(false);
+                    continue;
+                }
+                batch.add(first);
                 
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setString(1, actionType);
-                pstmt.setInt(2, adminId);
-                pstmt.setString(3, description);
-                pstmt.executeUpdate();
-                logger.info("Audit log created: {} - {}", actionType, description);
+                // Fill the batch until it is full or the first event has
+                // waited a whole interval; once closed, just take what is there
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MILLIS);
+                while (batch.size() < BATCH_SIZE) {
+                    queue.drainTo(batch, BATCH_SIZE - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= BATCH_SIZE || closed || remaining <= 0) {
+                        break;
+                    }
+                    AuditEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                closed = true;
             }
+            
+            write(batch);
+            batch.clear();
+        }
+    }
+    
+    private static void write(List<AuditEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (spoolPending()) {
+            // Stay behind the events already waiting in the spool
+            spool(batch);
+            replaySpool(false);
+            return;
+        }
+        int stored = 0;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            stored = store(conn, batch);
+        } catch (Exception e) {
+            logger.warn("Audit log unavailable: {}", e.getMessage());
+        }
+        if (stored < batch.size()) {
+            spool(batch.subList(stored, batch.size()));
+        }
+    }
+    
+    /**
+     * Inserts the events, in order, and returns how many of them were dealt
+     * with. Events the database rejects are counted as failed and skipped;
+     * a lost or timed out connection stops the run, leaving the rest to the
+     * caller.
+     */
+    private static int store(Connection conn, List<AuditEvent> events) throws SQLException {
+        if (!tableChecked) {
+            createTableIfNotExists(conn);
+            tableChecked = true;
+        }
+        try {
+            insert(conn, events);
+            written.addAndGet(events.size());
+            logger.debug("Wrote {} audit events", events.size());
+            return events.size();
         } catch (SQLException e) {
-            logger.error("Error creating audit log: {}", e.getMessage());
-            e.printStackTrace();
+            if (isUnavailable(e)) {
+                logger.warn("Audit log unavailable: {}", e.getMessage());
+                return 0;
+            }
+            // A multi-row INSERT fails as a whole; retry one by one so a
+            // single bad event doesn't take the others with it
+            logger.warn("Audit batch failed, retrying events one by one: {}", e.getMessage());
+        }
+        for (int i = 0; i < events.size(); i++) {
+            AuditEvent event = events.get(i);
+            try {
+                insert(conn, Collections.singletonList(event));
+                written.incrementAndGet();
+            } catch (SQLException ex) {
+                if (isUnavailable(ex)) {
+                    logger.warn("Audit log unavailable: {}", ex.getMessage());
+                    return i;
+                }
+                failed.incrementAndGet();
+                logger.error("Error creating audit log: {} - {}: {}", event.action, event.details, ex.getMessage());
+            }
+        }
+        return events.size();
+    }
+    
+    // Connection lost, refused or timed out, as opposed to a rejected row
+    private static boolean isUnavailable(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLTransientConnectionException || t instanceof SQLRecoverableException
+                    || t instanceof SQLTimeoutException) {
+                return true;
+            }
+            if (t instanceof SQLException) {
+                String state = ((SQLException) t).getSQLState();
+                if (state != null && state.startsWith("08")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    private static void insert(Connection conn, List<AuditEvent> events) throws SQLException {
+        try (PreparedStatement pstmt = StatementCache.prepare(conn, INSERT_SQL)) {
+            pstmt.setQueryTimeout(WRITE_TIMEOUT_SECONDS);
+            for (AuditEvent event : events) {
+                pstmt.setTimestamp(1, event.timestamp);
+                pstmt.setString(2, event.action);
+                pstmt.setObject(3, event.bookId, Types.INTEGER);
+                pstmt.setObject(4, event.studentId, Types.INTEGER);
+                pstmt.setInt(5, event.adminId);
+                pstmt.setString(6, event.details);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+    
+    private static boolean spoolPending() {
+        try {
+            return spool.hasPending();
+        } catch (IOException e) {
+            logger.error("Error reading audit spool: {}", e.getMessage());
+            return false;
+        }
+    }
+    
+    private static void spool(List<AuditEvent> events) {
+        try {
+            spool.append(events);
+            spooled.addAndGet(events.size());
+        } catch (IOException e) {
+            failed.addAndGet(events.size());
+            logger.error("Error spooling {} audit events, they are lost: {}", events.size(), e.getMessage());
+        }
+    }
+    
+    // Replays the spool into audit_log, at most once per retry interval
+    // unless forced
+    private static void replaySpool(boolean force) {
+        long now = System.currentTimeMillis();
+        if (!spoolPending() || (!force && now - lastReplayAttempt < SPOOL_RETRY_MILLIS)) {
+            return;
+        }
+        lastReplayAttempt = now;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (spool.replay(events -> store(conn, events), BATCH_SIZE)) {
+                logger.info("Audit spool replayed");
+            }
+        } catch (Exception e) {
+            logger.warn("Audit spool replay failed, will retry: {}", e.getMessage());
         }
     }
     
@@ -79,86 +430,148 @@ public class AuditLogger {
         }
     }
     
-    public static List<AuditLog> getRecentLogs(int limit) {
-        List<AuditLog> logs = new ArrayList<>();
+    private static int parseInt(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(ConfigurationManager.getProperty(key, String.valueOf(defaultValue)).trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+    
+    // One audited action, timestamped when it happened rather than when written
+    static class AuditEvent {
+        final Timestamp timestamp;
+        final String action;
+        final Integer bookId;
+        final Integer studentId;
+        final int adminId;
+        final String details;
         
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = """
-                SELECT l.*, CONCAT(a.first_name, ' ', a.last_name) as admin_name 
-                FROM audit_log l 
-                JOIN admins a ON l.admin_id = a.admin_id 
-                ORDER BY l.timestamp DESC LIMIT ?
-                """;
-            
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setInt(1, limit);
-                ResultSet rs = pstmt.executeQuery();
-                
-                while (rs.next()) {
-                    logs.add(new AuditLog(
-                        rs.getInt("log_id"),
-                        rs.getString("action"),
-                        rs.getString("details"),
-                        rs.getTimestamp("timestamp"),
-                        rs.getInt("admin_id"),
-                        rs.getString("admin_name")
-                    ));
-                }
-            }
+        AuditEvent(String action, Integer bookId, Integer studentId, int adminId, String details) {
+            this(new Timestamp(System.currentTimeMillis()), action, bookId, studentId, adminId, details);
+        }
+        
+        AuditEvent(Timestamp timestamp, String action, Integer bookId, Integer studentId, int adminId,
+                   String details) {
+            this.timestamp = timestamp;
+            this.action = action;
+            this.bookId = bookId;
+            this.studentId = studentId;
+            this.adminId = adminId;
+            this.details = details;
+        }
+    }
+    
+    public static class Stats {
+        private final long enqueued;
+        private final long written;
+        private final long dropped;
+        private final long failed;
+        private final long spooled;
+        private final int queued;
+        
+        Stats(long enqueued, long written, long dropped, long failed, long spooled, int queued) {
+            this.enqueued = enqueued;
+            this.written = written;
+            this.dropped = dropped;
+            this.failed = failed;
+            this.spooled = spooled;
+            this.queued = queued;
+        }
+        
+        public long getEnqueued() { return enqueued; }
+        public long getWritten() { return written; }
+        public long getDropped() { return dropped; }
+        public long getFailed() { return failed; }
+        public long getSpooled() { return spooled; }
+        public int getQueued() { return queued; }
+        
+        @Override
+        public String toString() {
+            return String.format("enqueued=%d, written=%d, dropped=%d, failed=%d, spooled=%d, queued=%d",
+                    enqueued, written, dropped, failed, spooled, queued);
+        }
+    }
+    
+    public static List<AuditLog> getRecentLogs(int limit) {
+        try {
+            return searchLogsPage(AuditLogQuery.all(), null, limit).getItems();
         } catch (SQLException e) {
             logger.error("Error retrieving audit logs: {}", e.getMessage());
             e.printStackTrace();
+            return new ArrayList<>();
         }
-        
-        return logs;
     }
     
+    /**
+     * Every match, newest first. Prefer searchLogsPage, which stops after a
+     * page instead of reading the whole result.
+     */
     public static List<AuditLog> searchLogs(String searchTerm, String actionType, 
                                           Timestamp startDate, Timestamp endDate) {
+        AuditLogQuery query = AuditLogQuery.all()
+                .text(searchTerm)
+                .action(actionType)
+                .timeRange(startDate, endDate != null ? new Timestamp(endDate.getTime() + 1) : null);
         List<AuditLog> logs = new ArrayList<>();
-        
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            StringBuilder sql = new StringBuilder("""
-                SELECT l.*, CONCAT(a.first_name, ' ', a.last_name) as admin_name 
-                FROM audit_log l 
-                JOIN admins a ON l.admin_id = a.admin_id 
-                WHERE 1=1
-                """);
-            
-            List<Object> params = new ArrayList<>();
-            
-            if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-                sql.append(" AND (l.details LIKE ? OR a.first_name LIKE ? OR a.last_name LIKE ?)");
-                String term = "%" + searchTerm.trim() + "%";
-                params.add(term);
-                params.add(term);
-                params.add(term);
-            }
-            
-            if (actionType != null && !actionType.trim().isEmpty()) {
-                sql.append(" AND l.action = ?");
-                params.add(actionType);
-            }
-            
-            if (startDate != null) {
-                sql.append(" AND l.timestamp >= ?");
-                params.add(startDate);
+        try {
+            String cursor = null;
+            do {
+                Page<AuditLog> page = searchLogsPage(query, cursor, SEARCH_PAGE_SIZE);
+                logs.addAll(page.getItems());
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+        } catch (SQLException e) {
+            logger.error("Error searching audit logs: {}", e.getMessage());
+            e.printStackTrace();
+        }
+        return logs;
+    }
+    
+    /**
+     * One page of matching entries, newest first. Pass the page's next
+     * cursor back in for the following page; null starts at the newest.
+     * Pages are keyed on (timestamp, log_id), so a page further back costs
+     * the same as the first.
+     */
+    public static Page<AuditLog> searchLogsPage(AuditLogQuery query, String cursor, int pageSize)
+            throws SQLException {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        boolean fullText = query.hasText() && fullTextAvailable;
+        try {
+            return fetchLogsPage(query, cursor, pageSize, fullText);
+        } catch (SQLException e) {
+            if (!fullText || e.getErrorCode() != FullText.ER_FT_MATCHING_KEY_NOT_FOUND) {
+                throw e;
             }
-            
-            if (endDate != null) {
-                sql.append(" AND l.timestamp <= ?");
-                params.add(endDate);
+            // Index not installed, or dropped by sql/alter_audit_log_partitioning.sql
+            fullTextAvailable = false;
+            return fetchLogsPage(query, cursor, pageSize, false);
+        }
+    }
+    
+    private static Page<AuditLog> fetchLogsPage(AuditLogQuery query, String cursor, int pageSize, boolean fullText)
+            throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String sql = logsPageQuery(query, cursor, pageSize, fullText, params);
+        List<AuditLog> logs = new ArrayList<>();
+        Timestamp lastTimestamp = null;
+        int lastId = 0;
+        boolean more = false;
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = StatementCache.prepare(conn, sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
             }
-            
-            sql.append(" ORDER BY l.timestamp DESC");
-            
-            try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
-                for (int i = 0; i < params.size(); i++) {
-                    pstmt.setObject(i + 1, params.get(i));
-                }
-                
-                ResultSet rs = pstmt.executeQuery();
+            try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
+                    if (logs.size() == pageSize) {
+                        more = true; // the extra look-ahead row
+                        break;
+                    }
                     logs.add(new AuditLog(
                         rs.getInt("log_id"),
                         rs.getString("action"),
@@ -167,13 +580,92 @@ public class AuditLogger {
                         rs.getInt("admin_id"),
                         rs.getString("admin_name")
                     ));
+                    lastTimestamp = rs.getTimestamp("timestamp");
+                    lastId = rs.getInt("log_id");
                 }
             }
-        } catch (SQLException e) {
-            logger.error("Error searching audit logs: {}", e.getMessage());
-            e.printStackTrace();
         }
+        return new Page<>(logs, more ? encodeCursor(lastTimestamp, lastId) : null);
+    }
+    
+    // Fetches one row more than the page size to tell whether another page
+    // exists. A text search matches the details or the admin's name; ORed
+    // together neither side could use its index, so each is a keyset page of
+    // its own and the union of the two is cut to the page.
+    private static String logsPageQuery(AuditLogQuery query, String cursor, int pageSize, boolean fullText,
+                                        List<Object> params) {
+        if (!query.hasText()) {
+            return pageSelect(query, null, new ArrayList<>(), cursor, pageSize, params);
+        }
+        List<Object> detailsParams = new ArrayList<>();
+        String details = query.detailsCondition(fullText, detailsParams);
+        List<Object> adminParams = new ArrayList<>();
+        String admins = query.adminNameCondition(adminParams);
+        String sql = "(" + pageSelect(query, details, detailsParams, cursor, pageSize, params) + ") UNION ("
+                + pageSelect(query, admins, adminParams, cursor, pageSize, params) + ") "
+                + "ORDER BY `timestamp` DESC, log_id DESC LIMIT ?";
+        params.add(pageSize + 1);
+        return sql;
+    }
+    
+    private static String pageSelect(AuditLogQuery query, String textCondition, List<Object> textParams,
+                                     String cursor, int pageSize, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        query.appendConditions(conditions, params);
+        if (textCondition != null) {
+            conditions.add(textCondition);
+            params.addAll(textParams);
+        }
+        Object[] position = decodeCursor(cursor);
+        if (position != null) {
+            conditions.add("(l.timestamp < ? OR (l.timestamp = ? AND l.log_id < ?))");
+            params.add(position[0]);
+            params.add(position[0]);
+            params.add(position[1]);
+        }
+        StringBuilder sql = new StringBuilder(LOGS_PAGE_SELECT);
+        if (!conditions.isEmpty()) {
+            sql.append("WHERE ").append(String.join(" AND ", conditions)).append(' ');
+        }
+        sql.append("ORDER BY l.timestamp DESC, l.log_id DESC LIMIT ?");
+        params.add(pageSize + 1);
+        return sql.toString();
+    }
+    
+    /**
+     * Audit searches checked by QueryPlanAdvisor at startup: the newest
+     * entries, one action, and a later page.
+     */
+    public static void registerQueryPlans(QueryPlanAdvisor advisor) {
+        List<Object> params = new ArrayList<>();
+        String sql = logsPageQuery(AuditLogQuery.all(), null, SEARCH_PAGE_SIZE, false, params);
+        advisor.register("AuditLogger.searchLogsPage", sql, params.toArray());
         
-        return logs;
+        params = new ArrayList<>();
+        sql = logsPageQuery(AuditLogQuery.all().action("LOGIN"),
+                encodeCursor(new Timestamp(System.currentTimeMillis()), Integer.MAX_VALUE),
+                SEARCH_PAGE_SIZE, false, params);
+        advisor.register("AuditLogger.searchLogsPage (action, next page)", sql, params.toArray());
+    }
+    
+    private static String encodeCursor(Timestamp timestamp, int logId) {
+        String raw = timestamp.toString() + "|" + logId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static Object[] decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new Object[] {
+                Timestamp.valueOf(raw.substring(0, separator)),
+                Integer.parseInt(raw.substring(separator + 1))
+            };
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor, e);
+        }
     }
 } 
\ No newline at end of file
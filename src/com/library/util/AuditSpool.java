@@ -0,0 +1,299 @@
+package com.library.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Append-only file that keeps audit events while the database can't take
+ * them, until they are replayed into audit_log in the order they were
+ * spooled. Used only by the audit writer thread.
+ *
+ * Layout: a header with a magic number and the offset up to which records
+ * have been replayed, then records of [sync marker][payload length][CRC32]
+ * [payload], the CRC covering both length and payload. Each append is
+ * forced to disk once for the whole batch. A damaged record, including one
+ * whose length was hit, is skipped by scanning ahead for the next marker
+ * that starts a record with a matching checksum; damage that runs to the end
+ * of the file, such as a torn record left by a crash mid-write, is cut off
+ * when the spool is opened. The replayed offset is saved after every chunk,
+ * so a crash during replay repeats at most one chunk.
+ */
+class AuditSpool {
+    private static final Logger logger = LogManager.getLogger(AuditSpool.class);
+
+    private static final int MAGIC = 0x41554432; // "AUD2"
+    private static final int SYNC = 0x5EC0A0D1;
+    private static final int HEADER_SIZE = 12;
+    private static final int RECORD_HEADER_SIZE = 12;
+    private static final int MAX_PAYLOAD = 1 << 20;
+    private static final int SCAN_CHUNK = 64 * 1024;
+
+    /**
+     * Stores replayed events. Returns how many of them, from the start, were
+     * stored; fewer than all means the rest could not be written yet.
+     */
+    interface Sink {
+        int store(List<AuditLogger.AuditEvent> events) throws SQLException;
+    }
+
+    private final Path path;
+    private FileChannel channel;
+    private long replayed;
+    private long end;
+
+    AuditSpool(Path path) {
+        this.path = path;
+    }
+
+    boolean hasPending() throws IOException {
+        open();
+        return end > replayed;
+    }
+
+    void append(List<AuditLogger.AuditEvent> events) throws IOException {
+        open();
+        List<byte[]> payloads = new ArrayList<>(events.size());
+        int size = 0;
+        for (AuditLogger.AuditEvent event : events) {
+            byte[] payload = encode(event);
+            payloads.add(payload);
+            size += RECORD_HEADER_SIZE + payload.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (byte[] payload : payloads) {
+            buffer.putInt(SYNC);
+            buffer.putInt(payload.length);
+            buffer.putInt(checksum(payload.length, payload));
+            buffer.put(payload);
+        }
+        buffer.flip();
+        long position = end;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        channel.force(false);
+        end = position;
+    }
+
+    /**
+     * Hands the pending records to {@code sink} in chunks of up to
+     * {@code chunkSize}, oldest first. Returns true once everything has been
+     * replayed, which also empties the file.
+     */
+    boolean replay(Sink sink, int chunkSize) throws IOException, SQLException {
+        open();
+        long position = replayed;
+        while (position < end) {
+            List<AuditLogger.AuditEvent> chunk = new ArrayList<>(chunkSize);
+            List<Long> ends = new ArrayList<>(chunkSize);
+            while (position < end && chunk.size() < chunkSize) {
+                byte[] payload = readRecord(position, end);
+                if (payload == null) {
+                    long next = nextRecord(position + 1, end);
+                    long resume = next >= 0 ? next : end;
+                    logger.error("Skipping {} corrupt audit spool bytes at offset {}", resume - position, position);
+                    position = resume;
+                    continue;
+                }
+                position += RECORD_HEADER_SIZE + payload.length;
+                chunk.add(decode(payload));
+                ends.add(position);
+            }
+
+            int stored = chunk.isEmpty() ? 0 : sink.store(chunk);
+            if (stored < chunk.size()) {
+                if (stored > 0) {
+                    saveReplayed(ends.get(stored - 1));
+                }
+                return false;
+            }
+            saveReplayed(position);
+        }
+
+        channel.truncate(HEADER_SIZE);
+        end = HEADER_SIZE;
+        saveReplayed(HEADER_SIZE);
+        return true;
+    }
+
+    void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.error("Error closing audit spool: {}", e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    private void open() throws IOException {
+        if (channel != null) {
+            return;
+        }
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        long size = channel.size();
+        ByteBuffer header = size >= HEADER_SIZE ? read(0, HEADER_SIZE) : null;
+        if (header == null || header.getInt() != MAGIC) {
+            if (size > 0) {
+                logger.error("Audit spool {} has no valid header, discarding {} bytes", path, size);
+            }
+            channel.truncate(0);
+            end = HEADER_SIZE;
+            saveReplayed(HEADER_SIZE);
+            return;
+        }
+        replayed = header.getLong();
+        if (replayed < HEADER_SIZE || replayed > size) {
+            logger.error("Audit spool {} has an invalid replay offset {}, replaying from the start", path, replayed);
+            replayed = HEADER_SIZE;
+        }
+
+        // Walk to the end of the last valid record and cut off anything after
+        // it, so new records follow on from valid ones. Damage with valid
+        // records after it stays in place and is skipped on replay.
+        long position = replayed;
+        long lastEnd = replayed;
+        while (position < size) {
+            byte[] payload = readRecord(position, size);
+            if (payload == null) {
+                position = nextRecord(position + 1, size);
+                if (position < 0) {
+                    break;
+                }
+                logger.error("Audit spool {} has {} corrupt bytes at offset {}", path, position - lastEnd, lastEnd);
+                continue;
+            }
+            position += RECORD_HEADER_SIZE + payload.length;
+            lastEnd = position;
+        }
+        if (lastEnd < size) {
+            logger.warn("Audit spool {} ends in an incomplete record, dropping the last {} bytes", path, size - lastEnd);
+            channel.truncate(lastEnd);
+            channel.force(false);
+        }
+        end = lastEnd;
+        if (end > replayed) {
+            logger.info("Audit spool {} holds {} bytes of events to replay", path, end - replayed);
+        }
+    }
+
+    private void saveReplayed(long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putLong(offset).flip();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+        channel.force(false);
+        replayed = offset;
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of audit spool at offset " + position);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // Payload of the record at position, or null if no intact record starts
+    // there before limit
+    private byte[] readRecord(long position, long limit) throws IOException {
+        if (position + RECORD_HEADER_SIZE > limit) {
+            return null;
+        }
+        ByteBuffer header = read(position, RECORD_HEADER_SIZE);
+        int sync = header.getInt();
+        int length = header.getInt();
+        int crc = header.getInt();
+        if (sync != SYNC || length < 0 || length > MAX_PAYLOAD || position + RECORD_HEADER_SIZE + length > limit) {
+            return null;
+        }
+        byte[] payload = read(position + RECORD_HEADER_SIZE, length).array();
+        return checksum(length, payload) == crc ? payload : null;
+    }
+
+    // Offset of the first intact record at or after from, or -1 if there is
+    // none before limit
+    private long nextRecord(long from, long limit) throws IOException {
+        for (long start = from; start + RECORD_HEADER_SIZE <= limit; start += SCAN_CHUNK) {
+            // Three bytes of overlap, so a marker across chunks is still seen
+            ByteBuffer chunk = read(start, (int) Math.min(SCAN_CHUNK + 3, limit - start));
+            for (int i = 0; i + 4 <= chunk.limit(); i++) {
+                if (chunk.getInt(i) == SYNC && readRecord(start + i, limit) != null) {
+                    return start + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static int checksum(int length, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(4).putInt(0, length));
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] encode(AuditLogger.AuditEvent event) {
+        byte[] action = event.action.getBytes(StandardCharsets.UTF_8);
+        byte[] details = event.details != null ? event.details.getBytes(StandardCharsets.UTF_8) : null;
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 4 * 3 + 4 + action.length + 4 + (details != null ? details.length : 0));
+        buffer.putLong(event.timestamp.getTime());
+        buffer.putInt(event.bookId != null ? event.bookId : 0);
+        buffer.putInt(event.studentId != null ? event.studentId : 0);
+        buffer.putInt(event.adminId);
+        buffer.putInt(action.length).put(action);
+        if (details != null) {
+            buffer.putInt(details.length).put(details);
+        } else {
+            buffer.putInt(-1);
+        }
+        return buffer.array();
+    }
+
+    private static AuditLogger.AuditEvent decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        Timestamp timestamp = new Timestamp(buffer.getLong());
+        int bookId = buffer.getInt();
+        int studentId = buffer.getInt();
+        int adminId = buffer.getInt();
+        String action = readString(buffer);
+        String details = readString(buffer);
+        return new AuditLogger.AuditEvent(timestamp, action, bookId > 0 ? bookId : null,
+                studentId > 0 ? studentId : null, adminId, details);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
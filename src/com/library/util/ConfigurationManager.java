@@ -31,11 +31,13 @@ public class ConfigurationManager {
         properties.setProperty("db.password", "");
     }
     
+    // A -D system property of the same name overrides the file, e.g. to point
+    // the tests at another database
     public static String getProperty(String key) {
-        return properties.getProperty(key);
+        return System.getProperty(key, properties.getProperty(key));
     }
     
     public static String getProperty(String key, String defaultValue) {
-        return properties.getProperty(key, defaultValue);
+        return System.getProperty(key, properties.getProperty(key, defaultValue));
     }
 } 
\ No newline at end of file
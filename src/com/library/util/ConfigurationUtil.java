@@ -8,6 +8,8 @@ import java.util.Map;
 import java.util.Properties;
 import java.io.*;
 
+import com.library.dao.StatementCache;
+
 public class ConfigurationUtil {
     private static final Logger logger = LogManager.getLogger(ConfigurationUtil.class);
     private static final Map<String, String> settingsCache = new HashMap<>();
@@ -47,7 +49,7 @@ public class ConfigurationUtil {
     
     public static void setSetting(String key, String value) {
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
+             PreparedStatement pstmt = StatementCache.prepare(conn, 
                  "INSERT INTO settings (setting_key, setting_value) VALUES (?, ?) " +
                  "ON DUPLICATE KEY UPDATE setting_value = ?")) {
             
@@ -1,15 +1,30 @@
 package com.library.util;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class DatabaseConnection {
-    private static final String URL = "jdbc:mysql://localhost:3306/library_system";
-    private static final String USER = "root";
-    private static final String PASSWORD = "";
+    private static final Logger logger = LogManager.getLogger(DatabaseConnection.class);
+    private static final String URL = ConfigurationManager.getProperty("db.url", "jdbc:mysql://localhost:3306/library_system");
+    private static final String USER = ConfigurationManager.getProperty("db.username", "root");
+    private static final String PASSWORD = ConfigurationManager.getProperty("db.password", "");
+    private static final boolean POOL_ENABLED = Boolean.parseBoolean(ConfigurationManager.getProperty("db.pool.enabled", "true"));
     private static Connection connection = null;
-    
+    private static HikariDataSource dataSource = null;
+
+    // Acquire latency counters for the pooled mode
+    private static final AtomicLong acquireCount = new AtomicLong();
+    private static final AtomicLong acquireNanosTotal = new AtomicLong();
+    private static final AtomicLong acquireNanosMax = new AtomicLong();
+
     static {
         try {
             Class.forName("com.mysql.cj.jdbc.Driver");
@@ -19,11 +34,17 @@ public class DatabaseConnection {
             throw new RuntimeException("MySQL JDBC Driver not found", e);
         }
     }
-    
+
     public static Connection getConnection() {
+        if (POOL_ENABLED) {
+            return getPooledConnection();
+        }
         try {
             if (connection == null || connection.isClosed()) {
-                connection = DriverManager.getConnection(URL, USER, PASSWORD);
+                Properties props = driverProperties();
+                props.setProperty("user", USER);
+                props.setProperty("password", PASSWORD);
+                connection = DriverManager.getConnection(URL, props);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -32,7 +53,82 @@ public class DatabaseConnection {
         }
         return connection;
     }
-    
+
+    private static Connection getPooledConnection() {
+        long start = System.nanoTime();
+        try {
+            Connection conn = getDataSource().getConnection();
+            recordAcquire(System.nanoTime() - start);
+            return conn;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            System.err.println("Database Connection Error: " + e.getMessage());
+            throw new RuntimeException("Failed to connect to database", e);
+        }
+    }
+
+    private static synchronized HikariDataSource getDataSource() {
+        if (dataSource == null || dataSource.isClosed()) {
+            int poolSize = parseInt(ConfigurationManager.getProperty("db.pool.size"), 10);
+            int minIdle = Math.min(parseInt(ConfigurationManager.getProperty("db.pool.idle"), 5), poolSize);
+
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("library-pool");
+            config.setJdbcUrl(URL);
+            config.setUsername(USER);
+            config.setPassword(PASSWORD);
+            config.setMaximumPoolSize(poolSize);
+            config.setMinimumIdle(minIdle);
+            config.setConnectionTimeout(parseLong(ConfigurationManager.getProperty("db.pool.timeout"), 30000L));
+            driverProperties().forEach((key, value) -> config.addDataSourceProperty(key.toString(), value));
+            dataSource = new HikariDataSource(config);
+            logger.info("Connection pool started (size={}, idle={})", poolSize, minIdle);
+        }
+        return dataSource;
+    }
+
+    // Driver-side statement caching and batch rewriting, shared by the pooled
+    // and single-connection modes
+    private static Properties driverProperties() {
+        Properties props = new Properties();
+        props.setProperty("cachePrepStmts", ConfigurationManager.getProperty("db.cachePrepStmts", "true"));
+        props.setProperty("prepStmtCacheSize", ConfigurationManager.getProperty("db.prepStmtCacheSize", "250"));
+        props.setProperty("prepStmtCacheSqlLimit", ConfigurationManager.getProperty("db.prepStmtCacheSqlLimit", "2048"));
+        props.setProperty("useServerPrepStmts", ConfigurationManager.getProperty("db.useServerPrepStmts", "true"));
+        props.setProperty("rewriteBatchedStatements", ConfigurationManager.getProperty("db.rewriteBatchedStatements", "true"));
+        return props;
+    }
+
+    private static void recordAcquire(long nanos) {
+        acquireCount.incrementAndGet();
+        acquireNanosTotal.addAndGet(nanos);
+        acquireNanosMax.accumulateAndGet(nanos, Math::max);
+    }
+
+    public static boolean isPooled() {
+        return POOL_ENABLED;
+    }
+
+    public static PoolStats getPoolStats() {
+        int active = 0;
+        int idle = 0;
+        int total = 0;
+        int pending = 0;
+        synchronized (DatabaseConnection.class) {
+            if (dataSource != null && !dataSource.isClosed()) {
+                HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+                if (pool != null) {
+                    active = pool.getActiveConnections();
+                    idle = pool.getIdleConnections();
+                    total = pool.getTotalConnections();
+                    pending = pool.getThreadsAwaitingConnection();
+                }
+            }
+        }
+        return new PoolStats(active, idle, total, pending,
+                acquireCount.get(), acquireNanosTotal.get(), acquireNanosMax.get());
+    }
+
     public static void closeConnection() {
         try {
             if (connection != null && !connection.isClosed()) {
@@ -41,5 +137,70 @@ public class DatabaseConnection {
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        synchronized (DatabaseConnection.class) {
+            if (dataSource != null && !dataSource.isClosed()) {
+                logger.info("Shutting down connection pool: {}", getPoolStats());
+                dataSource.close();
+            }
+            dataSource = null;
+        }
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        try {
+            return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        try {
+            return value != null ? Long.parseLong(value.trim()) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    public static class PoolStats {
+        private final int activeConnections;
+        private final int idleConnections;
+        private final int totalConnections;
+        private final int pendingThreads;
+        private final long acquireCount;
+        private final long acquireNanosTotal;
+        private final long acquireNanosMax;
+
+        PoolStats(int activeConnections, int idleConnections, int totalConnections, int pendingThreads,
+                  long acquireCount, long acquireNanosTotal, long acquireNanosMax) {
+            this.activeConnections = activeConnections;
+            this.idleConnections = idleConnections;
+            this.totalConnections = totalConnections;
+            this.pendingThreads = pendingThreads;
+            this.acquireCount = acquireCount;
+            this.acquireNanosTotal = acquireNanosTotal;
+            this.acquireNanosMax = acquireNanosMax;
+        }
+
+        public int getActiveConnections() { return activeConnections; }
+        public int getIdleConnections() { return idleConnections; }
+        public int getTotalConnections() { return totalConnections; }
+        public int getPendingThreads() { return pendingThreads; }
+        public long getAcquireCount() { return acquireCount; }
+
+        public double getAverageAcquireMillis() {
+            return acquireCount == 0 ? 0.0 : (acquireNanosTotal / (double) acquireCount) / 1_000_000.0;
+        }
+
+        public double getMaxAcquireMillis() {
+            return acquireNanosMax / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("active=%d, idle=%d, total=%d, pending=%d, acquires=%d, avgAcquire=%.2fms, maxAcquire=%.2fms",
+                    activeConnections, idleConnections, totalConnections, pendingThreads,
+                    acquireCount, getAverageAcquireMillis(), getMaxAcquireMillis());
+        }
     }
-} 
\ No newline at end of file
+}
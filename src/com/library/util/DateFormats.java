@@ -0,0 +1,28 @@
+package com.library.util;
+
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+/**
+ * Shared display formats for dates read from the database. DAOs map
+ * DATETIME columns straight to Timestamps; formatting to text happens only
+ * here, when a value is shown. DateTimeFormatter is immutable, so one
+ * instance serves every thread.
+ */
+public final class DateFormats {
+    public static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("MM/dd/yyyy hh:mm a");
+
+    private DateFormats() {
+    }
+
+    /**
+     * The date in DATE_TIME format in the default time zone, or "" for null.
+     */
+    public static String formatDateTime(Date date) {
+        if (date == null) {
+            return "";
+        }
+        return DATE_TIME.format(date.toInstant().atZone(ZoneId.systemDefault()));
+    }
+}
@@ -0,0 +1,281 @@
+package com.library.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.library.dao.StatementCache;
+
+/**
+ * Rules for overdue fines, read once from the settings table and then
+ * evaluated in memory.
+ *
+ * Settings (all optional):
+ * <ul>
+ * <li>fine_rate: amount per chargeable day, default 1.0</li>
+ * <li>fine_rate.&lt;category&gt;: rate for books of that category</li>
+ * <li>fine_grace_days: chargeable days that are free of charge</li>
+ * <li>fine_max: most a single loan can be fined, 0 for no limit</li>
+ * <li>fine_skip_weekends: true to not charge Saturdays and Sundays</li>
+ * <li>fine_holidays: comma separated yyyy-MM-dd dates that are not charged</li>
+ * </ul>
+ *
+ * A day is chargeable if it falls after the due date, up to and including
+ * the return date, and is not excluded by the calendar. Weekdays are counted
+ * arithmetically and holidays by binary search, so a fine costs the same
+ * however long the loan ran. fineSql() gives the same rules as a MySQL
+ * expression, so a return can work out its fine in the UPDATE that records
+ * it. Subclass and install() to change the rules.
+ */
+public class FinePolicy {
+    private static final Logger logger = LogManager.getLogger(FinePolicy.class);
+
+    private static final String RATE = "fine_rate";
+    private static final String CATEGORY_RATE_PREFIX = "fine_rate.";
+    private static final String GRACE_DAYS = "fine_grace_days";
+    private static final String MAX = "fine_max";
+    private static final String SKIP_WEEKENDS = "fine_skip_weekends";
+    private static final String HOLIDAYS = "fine_holidays";
+
+    private static final double DEFAULT_RATE = 1.0; // ₱1 per day
+
+    // 1970-01-05 was a Monday
+    private static final long FIRST_MONDAY_EPOCH_DAY = 4;
+    // MySQL's TO_DAYS('1970-01-01'); TO_DAYS(d) is d's epoch day plus this
+    private static final long TO_DAYS_EPOCH = 719528;
+
+    private static volatile FinePolicy instance;
+
+    private final double defaultRate;
+    private final Map<String, Double> categoryRates;
+    private final int graceDays;
+    private final double maxFine;
+    private final boolean skipWeekends;
+    private final long[] holidays;
+
+    protected FinePolicy(Map<String, String> settings) {
+        this.defaultRate = parseDouble(settings, RATE, DEFAULT_RATE);
+        this.graceDays = (int) parseDouble(settings, GRACE_DAYS, 0);
+        this.maxFine = parseDouble(settings, MAX, 0);
+        this.skipWeekends = Boolean.parseBoolean(settings.get(SKIP_WEEKENDS));
+
+        Map<String, Double> rates = new HashMap<>();
+        for (String key : settings.keySet()) {
+            if (key.startsWith(CATEGORY_RATE_PREFIX)) {
+                String category = key.substring(CATEGORY_RATE_PREFIX.length()).toLowerCase(Locale.ROOT);
+                rates.put(category, parseDouble(settings, key, defaultRate));
+            }
+        }
+        this.categoryRates = rates;
+        this.holidays = parseHolidays(settings.get(HOLIDAYS), skipWeekends);
+    }
+
+    /**
+     * The policy in effect, loaded from the settings table on first use.
+     */
+    public static FinePolicy getInstance() {
+        FinePolicy policy = instance;
+        if (policy == null) {
+            synchronized (FinePolicy.class) {
+                if (instance == null) {
+                    instance = load();
+                }
+                policy = instance;
+            }
+        }
+        return policy;
+    }
+
+    /**
+     * Re-reads the rules, e.g. after the settings were saved.
+     */
+    public static void reload() {
+        instance = load();
+    }
+
+    public static void install(FinePolicy policy) {
+        instance = policy;
+    }
+
+    private static FinePolicy load() {
+        Map<String, String> settings = new HashMap<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = StatementCache.prepare(conn, 
+                     "SELECT setting_key, setting_value FROM settings WHERE setting_key LIKE 'fine\\_%'");
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                if (rs.getString("setting_value") != null) {
+                    settings.put(rs.getString("setting_key"), rs.getString("setting_value").trim());
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error loading fine settings, using defaults: {}", e.getMessage());
+        }
+        return new FinePolicy(settings);
+    }
+
+    /**
+     * Fine for a book of {@code category} due at {@code dueDate} and returned,
+     * or still out, at {@code asOf}.
+     */
+    public double fineFor(String category, Date dueDate, Date asOf) {
+        long days = chargeableDays(toLocalDate(dueDate), toLocalDate(asOf)) - graceDays;
+        if (days <= 0) {
+            return 0.0;
+        }
+        double fine = days * rateFor(category);
+        return maxFine > 0 ? Math.min(fine, maxFine) : fine;
+    }
+
+    /**
+     * fineFor as a MySQL expression over {@code dueColumn} and
+     * {@code categoryColumn} for a book returned on {@code until}. Adds the
+     * values to bind, in order, to {@code params}. Gives 0 when the due date
+     * is NULL.
+     */
+    public String fineSql(String dueColumn, String categoryColumn, LocalDate until, List<Object> params) {
+        String dueDay = "TO_DAYS(" + dueColumn + ")";
+        long end = until.toEpochDay() + 1;
+        StringBuilder days = new StringBuilder("(? - ");
+        if (skipWeekends) {
+            // weekdaysBefore(end) - weekdaysBefore(due + 1)
+            String sinceMonday = "(" + dueDay + " - " + (TO_DAYS_EPOCH + FIRST_MONDAY_EPOCH_DAY - 1) + ")";
+            days.append("(FLOOR(").append(sinceMonday).append(" / 7) * 5 + LEAST(")
+                .append(sinceMonday).append(" - FLOOR(").append(sinceMonday).append(" / 7) * 7, 5))");
+            params.add(weekdaysBefore(end));
+        } else {
+            days.append(dueDay);
+            params.add(until.toEpochDay() + TO_DAYS_EPOCH);
+        }
+        // Holidays up to the return day, less those up to the due day;
+        // INTERVAL() counts the sorted values <= its first argument
+        int count = insertionPoint(end);
+        if (count > 0) {
+            days.append(" - (? - INTERVAL(").append(dueDay);
+            params.add(count);
+            for (int i = 0; i < count; i++) {
+                days.append(", ?");
+                params.add(holidays[i] + TO_DAYS_EPOCH);
+            }
+            days.append("))");
+        }
+        days.append(')');
+
+        StringBuilder fine = new StringBuilder("GREATEST(").append(days).append(" - ?, 0) * ");
+        params.add(graceDays);
+        if (categoryRates.isEmpty()) {
+            fine.append('?');
+        } else {
+            fine.append("CASE LOWER(").append(categoryColumn).append(')');
+            for (Map.Entry<String, Double> rate : categoryRates.entrySet()) {
+                fine.append(" WHEN ? THEN ?");
+                params.add(rate.getKey());
+                params.add(rate.getValue());
+            }
+            fine.append(" ELSE ? END");
+        }
+        params.add(defaultRate);
+        if (maxFine > 0) {
+            fine.insert(0, "LEAST(").append(", ?)");
+            params.add(maxFine);
+        }
+        return "COALESCE(" + fine + ", 0)";
+    }
+
+    public double rateFor(String category) {
+        if (category != null && !categoryRates.isEmpty()) {
+            Double rate = categoryRates.get(category.toLowerCase(Locale.ROOT));
+            if (rate != null) {
+                return rate;
+            }
+        }
+        return defaultRate;
+    }
+
+    /**
+     * Days after {@code due} up to and including {@code until} that are charged.
+     */
+    public long chargeableDays(LocalDate due, LocalDate until) {
+        if (!until.isAfter(due)) {
+            return 0;
+        }
+        long first = due.toEpochDay() + 1;
+        long end = until.toEpochDay() + 1;
+        long days = skipWeekends ? weekdaysBefore(end) - weekdaysBefore(first) : end - first;
+        return days - holidaysBetween(first, end);
+    }
+
+    // Weekdays from the first Monday of the epoch up to, not including, epochDay
+    private static long weekdaysBefore(long epochDay) {
+        long sinceMonday = epochDay - FIRST_MONDAY_EPOCH_DAY;
+        return Math.floorDiv(sinceMonday, 7) * 5 + Math.min(Math.floorMod(sinceMonday, 7), 5);
+    }
+
+    // Holidays in [first, end)
+    private long holidaysBetween(long first, long end) {
+        if (holidays.length == 0) {
+            return 0;
+        }
+        return insertionPoint(end) - insertionPoint(first);
+    }
+
+    private int insertionPoint(long epochDay) {
+        int index = Arrays.binarySearch(holidays, epochDay);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    // Sorted, without duplicates, and without weekend days when those are
+    // skipped anyway, so no day is subtracted twice
+    private static long[] parseHolidays(String value, boolean skipWeekends) {
+        TreeSet<Long> days = new TreeSet<>();
+        if (value != null) {
+            for (String part : value.split(",")) {
+                if (part.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    LocalDate date = LocalDate.parse(part.trim());
+                    if (!skipWeekends || date.getDayOfWeek().getValue() <= 5) {
+                        days.add(date.toEpochDay());
+                    }
+                } catch (DateTimeParseException e) {
+                    logger.warn("Ignoring invalid holiday in {}: {}", HOLIDAYS, part.trim());
+                }
+            }
+        }
+        return days.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static double parseDouble(Map<String, String> settings, String key, double defaultValue) {
+        String value = settings.get(key);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            logger.error("Error parsing setting {} as number: {}", key, e.getMessage());
+            return defaultValue;
+        }
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        // Instant.ofEpochMilli, since java.sql.Date does not support toInstant()
+        return Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+}
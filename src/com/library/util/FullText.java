@@ -0,0 +1,35 @@
+package com.library.util;
+
+/**
+ * Helpers for MySQL FULLTEXT searches in boolean mode.
+ */
+public final class FullText {
+    // MySQL error 1191: no FULLTEXT index matching the column list
+    public static final int ER_FT_MATCHING_KEY_NOT_FOUND = 1191;
+    // InnoDB's default innodb_ft_min_token_size
+    public static final int MIN_TOKEN = 3;
+
+    private FullText() {
+    }
+
+    /**
+     * Builds a boolean-mode query that requires every word as a prefix, e.g.
+     * "harry pot" becomes "+harry* +pot*". Operator characters split words
+     * the way the FULLTEXT parser does, so "Spider-Man" becomes
+     * "+Spider* +Man*". Returns null when a word is shorter than the server's
+     * minimum token size, since FULLTEXT cannot match it.
+     */
+    public static String prefixQuery(String term) {
+        StringBuilder query = new StringBuilder();
+        for (String token : term.replaceAll("[+\\-<>()~*\"@]", " ").trim().split("\\s+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            if (token.length() < MIN_TOKEN) {
+                return null;
+            }
+            query.append('+').append(token).append("* ");
+        }
+        return query.length() == 0 ? null : query.toString().trim();
+    }
+}
@@ -0,0 +1,73 @@
+package com.library.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The last few audit events in memory, for the dashboard feed. Fixed size;
+ * each add overwrites the oldest slot.
+ *
+ * Lock-free: an add claims the next sequence number and stores the event in
+ * that slot together with the number. A reader walks back from the newest
+ * number and skips slots whose number doesn't match, which were either
+ * claimed but not stored yet or already overwritten by a newer add.
+ */
+class RecentActivityBuffer {
+    private static final class Slot {
+        final long sequence;
+        final AuditLogger.AuditEvent event;
+
+        Slot(long sequence, AuditLogger.AuditEvent event) {
+            this.sequence = sequence;
+            this.event = event;
+        }
+    }
+
+    private final AtomicReferenceArray<Slot> slots;
+    private final AtomicLong next = new AtomicLong();
+
+    RecentActivityBuffer(int capacity) {
+        this.slots = new AtomicReferenceArray<>(Math.max(1, capacity));
+    }
+
+    void add(AuditLogger.AuditEvent event) {
+        long sequence = next.getAndIncrement();
+        slots.set((int) (sequence % slots.length()), new Slot(sequence, event));
+    }
+
+    /**
+     * Puts {@code events}, oldest first, behind anything added later, but
+     * only if nothing has been added yet; returns false otherwise. Claims the
+     * sequence numbers in one step, so a concurrent add always lands after
+     * them, and fills only slots that such an add hasn't already taken.
+     */
+    boolean seed(List<AuditLogger.AuditEvent> events) {
+        int count = Math.min(events.size(), slots.length());
+        int skip = events.size() - count;
+        if (!next.compareAndSet(0, count)) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            slots.compareAndSet(i, null, new Slot(i, events.get(skip + i)));
+        }
+        return true;
+    }
+
+    /**
+     * Up to {@code limit} events, newest first.
+     */
+    List<AuditLogger.AuditEvent> latest(int limit) {
+        List<AuditLogger.AuditEvent> events = new ArrayList<>(Math.min(limit, slots.length()));
+        long end = next.get();
+        long first = Math.max(0, end - slots.length());
+        for (long sequence = end - 1; sequence >= first && events.size() < limit; sequence--) {
+            Slot slot = slots.get((int) (sequence % slots.length()));
+            if (slot != null && slot.sequence == sequence) {
+                events.add(slot.event);
+            }
+        }
+        return events;
+    }
+}
@@ -0,0 +1,89 @@
+package com.library.components;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+import com.library.dao.Page;
+
+public class LazyTableModelTest {
+
+    @Test
+    public void failedBlockIsNotRefetchedOnRepaint() throws Exception {
+        AtomicInteger firstBlockFetches = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        // Two blocks of one row; the first can be read once and then fails,
+        // as if the database went away after it was evicted
+        LazyTableModel.BlockSource<String> source = (cursor, size) -> {
+            if (cursor == null) {
+                if (firstBlockFetches.incrementAndGet() > 1) {
+                    throw new SQLException("Connection refused");
+                }
+                return new Page<>(Collections.singletonList("first"), "1");
+            }
+            return new Page<>(Collections.singletonList("second"), null);
+        };
+        LazyTableModel<String> model = new LazyTableModel<>(new String[] {"Value"}, (item, column) -> item, 1, 1);
+        model.setErrorHandler(e -> errors.incrementAndGet());
+
+        onEdt(() -> model.setSource(source));
+        await(() -> model.getRowCount() == 1 && !model.isLoading());
+        onEdt(model::loadNextBlock);
+        await(() -> model.getRowCount() == 2 && !model.isLoading());
+
+        // Block 0 was evicted; painting it refetches once and fails
+        onEdt(() -> assertNull(model.getValueAt(0, 0)));
+        await(() -> errors.get() == 1);
+
+        for (int i = 0; i < 5; i++) {
+            onEdt(() -> assertNull(model.getValueAt(0, 0)));
+        }
+        Thread.sleep(200);
+        onEdt(() -> { });
+        assertEquals(2, firstBlockFetches.get());
+        assertEquals(1, errors.get());
+        onEdt(() -> assertEquals("second", model.getValueAt(1, 0)));
+    }
+
+    @Test
+    public void newSourceClearsFailedBlocks() throws Exception {
+        LazyTableModel<String> model = new LazyTableModel<>(new String[] {"Value"}, (item, column) -> item, 1, 1);
+        AtomicInteger errors = new AtomicInteger();
+        model.setErrorHandler(e -> errors.incrementAndGet());
+
+        onEdt(() -> model.setSource((cursor, size) -> {
+            throw new SQLException("Connection refused");
+        }));
+        await(() -> errors.get() == 1);
+
+        onEdt(() -> model.setList(() -> Collections.singletonList("back")));
+        await(() -> model.getRowCount() == 1 && !model.isLoading());
+        onEdt(() -> assertEquals("back", model.getValueAt(0, 0)));
+    }
+
+    private static void onEdt(Runnable action) throws Exception {
+        SwingUtilities.invokeAndWait(action);
+    }
+
+    private static void await(BooleanSupplier condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        boolean[] met = new boolean[1];
+        while (System.currentTimeMillis() < deadline) {
+            onEdt(() -> met[0] = condition.getAsBoolean());
+            if (met[0]) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        assertTrue("Timed out waiting for the model", met[0]);
+    }
+}
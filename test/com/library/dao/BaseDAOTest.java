@@ -0,0 +1,91 @@
+package com.library.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.library.util.DatabaseConnection;
+
+/**
+ * The streaming helpers hold a statement, a result set and (for stream) a
+ * pooled connection while rows are read; all of them must be released when
+ * the caller is done, including when it stops early.
+ */
+public class BaseDAOTest {
+    private static final int ROWS = 50;
+
+    @Before
+    public void createRows() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS stream_rows");
+            stmt.execute("CREATE TABLE stream_rows (id INT PRIMARY KEY)");
+            for (int i = 1; i <= ROWS; i++) {
+                stmt.execute("INSERT INTO stream_rows VALUES (" + i + ")");
+            }
+        }
+    }
+
+    @Test
+    public void closingAStreamEarlyReleasesItsResources() throws SQLException {
+        List<ResultSet> results = new ArrayList<>();
+        List<Integer> read = new ArrayList<>();
+        try (Stream<Integer> rows = BaseDAO.stream(rs -> {
+            if (results.isEmpty()) {
+                results.add(rs);
+            }
+            return rs.getInt("id");
+        }, "SELECT id FROM stream_rows WHERE id > ? ORDER BY id", 10)) {
+            rows.limit(3).forEach(read::add);
+            ResultSet rs = results.get(0);
+            assertFalse(rs.isClosed());
+            assertFalse(rs.getStatement().getConnection().isClosed());
+        }
+
+        assertEquals(List.of(11, 12, 13), read);
+        ResultSet rs = results.get(0);
+        assertTrue(rs.isClosed());
+    }
+
+    @Test
+    public void streamsDoNotLeakPooledConnections() {
+        // More streams than the pool has connections; a leak would block
+        // here until the pool timed out
+        int pool = Integer.parseInt(System.getProperty("db.pool.size", "10"));
+        for (int i = 0; i < pool * 3; i++) {
+            try (Stream<Integer> rows = BaseDAO.stream(rs -> rs.getInt(1), "SELECT id FROM stream_rows")) {
+                assertEquals(Integer.valueOf(1), rows.findFirst().orElse(null));
+            }
+        }
+    }
+
+    @Test
+    public void forEachOnACallersConnectionLeavesItOpen() throws SQLException {
+        List<ResultSet> results = new ArrayList<>();
+        List<Integer> read = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            int count = BaseDAO.forEach(conn, rs -> {
+                if (results.isEmpty()) {
+                    results.add(rs);
+                }
+                return rs.getInt("id");
+            }, read::add, "SELECT id FROM stream_rows WHERE id <= ? ORDER BY id", 5);
+
+            assertEquals(5, count);
+            assertEquals(List.of(1, 2, 3, 4, 5), read);
+            assertTrue(results.get(0).isClosed());
+            assertFalse(conn.isClosed());
+        }
+    }
+}
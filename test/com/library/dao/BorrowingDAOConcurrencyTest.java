@@ -0,0 +1,143 @@
+package com.library.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.library.models.Borrowing;
+import com.library.util.DatabaseConnection;
+
+/**
+ * Many desks checking out the same title at once must never hand out more
+ * copies than there are: exactly the available copies succeed, the rest get
+ * BookUnavailableException, and available_quantity ends at zero.
+ */
+public class BorrowingDAOConcurrencyTest {
+    private static final int BOOK_ID = 1;
+    private static final int COPIES = 5;
+    private static final int DESKS = 40;
+
+    @Before
+    public void createSchema() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS borrowings");
+            stmt.execute("DROP TABLE IF EXISTS books");
+            stmt.execute("DROP TABLE IF EXISTS students");
+            stmt.execute("DROP TABLE IF EXISTS circulation_daily");
+            stmt.execute("CREATE TABLE books (book_id INT PRIMARY KEY, title VARCHAR(255), "
+                    + "quantity INT, available_quantity INT, status VARCHAR(20))");
+            stmt.execute("CREATE TABLE students (student_id INT PRIMARY KEY, council_id INT)");
+            stmt.execute("CREATE TABLE borrowings (borrowing_id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "student_id INT, book_id INT, admin_id INT, borrow_date DATETIME NOT NULL, due_date DATETIME, "
+                    + "return_date DATETIME, fine_amount DECIMAL(10,2) DEFAULT 0, status VARCHAR(20))");
+            stmt.execute("CREATE TABLE circulation_daily (day DATE, book_id INT, council_id INT, "
+                    + "borrow_count INT NOT NULL DEFAULT 0, return_count INT NOT NULL DEFAULT 0, "
+                    + "PRIMARY KEY (day, book_id, council_id))");
+            stmt.execute("INSERT INTO books VALUES (" + BOOK_ID + ", 'Noli Me Tangere', " + COPIES + ", "
+                    + COPIES + ", 'Available')");
+            for (int i = 1; i <= DESKS; i++) {
+                stmt.execute("INSERT INTO students VALUES (" + i + ", 0)");
+            }
+        }
+    }
+
+    @After
+    public void dropSchema() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        }
+    }
+
+    @Test
+    public void lastCopiesAreNeverOversold() throws Exception {
+        BorrowingDAO dao = new BorrowingDAO();
+        ExecutorService desks = Executors.newFixedThreadPool(DESKS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 1; i <= DESKS; i++) {
+                int studentId = i;
+                results.add(desks.submit((Callable<Boolean>) () -> {
+                    start.await();
+                    try {
+                        return dao.addBorrowing(borrowing(studentId));
+                    } catch (BookUnavailableException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(60, TimeUnit.SECONDS)) {
+                    succeeded++;
+                }
+            }
+            assertEquals(COPIES, succeeded);
+        } finally {
+            desks.shutdownNow();
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            assertEquals(0, queryInt(stmt, "SELECT available_quantity FROM books WHERE book_id = " + BOOK_ID));
+            assertEquals(COPIES, queryInt(stmt, "SELECT COUNT(*) FROM borrowings WHERE book_id = " + BOOK_ID));
+            assertEquals(COPIES, queryInt(stmt, "SELECT SUM(borrow_count) FROM circulation_daily"));
+        }
+    }
+
+    @Test
+    public void noCopyLeftIsReportedAsUnavailable() throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("UPDATE books SET available_quantity = 0 WHERE book_id = " + BOOK_ID);
+        }
+        try {
+            new BorrowingDAO().addBorrowing(borrowing(1));
+            fail("Expected BookUnavailableException");
+        } catch (BookUnavailableException e) {
+            // expected
+        }
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            assertEquals(0, queryInt(stmt, "SELECT COUNT(*) FROM borrowings"));
+        }
+    }
+
+    private static Borrowing borrowing(int studentId) {
+        Borrowing borrowing = new Borrowing();
+        borrowing.setStudentId(studentId);
+        borrowing.setBookId(BOOK_ID);
+        borrowing.setAdminId(1);
+        borrowing.setBorrowDate(new Date());
+        borrowing.setDueDate(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(7)));
+        return borrowing;
+    }
+
+    private static int queryInt(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.library.dao;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.library.models.Borrowing;
+import com.library.models.BorrowingStatus;
+
+/**
+ * Cost of turning a 100k-row borrowings result into Borrowing objects, with
+ * the dates sent as formatted strings and parsed back by a SimpleDateFormat
+ * per row (the mapping before user-011), against reading them with
+ * getTimestamp (BorrowingDAO.mapResultSetToBorrowing). Both read the same
+ * rows from an in-memory H2 table, so the difference is the date handling.
+ *
+ * Not a unit test; run it by hand:
+ *
+ *   mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/test.cp
+ *   java -cp target/test-classes:target/classes:$(cat target/test.cp) com.library.dao.BorrowingMappingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BorrowingMappingBenchmark {
+    private static final int ROWS = 100_000;
+
+    private static final String COLUMNS = "borrowing_id, student_id, book_id, admin_id, status, is_overdue, "
+            + "days_overdue, fine_amount, first_name, last_name, id_number, title, isbn, admin_name, "
+            + "course_name, year_level, school_year, council_name";
+
+    // H2's FORMATDATETIME standing in for MySQL's DATE_FORMAT(..., '%m/%d/%Y %l:%i %p')
+    private static final String FORMATTED_SQL = "SELECT " + COLUMNS + ", "
+            + "FORMATDATETIME(borrow_date, 'MM/dd/yyyy hh:mm a') AS formatted_borrow_date, "
+            + "FORMATDATETIME(due_date, 'MM/dd/yyyy hh:mm a') AS formatted_due_date, "
+            + "FORMATDATETIME(return_date, 'MM/dd/yyyy hh:mm a') AS formatted_return_date "
+            + "FROM borrowing_rows";
+
+    private static final String TIMESTAMP_SQL = "SELECT " + COLUMNS + ", borrow_date, due_date, return_date "
+            + "FROM borrowing_rows";
+
+    private final BorrowingDAO dao = new BorrowingDAO();
+    private Connection conn;
+
+    @Setup
+    public void createRows() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:mapping_benchmark;MODE=MySQL");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE borrowing_rows (borrowing_id INT PRIMARY KEY, student_id INT, book_id INT, "
+                    + "admin_id INT, borrow_date DATETIME, due_date DATETIME, return_date DATETIME, "
+                    + "status VARCHAR(20), is_overdue BOOLEAN, days_overdue INT, fine_amount DECIMAL(10,2), "
+                    + "first_name VARCHAR(50), last_name VARCHAR(50), id_number VARCHAR(20), title VARCHAR(255), "
+                    + "isbn VARCHAR(20), admin_name VARCHAR(101), course_name VARCHAR(100), "
+                    + "year_level VARCHAR(20), school_year VARCHAR(20), council_name VARCHAR(50))");
+            // Half the loans are returned, so a third of the dates are NULL
+            stmt.execute("INSERT INTO borrowing_rows SELECT X, MOD(X, 2000), MOD(X, 5000), 1, "
+                    + "TIMESTAMP '2024-01-01 08:00:00' + X * INTERVAL '7' MINUTE, "
+                    + "TIMESTAMP '2024-01-15 08:00:00' + X * INTERVAL '7' MINUTE, "
+                    + "CASE WHEN MOD(X, 2) = 0 THEN TIMESTAMP '2024-01-10 16:30:00' + X * INTERVAL '7' MINUTE END, "
+                    + "CASE WHEN MOD(X, 2) = 0 THEN 'Returned' ELSE 'Borrowed' END, MOD(X, 7) = 0, MOD(X, 30), "
+                    + "MOD(X, 30) * 5.0, 'Juan', 'Dela Cruz', CONCAT('2024-', X), CONCAT('Book ', MOD(X, 5000)), "
+                    + "CONCAT('978', X), 'Maria Santos', 'BS Computer Science', '3rd Year', '2024-2025', 'CCS' "
+                    + "FROM SYSTEM_RANGE(1, " + ROWS + ")");
+        }
+    }
+
+    @TearDown
+    public void dropRows() throws SQLException {
+        conn.close();
+    }
+
+    @Benchmark
+    public void parseFormattedDates(Blackhole blackhole) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(FORMATTED_SQL);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(mapFormatted(rs));
+            }
+        }
+    }
+
+    @Benchmark
+    public void readTimestamps(Blackhole blackhole) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(TIMESTAMP_SQL);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(dao.mapResultSetToBorrowing(rs));
+            }
+        }
+    }
+
+    // The mapper as it was before user-011, other columns read as they are now
+    private static Borrowing mapFormatted(ResultSet rs) throws SQLException {
+        Borrowing borrowing = new Borrowing();
+        borrowing.setBorrowingId(rs.getInt("borrowing_id"));
+        borrowing.setStudentId(rs.getInt("student_id"));
+        borrowing.setBookId(rs.getInt("book_id"));
+        borrowing.setAdminId(rs.getInt("admin_id"));
+
+        String borrowDateStr = rs.getString("formatted_borrow_date");
+        String dueDateStr = rs.getString("formatted_due_date");
+        String returnDateStr = rs.getString("formatted_return_date");
+
+        SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy hh:mm a");
+        try {
+            if (borrowDateStr != null) {
+                borrowing.setBorrowDate(sdf.parse(borrowDateStr));
+            }
+            if (dueDateStr != null) {
+                borrowing.setDueDate(sdf.parse(dueDateStr));
+            }
+            if (returnDateStr != null) {
+                borrowing.setReturnDate(sdf.parse(returnDateStr));
+            }
+        } catch (ParseException e) {
+            throw new SQLException(e);
+        }
+
+        borrowing.setStatus(rs.getString("status"));
+        if (rs.getBoolean("is_overdue")) {
+            borrowing.setBorrowingStatus(BorrowingStatus.OVERDUE);
+            borrowing.setDaysOverdue(rs.getInt("days_overdue"));
+        }
+        borrowing.setFineAmount(rs.getDouble("fine_amount"));
+        borrowing.setStudentName(rs.getString("first_name") + " " + rs.getString("last_name"));
+        borrowing.setStudentIdNumber(rs.getString("id_number"));
+        borrowing.setBookTitle(rs.getString("title"));
+        borrowing.setBookIsbn(rs.getString("isbn"));
+        borrowing.setAdminName(rs.getString("admin_name"));
+        borrowing.setCourseName(rs.getString("course_name"));
+        borrowing.setYearLevel(rs.getString("year_level"));
+        borrowing.setSchoolYear(rs.getString("school_year"));
+        borrowing.setCouncilName(rs.getString("council_name"));
+        return borrowing;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BorrowingMappingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,198 @@
+package com.library.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AuditSpoolTest {
+    private static final int HEADER_SIZE = 12;
+    private static final int RECORD_HEADER_SIZE = 12;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path path;
+    private AuditSpool spool;
+
+    @Before
+    public void openSpool() {
+        path = folder.getRoot().toPath().resolve("spool").resolve("audit.spool");
+        spool = new AuditSpool(path);
+    }
+
+    @After
+    public void closeSpool() {
+        spool.close();
+    }
+
+    @Test
+    public void replaysEventsInOrderAndEmptiesTheFile() throws Exception {
+        spool.append(Arrays.asList(event(1, "Borrow", 7, 3, "first"), event(2, "Return", null, null, null)));
+        spool.append(Arrays.asList(event(3, "Login", null, null, "third")));
+        assertTrue(spool.hasPending());
+
+        List<AuditLogger.AuditEvent> stored = new ArrayList<>();
+        assertTrue(spool.replay(storeAll(stored), 2));
+
+        assertEquals(Arrays.asList("first", null, "third"), details(stored));
+        AuditLogger.AuditEvent first = stored.get(0);
+        assertEquals(new Timestamp(1000), first.timestamp);
+        assertEquals("Borrow", first.action);
+        assertEquals(Integer.valueOf(7), first.bookId);
+        assertEquals(Integer.valueOf(3), first.studentId);
+        assertEquals(1, first.adminId);
+        assertNull(stored.get(1).bookId);
+        assertFalse(spool.hasPending());
+        assertEquals(HEADER_SIZE, Files.size(path));
+    }
+
+    @Test
+    public void tornTailIsCutOffWhenOpened() throws Exception {
+        spool.append(Arrays.asList(event(1, "Borrow", null, null, "kept"), event(2, "Borrow", null, null, "torn")));
+        spool.close();
+        long size = Files.size(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        spool = new AuditSpool(path);
+        assertTrue(spool.hasPending());
+        assertEquals(HEADER_SIZE + recordSize(0), Files.size(path));
+
+        // New records follow on from the last complete one
+        spool.append(Arrays.asList(event(3, "Return", null, null, "after")));
+        List<AuditLogger.AuditEvent> stored = new ArrayList<>();
+        assertTrue(spool.replay(storeAll(stored), 10));
+        assertEquals(Arrays.asList("kept", "after"), details(stored));
+    }
+
+    @Test
+    public void recordWithBadChecksumIsSkipped() throws Exception {
+        spool.append(Arrays.asList(event(1, "Borrow", null, null, "one"), event(2, "Borrow", null, null, "two"),
+                event(3, "Borrow", null, null, "three")));
+        spool.close();
+        long second = HEADER_SIZE + recordSize(0);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer flipped = ByteBuffer.allocate(1);
+            long position = second + RECORD_HEADER_SIZE + 10;
+            channel.read(flipped, position);
+            flipped.put(0, (byte) (flipped.get(0) ^ 0xFF)).rewind();
+            channel.write(flipped, position);
+        }
+
+        spool = new AuditSpool(path);
+        List<AuditLogger.AuditEvent> stored = new ArrayList<>();
+        assertTrue(spool.replay(storeAll(stored), 10));
+        assertEquals(Arrays.asList("one", "three"), details(stored));
+    }
+
+    @Test
+    public void recordsAfterADamagedLengthAreStillReplayed() throws Exception {
+        // One length far past the end of the file, one that is plausible
+        // but wrong; either way the reader must find the records after it
+        for (int badLength : new int[] {0x7FFFFFF0, 20}) {
+            spool.append(Arrays.asList(event(1, "Borrow", null, null, "one"), event(2, "Borrow", null, null, "two"),
+                    event(3, "Borrow", null, null, "three"), event(4, "Borrow", null, null, "four")));
+            spool.close();
+            long second = HEADER_SIZE + recordSize(0);
+            long size = Files.size(path);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                ByteBuffer length = ByteBuffer.allocate(4).putInt(0, badLength);
+                channel.write(length, second + 4);
+            }
+
+            spool = new AuditSpool(path);
+            assertTrue(spool.hasPending());
+            assertEquals(size, Files.size(path));
+            List<AuditLogger.AuditEvent> stored = new ArrayList<>();
+            assertTrue(spool.replay(storeAll(stored), 2));
+            assertEquals(Arrays.asList("one", "three", "four"), details(stored));
+        }
+    }
+
+    @Test
+    public void replayResumesAfterTheEventsAlreadyStored() throws Exception {
+        spool.append(Arrays.asList(event(1, "Borrow", null, null, "one"), event(2, "Borrow", null, null, "two"),
+                event(3, "Borrow", null, null, "three"), event(4, "Borrow", null, null, "four")));
+
+        // The first chunk goes in whole, the second only partly
+        List<AuditLogger.AuditEvent> stored = new ArrayList<>();
+        assertFalse(spool.replay(events -> {
+            int count = stored.isEmpty() ? events.size() : 1;
+            stored.addAll(events.subList(0, count));
+            return count;
+        }, 2));
+        assertEquals(Arrays.asList("one", "two", "three"), details(stored));
+        spool.close();
+
+        // The offset is kept in the file, so a new run carries on from there
+        spool = new AuditSpool(path);
+        assertTrue(spool.hasPending());
+        List<AuditLogger.AuditEvent> rest = new ArrayList<>();
+        assertTrue(spool.replay(storeAll(rest), 2));
+        assertEquals(Arrays.asList("four"), details(rest));
+    }
+
+    @Test
+    public void fileWithoutHeaderIsDiscarded() throws Exception {
+        Files.createDirectories(path.getParent());
+        Files.write(path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+
+        assertFalse(spool.hasPending());
+        assertEquals(HEADER_SIZE, Files.size(path));
+    }
+
+    private static AuditLogger.AuditEvent event(int second, String action, Integer bookId, Integer studentId,
+                                                String details) {
+        return new AuditLogger.AuditEvent(new Timestamp(second * 1000L), action, bookId, studentId, second, details);
+    }
+
+    private static AuditSpool.Sink storeAll(List<AuditLogger.AuditEvent> stored) {
+        return events -> {
+            stored.addAll(events);
+            return events.size();
+        };
+    }
+
+    private static List<String> details(List<AuditLogger.AuditEvent> events) {
+        List<String> details = new ArrayList<>();
+        for (AuditLogger.AuditEvent event : events) {
+            details.add(event.details);
+        }
+        return details;
+    }
+
+    // Size on disk of the record at {@code index}, read from its length field
+    private long recordSize(int index) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long position = HEADER_SIZE;
+            for (int i = 0; ; i++) {
+                ByteBuffer length = ByteBuffer.allocate(4);
+                channel.read(length, position + 4);
+                long size = RECORD_HEADER_SIZE + length.getInt(0);
+                if (i == index) {
+                    return size;
+                }
+                position += size;
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.library.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class FinePolicyTest {
+    private static final LocalDate FRIDAY = LocalDate.of(2024, 5, 3);
+    private static final LocalDate SATURDAY = FRIDAY.plusDays(1);
+    private static final LocalDate MONDAY = FRIDAY.plusDays(3);
+
+    @Test
+    public void nothingIsChargedUpToTheDueDate() {
+        FinePolicy policy = policy();
+        assertEquals(0, policy.chargeableDays(MONDAY, MONDAY));
+        assertEquals(0, policy.chargeableDays(MONDAY, FRIDAY));
+        assertEquals(1, policy.chargeableDays(FRIDAY, SATURDAY));
+    }
+
+    @Test
+    public void dueFridayReturnedMondayCountsTheWeekendUnlessSkipped() {
+        assertEquals(3, policy().chargeableDays(FRIDAY, MONDAY));
+        assertEquals(1, policy("fine_skip_weekends", "true").chargeableDays(FRIDAY, MONDAY));
+    }
+
+    @Test
+    public void weekendOnlyLateIsFreeWhenWeekendsAreSkipped() {
+        FinePolicy policy = policy("fine_skip_weekends", "true");
+        assertEquals(0, policy.chargeableDays(FRIDAY, SATURDAY));
+        assertEquals(0, policy.chargeableDays(FRIDAY, FRIDAY.plusDays(2)));
+        assertEquals(0, policy.chargeableDays(SATURDAY, FRIDAY.plusDays(2)));
+        assertEquals(1, policy.chargeableDays(SATURDAY, MONDAY));
+    }
+
+    @Test
+    public void holidaysAreCountedOnce() {
+        FinePolicy policy = policy("fine_holidays", "2024-05-06, 2024-05-06,2024-05-04,,not-a-date");
+        // Saturday and Monday are holidays, Sunday is still charged
+        assertEquals(1, policy.chargeableDays(FRIDAY, MONDAY));
+    }
+
+    @Test
+    public void weekendHolidaysAreNotSubtractedTwice() {
+        FinePolicy policy = policy("fine_skip_weekends", "true", "fine_holidays", "2024-05-04,2024-05-05");
+        assertEquals(1, policy.chargeableDays(FRIDAY, MONDAY));
+
+        policy = policy("fine_skip_weekends", "true", "fine_holidays", "2024-05-04,2024-05-06");
+        assertEquals(0, policy.chargeableDays(FRIDAY, MONDAY));
+    }
+
+    @Test
+    public void holidayOnTheDueDateIsNotSubtracted() {
+        FinePolicy policy = policy("fine_holidays", "2024-05-03");
+        assertEquals(3, policy.chargeableDays(FRIDAY, MONDAY));
+    }
+
+    @Test
+    public void countsMatchADayByDayWalk() {
+        // Spans the epoch, so weekdaysBefore is checked for negative days too
+        String holidays = "1969-12-25,1970-01-01,1970-01-03,1970-01-05,2024-05-01,2024-05-04,2024-05-06";
+        for (String skipWeekends : new String[] {"false", "true"}) {
+            FinePolicy policy = policy("fine_skip_weekends", skipWeekends, "fine_holidays", holidays);
+            for (LocalDate start : new LocalDate[] {LocalDate.of(1969, 12, 20), LocalDate.of(2024, 4, 20)}) {
+                for (int dueOffset = 0; dueOffset < 21; dueOffset++) {
+                    LocalDate due = start.plusDays(dueOffset);
+                    for (int late = -2; late < 30; late++) {
+                        LocalDate until = due.plusDays(late);
+                        assertEquals(due + " to " + until + ", skip weekends " + skipWeekends,
+                                walk(due, until, Boolean.parseBoolean(skipWeekends), holidays),
+                                policy.chargeableDays(due, until));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void graceDaysComeOffBeforeTheRate() {
+        FinePolicy policy = policy("fine_rate", "2", "fine_grace_days", "2");
+        assertEquals(10.0, policy.fineFor(null, date(MONDAY), date(MONDAY.plusDays(7))), 0.001);
+        assertEquals(0.0, policy.fineFor(null, date(MONDAY), date(MONDAY.plusDays(2))), 0.001);
+        assertEquals(2.0, policy.fineFor(null, date(MONDAY), date(MONDAY.plusDays(3))), 0.001);
+    }
+
+    @Test
+    public void graceDaysCountOnlyChargeableDays() {
+        FinePolicy policy = policy("fine_grace_days", "1", "fine_skip_weekends", "true");
+        assertEquals(0.0, policy.fineFor(null, date(FRIDAY), date(MONDAY)), 0.001);
+        assertEquals(1.0, policy.fineFor(null, date(FRIDAY), date(MONDAY.plusDays(1))), 0.001);
+    }
+
+    @Test
+    public void fineIsCappedAtTheMaximum() {
+        FinePolicy policy = policy("fine_rate", "5", "fine_max", "12");
+        assertEquals(10.0, policy.fineFor(null, date(MONDAY), date(MONDAY.plusDays(2))), 0.001);
+        assertEquals(12.0, policy.fineFor(null, date(MONDAY), date(MONDAY.plusDays(30))), 0.001);
+        assertEquals(150.0, policy("fine_rate", "5").fineFor(null, date(MONDAY), date(MONDAY.plusDays(30))), 0.001);
+    }
+
+    @Test
+    public void categoryRatesIgnoreCase() {
+        FinePolicy policy = policy("fine_rate", "1", "fine_rate.Reference", "3");
+        assertEquals(3.0, policy.rateFor("reference"), 0.001);
+        assertEquals(3.0, policy.rateFor("REFERENCE"), 0.001);
+        assertEquals(1.0, policy.rateFor("Fiction"), 0.001);
+        assertEquals(1.0, policy.rateFor(null), 0.001);
+        assertEquals(6.0, policy.fineFor("Reference", date(MONDAY), date(MONDAY.plusDays(2))), 0.001);
+    }
+
+    private static FinePolicy policy(String... settings) {
+        Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < settings.length; i += 2) {
+            map.put(settings[i], settings[i + 1]);
+        }
+        return new FinePolicy(map);
+    }
+
+    private static java.sql.Date date(LocalDate day) {
+        return java.sql.Date.valueOf(day);
+    }
+
+    private static long walk(LocalDate due, LocalDate until, boolean skipWeekends, String holidays) {
+        Set<LocalDate> excluded = new HashSet<>();
+        for (String holiday : holidays.split(",")) {
+            excluded.add(LocalDate.parse(holiday));
+        }
+        long days = 0;
+        for (LocalDate day = due.plusDays(1); !day.isAfter(until); day = day.plusDays(1)) {
+            boolean weekend = day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY;
+            if (!(skipWeekends && weekend) && !excluded.contains(day)) {
+                days++;
+            }
+        }
+        return days;
+    }
+}
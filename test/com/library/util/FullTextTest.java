@@ -0,0 +1,31 @@
+package com.library.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class FullTextTest {
+
+    @Test
+    public void everyWordBecomesARequiredPrefix() {
+        assertEquals("+harry* +potter*", FullText.prefixQuery("  harry   potter "));
+    }
+
+    @Test
+    public void operatorCharactersSplitWords() {
+        assertEquals("+Spider* +Man*", FullText.prefixQuery("Spider-Man"));
+        assertEquals("+quoted* +text*", FullText.prefixQuery("\"quoted\"(text)"));
+    }
+
+    @Test
+    public void shortWordsCannotBeMatched() {
+        assertNull(FullText.prefixQuery("978-0-13-468599-1"));
+        assertNull(FullText.prefixQuery("an apple"));
+    }
+
+    @Test
+    public void onlyOperatorsGivesNoQuery() {
+        assertNull(FullText.prefixQuery("+-*"));
+    }
+}
@@ -0,0 +1,50 @@
+package com.library.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class RecentActivityBufferTest {
+
+    @Test
+    public void seedGoesBehindLaterAdds() {
+        RecentActivityBuffer buffer = new RecentActivityBuffer(5);
+        assertTrue(buffer.seed(Arrays.asList(event("old1"), event("old2"))));
+        buffer.add(event("new"));
+        assertEquals(Arrays.asList("new", "old2", "old1"), details(buffer.latest(10)));
+    }
+
+    @Test
+    public void seedIsRefusedOnceSomethingWasAdded() {
+        RecentActivityBuffer buffer = new RecentActivityBuffer(5);
+        buffer.add(event("new"));
+        assertFalse(buffer.seed(Arrays.asList(event("old"))));
+        assertEquals(Arrays.asList("new"), details(buffer.latest(10)));
+    }
+
+    @Test
+    public void seedKeepsOnlyTheNewestThatFit() {
+        RecentActivityBuffer buffer = new RecentActivityBuffer(2);
+        assertTrue(buffer.seed(Arrays.asList(event("a"), event("b"), event("c"))));
+        assertEquals(Arrays.asList("c", "b"), details(buffer.latest(10)));
+    }
+
+    private static AuditLogger.AuditEvent event(String details) {
+        return new AuditLogger.AuditEvent(new Timestamp(0), "Login", null, null, 1, details);
+    }
+
+    private static List<String> details(List<AuditLogger.AuditEvent> events) {
+        List<String> details = new ArrayList<>();
+        for (AuditLogger.AuditEvent event : events) {
+            details.add(event.details);
+        }
+        return details;
+    }
+}